@@ -2,19 +2,25 @@ package sh.blake.niouring.examples;
 
 import sh.blake.niouring.IoUring;
 import sh.blake.niouring.IoUringFile;
-
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
+import sh.blake.niouring.IoUringFileOptions;
+import sh.blake.niouring.IoUringFileReader;
 
 public class CatExample {
     public static void main(String[] args) {
-        IoUringFile file = new IoUringFile(args[0]);
-        file.onRead(in -> {
-            System.out.println(StandardCharsets.UTF_8.decode(in));
-            file.close();
-        });
-        new IoUring()
-            .queueRead(file, ByteBuffer.allocateDirect(8192))
-            .execute(); // process at least one I/O event (blocking until complete)
+        IoUring ring = new IoUring();
+        IoUringFile file = new IoUringFile(args[0], new IoUringFileOptions());
+        new IoUringFileReader(ring, file, 64 * 1024, 4) // four 64 KiB reads in flight, printed in order
+            .onChunk((chunk, offset) -> {
+                byte[] bytes = new byte[chunk.remaining()];
+                chunk.get(bytes);
+                System.out.write(bytes, 0, bytes.length);
+            })
+            .onComplete(() -> {
+                System.out.flush();
+                file.close();
+                ring.close();
+            })
+            .start();
+        ring.loop();
     }
 }
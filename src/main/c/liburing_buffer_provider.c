@@ -0,0 +1,52 @@
+#include "liburing_buffer_provider.h"
+#include "liburing_provider.h"
+
+#include <jni.h>
+#include <liburing.h>
+#include <errno.h>
+#include <stdint.h>
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUringBufferRing_create(JNIEnv *env, jclass cls, jlong ring_address, jobject byte_buffer, jint count, jint buffer_size, jint group_id) {
+    char *buffer = (*env)->GetDirectBufferAddress(env, byte_buffer);
+    if (buffer == NULL) {
+        throw_exception(env, "invalid byte buffer (buffer ring)", -EINVAL);
+        return -1;
+    }
+
+    struct io_uring *ring = &((struct ring_context *) ring_address)->ring;
+    int32_t ret = 0;
+    struct io_uring_buf_ring *buffer_ring = io_uring_setup_buf_ring(ring, count, group_id, 0, &ret);
+    if (buffer_ring == NULL) {
+        throw_exception(env, "io_uring_setup_buf_ring", ret);
+        return -1;
+    }
+
+    int32_t mask = io_uring_buf_ring_mask(count);
+    for (int32_t i = 0; i < count; i++) {
+        io_uring_buf_ring_add(buffer_ring, buffer + (int64_t) i * buffer_size, buffer_size, i, mask, i);
+    }
+    io_uring_buf_ring_advance(buffer_ring, count);
+
+    return (jlong) buffer_ring;
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringBufferRing_recycle(JNIEnv *env, jclass cls, jlong buffer_ring_address, jobject byte_buffer, jint buffer_size, jint buffer_id, jint count) {
+    char *buffer = (*env)->GetDirectBufferAddress(env, byte_buffer);
+    if (buffer == NULL) {
+        throw_exception(env, "invalid byte buffer (buffer ring)", -EINVAL);
+        return;
+    }
+
+    struct io_uring_buf_ring *buffer_ring = (struct io_uring_buf_ring *) buffer_ring_address;
+    io_uring_buf_ring_add(buffer_ring, buffer + (int64_t) buffer_id * buffer_size, buffer_size, buffer_id, io_uring_buf_ring_mask(count), 0);
+    io_uring_buf_ring_advance(buffer_ring, 1);
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringBufferRing_free(JNIEnv *env, jclass cls, jlong ring_address, jlong buffer_ring_address, jint count, jint group_id) {
+    struct io_uring *ring = &((struct ring_context *) ring_address)->ring;
+    struct io_uring_buf_ring *buffer_ring = (struct io_uring_buf_ring *) buffer_ring_address;
+    io_uring_free_buf_ring(ring, buffer_ring, count, group_id);
+}
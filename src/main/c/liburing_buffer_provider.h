@@ -0,0 +1,16 @@
+#ifndef _LIBURING_BUFFER_PROVIDER_DEFINED
+#define _LIBURING_BUFFER_PROVIDER_DEFINED
+
+#include <jni.h>
+#include <stdint.h>
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUringBufferRing_create(JNIEnv *env, jclass cls, jlong ring_address, jobject byte_buffer, jint count, jint buffer_size, jint group_id);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringBufferRing_recycle(JNIEnv *env, jclass cls, jlong buffer_ring_address, jobject byte_buffer, jint buffer_size, jint buffer_id, jint count);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringBufferRing_free(JNIEnv *env, jclass cls, jlong ring_address, jlong buffer_ring_address, jint count, jint group_id);
+
+#endif
@@ -0,0 +1,15 @@
+#include "liburing_byte_buffer_util_provider.h"
+#include "liburing_provider.h"
+
+#include <jni.h>
+#include <errno.h>
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_util_ByteBufferUtil_addressOf(JNIEnv *env, jclass cls, jobject byte_buffer) {
+    void *address = (*env)->GetDirectBufferAddress(env, byte_buffer);
+    if (address == NULL) {
+        throw_exception(env, "invalid byte buffer (address)", -EINVAL);
+        return -1;
+    }
+    return (jlong) address;
+}
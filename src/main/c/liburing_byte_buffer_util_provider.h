@@ -0,0 +1,9 @@
+#ifndef _LIBURING_BYTE_BUFFER_UTIL_PROVIDER_DEFINED
+#define _LIBURING_BYTE_BUFFER_UTIL_PROVIDER_DEFINED
+
+#include <jni.h>
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_util_ByteBufferUtil_addressOf(JNIEnv *env, jclass cls, jobject byte_buffer);
+
+#endif
@@ -0,0 +1,104 @@
+#define _GNU_SOURCE
+
+#include "liburing_datagram_provider.h"
+#include "liburing_provider.h"
+
+#include <jni.h>
+#include <errno.h>
+#include <string.h>
+#include <stdint.h>
+#include <unistd.h>
+#include <arpa/inet.h>
+#include <netinet/in.h>
+#include <sys/socket.h>
+
+int32_t parse_address(const char *ip, int32_t port, int32_t ipv6, union peer_addr *addr, socklen_t *addr_len) {
+    memset(addr, 0, sizeof(*addr));
+    if (!ipv6) {
+        addr->in.sin_family = AF_INET;
+        addr->in.sin_port = htons(port);
+        if (inet_pton(AF_INET, ip, &addr->in.sin_addr) != 1) {
+            return -EINVAL;
+        }
+        *addr_len = sizeof(addr->in);
+        return 0;
+    }
+    addr->in6.sin6_family = AF_INET6;
+    addr->in6.sin6_port = htons(port);
+    if (inet_pton(AF_INET6, ip, &addr->in6.sin6_addr) != 1) {
+        // an IPv6 socket reaches IPv4 peers through mapped addresses
+        struct in_addr v4;
+        if (inet_pton(AF_INET, ip, &v4) != 1) {
+            return -EINVAL;
+        }
+        addr->in6.sin6_addr.s6_addr[10] = 0xFF;
+        addr->in6.sin6_addr.s6_addr[11] = 0xFF;
+        memcpy(&addr->in6.sin6_addr.s6_addr[12], &v4, sizeof(v4));
+    }
+    *addr_len = sizeof(addr->in6);
+    return 0;
+}
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUringDatagramSocket_create(JNIEnv *env, jclass cls, jboolean ipv6) {
+    int32_t fd = socket(ipv6 ? AF_INET6 : AF_INET, SOCK_DGRAM | SOCK_CLOEXEC, 0);
+    if (fd < 0) {
+        throw_exception(env, "socket", -errno);
+        return -1;
+    }
+    if (ipv6) {
+        int32_t val = 0;
+        setsockopt(fd, IPPROTO_IPV6, IPV6_V6ONLY, &val, sizeof(val));
+    }
+    return fd;
+}
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUringDatagramSocket_bind(JNIEnv *env, jclass cls, jint fd, jstring ip_address, jint port, jboolean ipv6) {
+    union peer_addr addr;
+    socklen_t addr_len;
+    const char *ip = (*env)->GetStringUTFChars(env, ip_address, NULL);
+    int32_t ret = parse_address(ip, port, ipv6, &addr, &addr_len);
+    (*env)->ReleaseStringUTFChars(env, ip_address, ip);
+    if (ret < 0) {
+        throw_exception(env, "bind", ret);
+        return -1;
+    }
+    if (bind(fd, &addr.sa, addr_len) < 0) {
+        throw_exception(env, "bind", -errno);
+        return -1;
+    }
+
+    // port 0 lets the kernel pick one, so report back what was bound
+    addr_len = sizeof(addr);
+    if (getsockname(fd, &addr.sa, &addr_len) < 0) {
+        throw_exception(env, "getsockname", -errno);
+        return -1;
+    }
+    return ntohs(addr.sa.sa_family == AF_INET6 ? addr.in6.sin6_port : addr.in.sin_port);
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringDatagramSocket_connect(JNIEnv *env, jclass cls, jint fd, jstring ip_address, jint port, jboolean ipv6) {
+    union peer_addr addr;
+    socklen_t addr_len;
+    const char *ip = (*env)->GetStringUTFChars(env, ip_address, NULL);
+    int32_t ret = parse_address(ip, port, ipv6, &addr, &addr_len);
+    (*env)->ReleaseStringUTFChars(env, ip_address, ip);
+    if (ret < 0) {
+        throw_exception(env, "connect", ret);
+        return;
+    }
+    // connecting a datagram socket only records the default destination, so it never blocks
+    if (connect(fd, &addr.sa, addr_len) < 0) {
+        throw_exception(env, "connect", -errno);
+    }
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringDatagramSocket_setGro(JNIEnv *env, jclass cls, jint fd, jboolean enabled) {
+    int32_t val = enabled ? 1 : 0;
+    if (setsockopt(fd, SOL_UDP, UDP_GRO, &val, sizeof(val)) < 0) {
+        throw_exception(env, "setsockopt", -errno);
+    }
+}
@@ -0,0 +1,35 @@
+#ifndef _LIBURING_DATAGRAM_PROVIDER_DEFINED
+#define _LIBURING_DATAGRAM_PROVIDER_DEFINED
+
+#include "liburing_provider.h"
+
+#include <jni.h>
+#include <stdint.h>
+#include <netinet/udp.h>
+
+// older headers lack the segmentation offload options
+#ifndef SOL_UDP
+#define SOL_UDP 17
+#endif
+#ifndef UDP_SEGMENT
+#define UDP_SEGMENT 103
+#endif
+#ifndef UDP_GRO
+#define UDP_GRO 104
+#endif
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUringDatagramSocket_create(JNIEnv *env, jclass cls, jboolean ipv6);
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUringDatagramSocket_bind(JNIEnv *env, jclass cls, jint fd, jstring ip_address, jint port, jboolean ipv6);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringDatagramSocket_connect(JNIEnv *env, jclass cls, jint fd, jstring ip_address, jint port, jboolean ipv6);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringDatagramSocket_setGro(JNIEnv *env, jclass cls, jint fd, jboolean enabled);
+
+int32_t parse_address(const char *ip, int32_t port, int32_t ipv6, union peer_addr *addr, socklen_t *addr_len);
+
+#endif
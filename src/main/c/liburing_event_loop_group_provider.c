@@ -0,0 +1,54 @@
+#define _GNU_SOURCE
+
+#include "liburing_event_loop_group_provider.h"
+#include "liburing_provider.h"
+
+#include <jni.h>
+#include <sched.h>
+#include <errno.h>
+#include <stdint.h>
+#include <stdlib.h>
+#include <sys/socket.h>
+#include <linux/filter.h>
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringEventLoopGroup_setAffinity(JNIEnv *env, jclass cls, jint cpu) {
+    cpu_set_t set;
+    CPU_ZERO(&set);
+    CPU_SET(cpu, &set);
+
+    // pid 0 targets the calling thread, not the whole process
+    int32_t ret = sched_setaffinity(0, sizeof(set), &set);
+    if (ret < 0) {
+        throw_exception(env, "sched_setaffinity", -errno);
+    }
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringEventLoopGroup_attachCpuSteering(JNIEnv *env, jclass cls, jint server_socket_fd, jintArray cpus) {
+    jsize count = (*env)->GetArrayLength(env, cpus);
+    struct sock_filter *code = malloc(sizeof(struct sock_filter) * (2 * count + 3));
+    if (!code) {
+        throw_out_of_memory_error(env);
+        return;
+    }
+
+    // A = the CPU handling the packet, return the index of the listener pinned to it, or A % count if none is
+    jint *cpu_list = (*env)->GetIntArrayElements(env, cpus, NULL);
+    uint16_t len = 0;
+    code[len++] = (struct sock_filter) BPF_STMT(BPF_LD | BPF_W | BPF_ABS, SKF_AD_OFF + SKF_AD_CPU);
+    for (jsize i = 0; i < count; i++) {
+        code[len++] = (struct sock_filter) BPF_JUMP(BPF_JMP | BPF_JEQ | BPF_K, (uint32_t) cpu_list[i], 0, 1);
+        code[len++] = (struct sock_filter) BPF_STMT(BPF_RET | BPF_K, (uint32_t) i);
+    }
+    code[len++] = (struct sock_filter) BPF_STMT(BPF_ALU | BPF_MOD | BPF_K, (uint32_t) count);
+    code[len++] = (struct sock_filter) BPF_STMT(BPF_RET | BPF_A, 0);
+    (*env)->ReleaseIntArrayElements(env, cpus, cpu_list, JNI_ABORT);
+
+    struct sock_fprog program = { .len = len, .filter = code };
+    int32_t ret = setsockopt(server_socket_fd, SOL_SOCKET, SO_ATTACH_REUSEPORT_CBPF, &program, sizeof(program));
+    free(code);
+    if (ret < 0) {
+        throw_exception(env, "setsockopt", -errno);
+    }
+}
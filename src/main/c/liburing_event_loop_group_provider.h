@@ -0,0 +1,12 @@
+#ifndef _LIBURING_EVENT_LOOP_GROUP_PROVIDER_DEFINED
+#define _LIBURING_EVENT_LOOP_GROUP_PROVIDER_DEFINED
+
+#include <jni.h>
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringEventLoopGroup_setAffinity(JNIEnv *env, jclass cls, jint cpu);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringEventLoopGroup_attachCpuSteering(JNIEnv *env, jclass cls, jint server_socket_fd, jintArray cpus);
+
+#endif
@@ -1,9 +1,13 @@
+#define _GNU_SOURCE
+
 #include "liburing_file_provider.h"
 #include "liburing_provider.h"
 
 #include <jni.h>
 #include <stdint.h>
 #include <fcntl.h>
+#include <errno.h>
+#include <sys/stat.h>
 #include <stdio.h>
 #include <string.h>
 #include <stdint.h>
@@ -21,3 +25,48 @@ Java_sh_blake_niouring_IoUringFile_open(JNIEnv *env, jclass cls, jstring path) {
     (*env)->ReleaseStringUTFChars(env, path, file_path);
     return (int32_t) ret;
 }
+
+int32_t open_flags(int32_t options) {
+    int32_t flags = O_CLOEXEC;
+    if ((options & FILE_OPTION_READ) && (options & FILE_OPTION_WRITE)) {
+        flags |= O_RDWR;
+    } else if (options & FILE_OPTION_WRITE) {
+        flags |= O_WRONLY;
+    } else {
+        flags |= O_RDONLY;
+    }
+    flags |= (options & FILE_OPTION_APPEND) ? O_APPEND : 0;
+    flags |= (options & FILE_OPTION_CREATE) ? O_CREAT : 0;
+    flags |= (options & FILE_OPTION_TRUNCATE) ? O_TRUNC : 0;
+    flags |= (options & FILE_OPTION_DIRECT) ? O_DIRECT : 0;
+    flags |= (options & FILE_OPTION_DSYNC) ? O_DSYNC : 0;
+    flags |= (options & FILE_OPTION_SYNC) ? O_SYNC : 0;
+    flags |= (options & FILE_OPTION_NOATIME) ? O_NOATIME : 0;
+    return flags;
+}
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUringFile_openWithOptions(JNIEnv *env, jclass cls, jstring path, jint options, jint mode) {
+    int32_t flags = open_flags(options);
+    const char *file_path = (*env)->GetStringUTFChars(env, path, NULL);
+    int32_t ret = open(file_path, flags, (mode_t) mode);
+    int32_t open_errno = errno;
+    (*env)->ReleaseStringUTFChars(env, path, file_path);
+    if (ret < 0) {
+        return throw_exception(env, "open", -open_errno);
+    }
+    return ret;
+}
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUringFile_directAlignment(JNIEnv *env, jclass cls, jint fd) {
+#ifdef STATX_DIOALIGN
+    // Linux >= 6.1 reports the alignment the file system actually needs
+    struct statx stx;
+    if (statx(fd, "", AT_EMPTY_PATH, STATX_DIOALIGN, &stx) == 0 && (stx.stx_mask & STATX_DIOALIGN)
+            && stx.stx_dio_offset_align > 0) {
+        return stx.stx_dio_mem_align > stx.stx_dio_offset_align ? stx.stx_dio_mem_align : stx.stx_dio_offset_align;
+    }
+#endif
+    return DEFAULT_DIRECT_ALIGNMENT;
+}
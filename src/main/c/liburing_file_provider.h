@@ -2,8 +2,35 @@
 #define _LIBURING_FILE_PROVIDER_DEFINED
 
 #include <jni.h>
+#include <stdint.h>
+
+// option bits of IoUringFileOptions
+#define FILE_OPTION_READ     (1 << 0)
+#define FILE_OPTION_WRITE    (1 << 1)
+#define FILE_OPTION_APPEND   (1 << 2)
+#define FILE_OPTION_CREATE   (1 << 3)
+#define FILE_OPTION_TRUNCATE (1 << 4)
+#define FILE_OPTION_DIRECT   (1 << 5)
+#define FILE_OPTION_DSYNC    (1 << 6)
+#define FILE_OPTION_SYNC     (1 << 7)
+#define FILE_OPTION_NOATIME  (1 << 8)
+
+// alignment assumed for O_DIRECT when the kernel cannot report it
+#define DEFAULT_DIRECT_ALIGNMENT 4096
+
+// path buffers of asynchronous opens and stats hold the struct statx first and the path after it; must match
+// IoUring.PATH_OFFSET
+#define PATH_BUFFER_PATH_OFFSET 256
+
+int32_t open_flags(int32_t options);
 
 JNIEXPORT jint JNICALL
 Java_sh_blake_niouring_IoUringFile_open(JNIEnv *env, jclass cls, jstring path);
 
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUringFile_openWithOptions(JNIEnv *env, jclass cls, jstring path, jint options, jint mode);
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUringFile_directAlignment(JNIEnv *env, jclass cls, jint fd);
+
 #endif
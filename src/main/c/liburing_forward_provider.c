@@ -0,0 +1,36 @@
+#define _GNU_SOURCE
+
+#include "liburing_forward_provider.h"
+#include "liburing_provider.h"
+
+#include <jni.h>
+#include <errno.h>
+#include <fcntl.h>
+#include <stdint.h>
+#include <unistd.h>
+#include <sys/socket.h>
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUringForward_createPipe(JNIEnv *env, jclass cls) {
+    int32_t fds[2];
+    if (pipe2(fds, O_CLOEXEC) < 0) {
+        throw_exception(env, "pipe2", -errno);
+        return -1;
+    }
+    // read end in the high half, write end in the low half
+    return ((int64_t) fds[0] << 32) | (uint32_t) fds[1];
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringForward_closePipe(JNIEnv *env, jclass cls, jlong pipe) {
+    close((int32_t) (pipe >> 32));
+    close((int32_t) pipe);
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringForward_shutdown(JNIEnv *env, jclass cls, jint fd, jint how) {
+    // a peer that already went away leaves nothing to shut down
+    if (shutdown(fd, how) < 0 && errno != ENOTCONN) {
+        throw_exception(env, "shutdown", -errno);
+    }
+}
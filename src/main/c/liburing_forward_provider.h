@@ -0,0 +1,15 @@
+#ifndef _LIBURING_FORWARD_PROVIDER_DEFINED
+#define _LIBURING_FORWARD_PROVIDER_DEFINED
+
+#include <jni.h>
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUringForward_createPipe(JNIEnv *env, jclass cls);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringForward_closePipe(JNIEnv *env, jclass cls, jlong pipe);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringForward_shutdown(JNIEnv *env, jclass cls, jint fd, jint how);
+
+#endif
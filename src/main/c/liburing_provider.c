@@ -1,5 +1,10 @@
+#define _GNU_SOURCE
+
 #include "liburing_provider.h"
 #include "liburing_socket_provider.h"
+#include "liburing_file_provider.h"
+#include "liburing_datagram_provider.h"
+#include "liburing_unix_provider.h"
 
 #include <jni.h>
 #include <stdio.h>
@@ -11,25 +16,49 @@
 #include <arpa/inet.h>
 #include <unistd.h>
 #include <stdint.h>
+#include <sys/uio.h>
+#include <endian.h>
+#include <sys/eventfd.h>
+#include <poll.h>
+#include <fcntl.h>
+
+static inline void set_fixed_file(struct io_uring_sqe *sqe, int32_t fixed_index) {
+    if (fixed_index >= 0) {
+        sqe->fd = fixed_index;
+        sqe->flags |= IOSQE_FIXED_FILE;
+    }
+}
+
+int32_t acquire_request(JNIEnv *env, struct ring_context *context, int8_t event_type, int32_t fd, struct io_uring_sqe **sqe) {
+    if (io_uring_sq_space_left(&context->ring) <= 1) {
+        throw_exception(env, "io_uring_sq_space_left", -EBUSY);
+        return -1;
+    }
+    if (context->free_count == 0) {
+        throw_exception(env, "acquire_request", -EBUSY);
+        return -1;
+    }
+
+    *sqe = io_uring_get_sqe(&context->ring);
+    if (*sqe == NULL) {
+        throw_exception(env, "io_uring_get_sqe", -EBUSY);
+        return -1;
+    }
 
-#define EVENT_TYPE_ACCEPT   0
-#define EVENT_TYPE_READ     1
-#define EVENT_TYPE_WRITE    2
-#define EVENT_TYPE_CONNECT  3
-#define EVENT_TYPE_CLOSE    4
-
-struct request {
-    int32_t fd;
-    int8_t event_type;
-    int64_t buffer_addr;
-};
-
-struct accept_request {
-    int32_t fd;
-    int8_t event_type;
-    struct sockaddr_in client_addr;
-    socklen_t client_addr_len;
-};
+    int32_t index = context->free_slots[--context->free_count];
+    struct request *req = &context->requests[index];
+    memset(req, 0, sizeof(*req));
+    req->fd = fd;
+    req->event_type = event_type;
+    req->buffer_group = -1;
+    context->last_request = index;
+    context->last_sqe = *sqe;
+    return index;
+}
+
+void release_request(struct ring_context *context, int32_t index) {
+    context->free_slots[context->free_count++] = index;
+}
 
 JNIEXPORT jlong JNICALL
 Java_sh_blake_niouring_IoUring_createCqes(JNIEnv *env, jclass cls, jint count) {
@@ -42,100 +71,284 @@ Java_sh_blake_niouring_IoUring_createCqes(JNIEnv *env, jclass cls, jint count) {
 }
 
 JNIEXPORT jlong JNICALL
-Java_sh_blake_niouring_IoUring_create(JNIEnv *env, jclass cls, jint maxEvents) {
-    struct io_uring *ring = malloc(sizeof(struct io_uring));
-    if (!ring) {
+Java_sh_blake_niouring_IoUring_create(JNIEnv *env, jclass cls, jint maxEvents, jint flags, jint cq_entries, jint sq_thread_idle, jint sq_thread_cpu) {
+    struct ring_context *context = malloc(sizeof(struct ring_context));
+    if (!context) {
         throw_out_of_memory_error(env);
         return -1;
     }
 
-    int32_t ret = io_uring_queue_init(maxEvents, ring, 0);
+    struct io_uring_params params;
+    memset(&params, 0, sizeof(params));
+    params.flags = (uint32_t) flags;
+    params.cq_entries = (uint32_t) cq_entries;
+    params.sq_thread_idle = (uint32_t) sq_thread_idle;
+    params.sq_thread_cpu = sq_thread_cpu < 0 ? 0 : (uint32_t) sq_thread_cpu;
+
+    int32_t ret = io_uring_queue_init_params(maxEvents, &context->ring, &params);
     if (ret < 0) {
-        throw_exception(env, "io_uring_queue_init", ret);
+        free(context);
+        throw_exception(env, "io_uring_queue_init_params", ret);
         return -1;
     }
 
-    return (uint64_t) ring;
+    // one slot per completion queue entry bounds in-flight requests to what the completion queue can hold
+    context->capacity = context->ring.cq.ring_entries;
+    context->requests = malloc(sizeof(struct request) * context->capacity);
+    context->free_slots = malloc(sizeof(int32_t) * context->capacity);
+    if (!context->requests || !context->free_slots) {
+        io_uring_queue_exit(&context->ring);
+        free(context->requests);
+        free(context->free_slots);
+        free(context);
+        throw_out_of_memory_error(env);
+        return -1;
+    }
+    for (int32_t i = 0; i < context->capacity; i++) {
+        context->free_slots[i] = context->capacity - 1 - i;
+    }
+    context->free_count = context->capacity;
+    context->vectors = NULL;
+    context->last_request = -1;
+    context->last_sqe = NULL;
+
+    return (uint64_t) context;
 }
 
 JNIEXPORT void JNICALL
 Java_sh_blake_niouring_IoUring_close(JNIEnv *env, jclass cls, jlong ring_address) {
-    struct io_uring *ring = (struct io_uring *) ring_address;
-    io_uring_queue_exit(ring);
+    struct ring_context *context = (struct ring_context *) ring_address;
+    io_uring_queue_exit(&context->ring);
+    free(context->requests);
+    free(context->vectors);
+    free(context->free_slots);
+    free(context);
+}
+
+JNIEXPORT jboolean JNICALL
+Java_sh_blake_niouring_IoUring_isSupported(JNIEnv *env, jclass cls, jlong ring_address, jint opcode) {
+    struct io_uring *ring = &((struct ring_context *) ring_address)->ring;
+
+    // kernels too old to be probed are too old for any of the opcodes worth probing for
+    struct io_uring_probe *probe = io_uring_get_probe_ring(ring);
+    if (!probe) {
+        return JNI_FALSE;
+    }
+    jboolean supported = io_uring_opcode_supported(probe, opcode) ? JNI_TRUE : JNI_FALSE;
+    io_uring_free_probe(probe);
+    return supported;
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_enable(JNIEnv *env, jclass cls, jlong ring_address) {
+    struct io_uring *ring = &((struct ring_context *) ring_address)->ring;
+
+    int32_t ret = io_uring_enable_rings(ring);
+    if (ret < 0) {
+        throw_exception(env, "io_uring_enable_rings", ret);
+    }
 }
 
 JNIEXPORT jint JNICALL
-Java_sh_blake_niouring_IoUring_submitAndGetCqes(JNIEnv *env, jclass cls, jlong ring_address, jobject byte_buffer, jlong cqes_address, jint cqes_size, jboolean should_wait) {
-    struct io_uring *ring = (struct io_uring *) ring_address;
+Java_sh_blake_niouring_IoUring_createEventFd(JNIEnv *env, jclass cls) {
+    int32_t fd = eventfd(0, EFD_CLOEXEC);
+    if (fd < 0) {
+        throw_exception(env, "eventfd", -errno);
+        return -1;
+    }
+    return fd;
+}
 
-    int32_t ret = io_uring_submit(ring);
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_signalEventFd(JNIEnv *env, jclass cls, jint event_fd) {
+    int32_t ret = eventfd_write(event_fd, 1);
     if (ret < 0) {
-        if (ret != -EBUSY) { // if busy, continue handling completions
-            throw_exception(env, "io_uring_submit", ret);
-            return -1;
+        throw_exception(env, "eventfd_write", -errno);
+    }
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_submit(JNIEnv *env, jclass cls, jlong ring_address) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    int32_t ret = io_uring_submit(&context->ring);
+    if (ret < 0 && ret != -EBUSY) {
+        throw_exception(env, "io_uring_submit", ret);
+    }
+}
+
+static void write_address(struct result *result, const union peer_addr *peer) {
+    if (peer->sa.sa_family == AF_INET) {
+        result->addr_family = 4;
+        result->port = ntohs(peer->in.sin_port);
+        result->addr_high = 0;
+        result->addr_low = ntohl(peer->in.sin_addr.s_addr);
+    } else if (peer->sa.sa_family == AF_INET6) {
+        uint64_t high, low;
+        memcpy(&high, &peer->in6.sin6_addr.s6_addr[0], sizeof(high));
+        memcpy(&low, &peer->in6.sin6_addr.s6_addr[8], sizeof(low));
+        result->addr_family = 6;
+        result->port = ntohs(peer->in6.sin6_port);
+        result->addr_high = be64toh(high);
+        result->addr_low = be64toh(low);
+    }
+}
+
+static void write_peer_address(struct result *result, struct request *req, int32_t accepted_fd) {
+    union peer_addr peer;
+    if (req->multishot) {
+        // every shot shares one request, so the peer address has to come from the accepted socket itself
+        socklen_t peer_len = sizeof(peer);
+        if (req->direct || getpeername(accepted_fd, &peer.sa, &peer_len) < 0) {
+            return;
         }
+    } else {
+        peer = req->addr;
     }
+    write_address(result, &peer);
+}
 
-    struct io_uring_cqe **cqes = (struct io_uring_cqe **) cqes_address;
-    ret = io_uring_peek_batch_cqe(ring, cqes, cqes_size);
-    if (ret == 0 && should_wait) {
-        ret = io_uring_wait_cqe(ring, cqes);
-        if (ret < 0) {
-            throw_exception(env, "io_uring_wait_cqe", ret);
-            return -1;
+static int32_t gro_segment_size(struct cmsghdr *cmsg) {
+    if (cmsg != NULL && cmsg->cmsg_level == SOL_UDP && cmsg->cmsg_type == UDP_GRO) {
+        int32_t segment_size;
+        memcpy(&segment_size, CMSG_DATA(cmsg), sizeof(segment_size));
+        return segment_size;
+    }
+    return 0;
+}
+
+static void write_datagram(struct result *result, struct ring_context *context, int32_t index, struct io_uring_cqe *cqe) {
+    struct request *req = &context->requests[index];
+    struct msghdr *msg = &context->vectors[index].msg;
+    int32_t segment_size;
+    result->port = 0;
+    if (req->multishot) {
+        // the kernel lays out a header, the source address and the control messages ahead of the payload
+        char *buffer = (char *) req->buffer_addr + (size_t) (cqe->flags >> IORING_CQE_BUFFER_SHIFT) * req->buffer_size;
+        struct io_uring_recvmsg_out *out = io_uring_recvmsg_validate(buffer, cqe->res, msg);
+        if (out == NULL) {
+            result->res = -EMSGSIZE;
+            return;
         }
-        ret = 1;
+        union peer_addr peer;
+        memset(&peer, 0, sizeof(peer));
+        memcpy(&peer, io_uring_recvmsg_name(out), out->namelen < sizeof(peer) ? out->namelen : sizeof(peer));
+        write_address(result, &peer);
+        segment_size = gro_segment_size(io_uring_recvmsg_cmsg_firsthdr(out, msg));
+        result->res = (int32_t) io_uring_recvmsg_payload_length(out, cqe->res, msg);
+        result->buffer_addr = (char *) io_uring_recvmsg_payload(out, msg) - buffer;
+    } else {
+        write_address(result, &req->addr);
+        segment_size = gro_segment_size(msg->msg_controllen > 0 ? CMSG_FIRSTHDR(msg) : NULL);
     }
+    // ports take 16 bits, which leaves the upper half for the size of coalesced datagrams
+    result->port |= segment_size << 16;
+}
 
-    char *buffer = (*env)->GetDirectBufferAddress(env, byte_buffer);
-    if (buffer == NULL) {
+static void write_descriptors(struct result *result, struct msghdr *msg) {
+    // descriptors go where an address would, four to the 16 bytes of addr_high and addr_low, counted in port
+    int32_t fds[MAX_PASSED_FDS];
+    int32_t count = 0;
+    for (struct cmsghdr *cmsg = CMSG_FIRSTHDR(msg); cmsg != NULL; cmsg = CMSG_NXTHDR(msg, cmsg)) {
+        if (cmsg->cmsg_level != SOL_SOCKET || cmsg->cmsg_type != SCM_RIGHTS) {
+            continue;
+        }
+        int32_t received = (int32_t) ((cmsg->cmsg_len - CMSG_LEN(0)) / sizeof(int32_t));
+        for (int32_t i = 0; i < received && count < MAX_PASSED_FDS; i++) {
+            memcpy(&fds[count++], CMSG_DATA(cmsg) + i * sizeof(int32_t), sizeof(int32_t));
+        }
+    }
+    result->port = count;
+    memcpy(&result->addr_high, fds, sizeof(int32_t) * count);
+}
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUring_submitAndGetCqes(JNIEnv *env, jclass cls, jlong ring_address, jobject byte_buffer, jlong cqes_address, jint cqes_size, jboolean should_wait) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring *ring = &context->ring;
+
+    // when waiting, submit and wait in a single io_uring_enter; it returns right away if completions are ready
+    int32_t ret;
+    if (should_wait) {
+        ret = io_uring_submit_and_wait(ring, 1);
+    } else if (ring->flags & IORING_SETUP_DEFER_TASKRUN) {
+        // deferred completions are only posted when the kernel is entered to reap them
+        ret = io_uring_submit_and_get_events(ring);
+    } else {
+        ret = io_uring_submit(ring);
+    }
+    if (ret < 0 && ret != -EBUSY && ret != -EINTR) { // if busy or interrupted, continue handling completions
+        throw_exception(env, "io_uring_submit", ret);
+        return -1;
+    }
+
+    struct io_uring_cqe **cqes = (struct io_uring_cqe **) cqes_address;
+    ret = io_uring_peek_batch_cqe(ring, cqes, cqes_size);
+
+    struct result *results = (*env)->GetDirectBufferAddress(env, byte_buffer);
+    if (results == NULL) {
         throw_exception(env, "invalid byte buffer (read)", -EINVAL);
         return -1;
     }
 
-    long buf_capacity = (*env)->GetDirectBufferCapacity(env, byte_buffer);
+    if ((*env)->GetDirectBufferCapacity(env, byte_buffer) < (jlong) sizeof(struct result) * ret) {
+        throw_buffer_overflow_exception(env);
+        return -1;
+    }
 
-    int32_t cqe_index = 0;
-    int32_t buf_index = 0;
-    while (cqe_index < ret) {
+    for (int32_t cqe_index = 0; cqe_index < ret; cqe_index++) {
         struct io_uring_cqe *cqe = cqes[cqe_index];
-        struct request *req = (struct request *) cqe->user_data;
+        struct result *result = &results[cqe_index];
 
-        if (buf_index + 9 >= buf_capacity) {
-            throw_buffer_overflow_exception(env);
-            return -1;
+        if (cqe->user_data & MESSAGE_USER_DATA_FLAG) {
+            result->res = cqe->res;
+            result->fd = -1;
+            result->flags = cqe->flags;
+            result->event_type = cqe->user_data == TRANSFER_CLOSE_USER_DATA ? EVENT_TYPE_TRANSFER_CLOSE : EVENT_TYPE_TRANSFER_RECEIVED;
+            result->buffer_group = -1;
+            result->buffer_addr = (int64_t) (cqe->user_data & ~MESSAGE_USER_DATA_FLAG);
+            result->addr_family = 0;
+            result->link = 0;
+            continue;
         }
 
-        buffer[buf_index++] = cqe->res >> 24;
-        buffer[buf_index++] = cqe->res >> 16;
-        buffer[buf_index++] = cqe->res >> 8;
-        buffer[buf_index++] = cqe->res;
-
-        buffer[buf_index++] = req->fd >> 24;
-        buffer[buf_index++] = req->fd >> 16;
-        buffer[buf_index++] = req->fd >> 8;
-        buffer[buf_index++] = req->fd;
+        int32_t index = (int32_t) (cqe->user_data & REQUEST_INDEX_MASK);
+        struct request *req = &context->requests[index];
 
-        buffer[buf_index++] = req->event_type;
+        result->res = cqe->res;
+        result->fd = req->fd;
+        result->flags = cqe->flags;
+        result->event_type = req->event_type;
+        result->buffer_group = req->buffer_group;
+        result->buffer_addr = req->buffer_addr;
+        result->addr_family = 0;
+        result->link = req->link;
 
-        if (req->event_type == EVENT_TYPE_READ || req->event_type == EVENT_TYPE_WRITE) {
-            if (buf_index + 8 >= buf_capacity) {
-                throw_buffer_overflow_exception(env);
-                return -1;
+        if (req->event_type == EVENT_TYPE_ACCEPT && cqe->res >= 0) {
+            write_peer_address(result, req, cqe->res);
+        } else if (req->event_type == EVENT_TYPE_RECEIVE && cqe->res >= 0) {
+            write_datagram(result, context, index, cqe);
+        } else if (req->event_type == EVENT_TYPE_RECEIVE_FDS) {
+            result->port = 0;
+            if (cqe->res >= 0) {
+                write_descriptors(result, &context->vectors[index].msg);
+            }
+        } else if (req->event_type == EVENT_TYPE_SEND_ZC) {
+            if (cqe->flags & IORING_CQE_F_NOTIF) {
+                // the buffer is released now, so the notification carries the send's result; the send already
+                // counted towards its chain
+                result->res = req->sent;
+                result->link = 0;
+            } else if (cqe->flags & IORING_CQE_F_MORE) {
+                req->sent = cqe->res;
             }
-
-            buffer[buf_index++] = req->buffer_addr >> 56;
-            buffer[buf_index++] = req->buffer_addr >> 48;
-            buffer[buf_index++] = req->buffer_addr >> 40;
-            buffer[buf_index++] = req->buffer_addr >> 32;
-            buffer[buf_index++] = req->buffer_addr >> 24;
-            buffer[buf_index++] = req->buffer_addr >> 16;
-            buffer[buf_index++] = req->buffer_addr >> 8;
-            buffer[buf_index++] = req->buffer_addr;
         }
 
-        cqe_index++;
+        // the record holds everything the Java side needs, so the slot can be recycled before handlers run
+        if (!(cqe->flags & IORING_CQE_F_MORE)) {
+            release_request(context, index);
+        }
     }
+    io_uring_cq_advance(ring, ret);
 
     return (int32_t) ret;
 }
@@ -146,178 +359,919 @@ Java_sh_blake_niouring_IoUring_freeCqes(JNIEnv *env, jclass cls, jlong cqes_addr
     free(cqes);
 }
 
-JNIEXPORT jstring JNICALL
-Java_sh_blake_niouring_IoUring_getCqeIpAddress(JNIEnv *env, jclass cls, jlong cqes_address, jint cqe_index) {
-    struct io_uring_cqe **cqes = (struct io_uring_cqe **) cqes_address;
-    struct io_uring_cqe *cqe = cqes[cqe_index];
-    struct accept_request *req = (struct accept_request *) cqe->user_data;
-    char *ip_address = inet_ntoa(req->client_addr.sin_addr);
-    return (*env)->NewStringUTF(env, ip_address);
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueAccept(JNIEnv *env, jclass cls, jlong ring_address, jint server_socket_fd, jint fixed_index, jboolean direct, jboolean multishot) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_ACCEPT, server_socket_fd, &sqe);
+    if (index < 0) {
+        return;
+    }
+    struct request *req = &context->requests[index];
+    req->addr_len = sizeof(req->addr);
+    req->multishot = multishot;
+    req->direct = direct;
+
+    if (multishot && direct) {
+        io_uring_prep_multishot_accept_direct(sqe, server_socket_fd, NULL, NULL, 0);
+    } else if (multishot) {
+        io_uring_prep_multishot_accept(sqe, server_socket_fd, NULL, NULL, 0);
+    } else if (direct) {
+        io_uring_prep_accept_direct(sqe, server_socket_fd, &req->addr.sa, &req->addr_len, 0, IORING_FILE_INDEX_ALLOC);
+    } else {
+        io_uring_prep_accept(sqe, server_socket_fd, &req->addr.sa, &req->addr_len, 0);
+    }
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
 }
 
 JNIEXPORT void JNICALL
-Java_sh_blake_niouring_IoUring_markCqeSeen(JNIEnv *env, jclass cls, jlong ring_address, jlong cqes_address, jint cqe_index) {
-    struct io_uring *ring = (struct io_uring *) ring_address;
-    struct io_uring_cqe **cqes = (struct io_uring_cqe **) cqes_address;
-    struct io_uring_cqe *cqe = cqes[cqe_index];
-    struct request *req = (struct request *) cqe->user_data;
+Java_sh_blake_niouring_IoUring_queueConnect(JNIEnv *env, jclass cls, jlong ring_address, jint socket_fd, jint fixed_index, jstring ip_address, jint port) {
+    struct ring_context *context = (struct ring_context *) ring_address;
 
-    free(req);
-    io_uring_cqe_seen(ring, cqe);
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_CONNECT, socket_fd, &sqe);
+    if (index < 0) {
+        return;
+    }
+    struct request *req = &context->requests[index];
+    const char *ip = (*env)->GetStringUTFChars(env, ip_address, NULL);
+    req->addr.in.sin_addr.s_addr = inet_addr(ip);
+    req->addr.in.sin_port = htons(port);
+    req->addr.in.sin_family = AF_INET;
+    req->addr_len = sizeof(req->addr.in);
+    (*env)->ReleaseStringUTFChars(env, ip_address, ip);
+
+    io_uring_prep_connect(sqe, socket_fd, &req->addr.sa, req->addr_len);
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
 }
 
 JNIEXPORT void JNICALL
-Java_sh_blake_niouring_IoUring_queueAccept(JNIEnv *env, jclass cls, jlong ring_address, jint server_socket_fd) {
-    struct io_uring *ring = (struct io_uring *) ring_address;
-
-    struct io_uring_sqe *sqe = io_uring_get_sqe(ring);
-    if (sqe == NULL) {
-        throw_exception(env, "io_uring_get_sqe", -EBUSY);
+Java_sh_blake_niouring_IoUring_queueConnectUnix(JNIEnv *env, jclass cls, jlong ring_address, jint socket_fd, jint fixed_index, jbyteArray address) {
+    struct sockaddr_un addr;
+    socklen_t addr_len;
+    int32_t ret = unix_address(env, address, &addr, &addr_len);
+    if (ret < 0) {
+        throw_exception(env, "connect", ret);
         return;
     }
-    sqe->cancel_flags = IORING_ASYNC_CANCEL_FD;
 
-    struct accept_request *req = malloc(sizeof(*req));
-    if (!req) {
-        throw_out_of_memory_error(env);
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_CONNECT, socket_fd, &sqe);
+    if (index < 0) {
         return;
     }
-    memset(&req->client_addr, 0, sizeof(req->client_addr));
-    req->client_addr_len = sizeof(req->client_addr);
-    req->event_type = EVENT_TYPE_ACCEPT;
-    req->fd = server_socket_fd;
+    struct request *req = &context->requests[index];
+    req->addr.un = addr;
+    req->addr_len = addr_len;
 
-    io_uring_prep_accept(sqe, server_socket_fd, (struct sockaddr *) &req->client_addr, &req->client_addr_len, 0);
-    io_uring_sqe_set_data(sqe, req);
+    io_uring_prep_connect(sqe, socket_fd, &req->addr.sa, req->addr_len);
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+}
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueRead(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len, jlong io_offset) {
+    char *buffer = (*env)->GetDirectBufferAddress(env, byte_buffer);
+    if (buffer == NULL) {
+        throw_exception(env, "invalid byte buffer (read)", -EINVAL);
+        return -1;
+    }
+
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_READ, fd, &sqe);
+    if (index < 0) {
+        return -1;
+    }
+    context->requests[index].buffer_addr = (int64_t) buffer;
+
+    io_uring_prep_read(sqe, fd, buffer + buffer_pos, buffer_len, (uint64_t) io_offset);
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+
+    return (uint64_t) buffer;
 }
 
 JNIEXPORT void JNICALL
-Java_sh_blake_niouring_IoUring_queueConnect(JNIEnv *env, jclass cls, jlong ring_address, jint socket_fd, jstring ip_address, jint port) {
-    struct io_uring *ring = (struct io_uring *) ring_address;
+Java_sh_blake_niouring_IoUring_queueReadProvided(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jint buffer_group, jint buffer_len, jlong io_offset, jboolean multishot) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_READ, fd, &sqe);
+    if (index < 0) {
+        return;
+    }
+    context->requests[index].buffer_group = (int16_t) buffer_group;
 
-    struct io_uring_sqe *sqe = io_uring_get_sqe(ring);
-    if (sqe == NULL) {
-        throw_exception(env, "io_uring_get_sqe", -EBUSY);
+    if (multishot) {
+        io_uring_prep_recv_multishot(sqe, fd, NULL, 0, 0);
+    } else {
+        io_uring_prep_read(sqe, fd, NULL, buffer_len, (uint64_t) io_offset);
+    }
+    set_fixed_file(sqe, fixed_index);
+    sqe->flags |= IOSQE_BUFFER_SELECT;
+    sqe->buf_group = (uint16_t) buffer_group;
+    io_uring_sqe_set_data64(sqe, index);
+}
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueWrite(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len, jlong io_offset) {
+    char *buffer = (*env)->GetDirectBufferAddress(env, byte_buffer);
+    if (buffer == NULL) {
+        throw_exception(env, "invalid byte buffer (write)", -EINVAL);
+        return -1;
+    }
+
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_WRITE, fd, &sqe);
+    if (index < 0) {
+        return -1;
+    }
+    context->requests[index].buffer_addr = (int64_t) buffer;
+
+    io_uring_prep_write(sqe, fd, buffer + buffer_pos, buffer_len, (uint64_t) io_offset);
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+
+    return (uint64_t) buffer;
+}
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueSendZeroCopy(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len) {
+    char *buffer = (*env)->GetDirectBufferAddress(env, byte_buffer);
+    if (buffer == NULL) {
+        throw_exception(env, "invalid byte buffer (send_zc)", -EINVAL);
+        return -1;
+    }
+
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_SEND_ZC, fd, &sqe);
+    if (index < 0) {
+        return -1;
+    }
+    context->requests[index].buffer_addr = (int64_t) buffer;
+
+    io_uring_prep_send_zc(sqe, fd, buffer + buffer_pos, buffer_len, MSG_NOSIGNAL, 0);
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+
+    return (uint64_t) buffer;
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueSplice(JNIEnv *env, jclass cls, jlong ring_address, jint fd_in, jint fd_out, jint length, jlong tag, jboolean poll_first) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    // a poll linked to nothing would take over the next operation queued, so make sure both fit before taking either
+    uint32_t needed = poll_first ? 2 : 1;
+    if (io_uring_sq_space_left(&context->ring) <= needed || context->free_count < (int32_t) needed) {
+        throw_exception(env, "io_uring_sq_space_left", -EBUSY);
         return;
     }
 
-    struct accept_request *req = malloc(sizeof(*req));
-    if (!req) {
-        throw_out_of_memory_error(env);
+    struct io_uring_sqe *sqe;
+    int32_t index;
+    uint32_t splice_flags = 0;
+    if (poll_first) {
+        // splice always runs on an io-wq worker; waiting for data first keeps the worker from blocking on the socket
+        index = acquire_request(env, context, EVENT_TYPE_SPLICE, -1, &sqe);
+        // the low bit of the tag tells the poll's completion apart from the splice's
+        context->requests[index].buffer_addr = tag | 1;
+        io_uring_prep_poll_add(sqe, fd_in, POLLIN);
+        sqe->flags |= IOSQE_IO_LINK;
+        io_uring_sqe_set_data64(sqe, index);
+        splice_flags = SPLICE_F_NONBLOCK;
+    }
+
+    index = acquire_request(env, context, EVENT_TYPE_SPLICE, -1, &sqe);
+    context->requests[index].buffer_addr = tag;
+    io_uring_prep_splice(sqe, fd_in, -1, fd_out, -1, (uint32_t) length, SPLICE_F_MOVE | splice_flags);
+    io_uring_sqe_set_data64(sqe, index);
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueSpliceFile(JNIEnv *env, jclass cls, jlong ring_address, jint file_fd, jlong io_offset, jlong pipe, jint socket_fd, jint length, jlong tag) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    if (io_uring_sq_space_left(&context->ring) <= 2 || context->free_count < 2) {
+        throw_exception(env, "io_uring_sq_space_left", -EBUSY);
         return;
     }
-    const char *ip = (*env)->GetStringUTFChars(env, ip_address, NULL);
-    memset(&req->client_addr, 0, sizeof(req->client_addr));
-    req->client_addr.sin_addr.s_addr = inet_addr(ip);
-    req->client_addr.sin_port = htons(port);
-    req->client_addr.sin_family = AF_INET;
-    req->client_addr_len = sizeof(req->client_addr);
-    req->event_type = EVENT_TYPE_CONNECT;
-    req->fd = socket_fd;
-    (*env)->ReleaseStringUTFChars(env, ip_address, ip);
 
-    io_uring_prep_connect(sqe, socket_fd, (struct sockaddr *) &req->client_addr, req->client_addr_len);
-    io_uring_sqe_set_data(sqe, req);
+    // file -> pipe, then pipe -> socket; a short first splice breaks the link, and the caller resumes from the pipe
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_SPLICE, -1, &sqe);
+    context->requests[index].buffer_addr = tag;
+    io_uring_prep_splice(sqe, file_fd, io_offset, (int32_t) pipe, -1, (uint32_t) length, SPLICE_F_MOVE);
+    sqe->flags |= IOSQE_IO_LINK;
+    io_uring_sqe_set_data64(sqe, index);
+
+    index = acquire_request(env, context, EVENT_TYPE_SPLICE, -1, &sqe);
+    context->requests[index].buffer_addr = tag | 2;
+    io_uring_prep_splice(sqe, (int32_t) (pipe >> 32), -1, socket_fd, -1, (uint32_t) length, SPLICE_F_MOVE);
+    io_uring_sqe_set_data64(sqe, index);
+}
+
+static int32_t ensure_vectors(JNIEnv *env, struct ring_context *context) {
+    if (context->vectors == NULL) {
+        // allocated once per ring on first use, so vectored operations never allocate on their own
+        context->vectors = malloc(sizeof(struct vector) * context->capacity);
+        if (!context->vectors) {
+            throw_out_of_memory_error(env);
+            return -1;
+        }
+    }
+    return 0;
+}
+
+static jint queue_vectored(JNIEnv *env, jlong ring_address, jint fd, jint fixed_index, jobjectArray byte_buffers, jintArray positions, jintArray lengths, jlong io_offset, jboolean message, int8_t event_type) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    int32_t count = (*env)->GetArrayLength(env, byte_buffers);
+    if (count <= 0 || count > MAX_IOVECS) {
+        throw_exception(env, "invalid buffer count (vectored)", -EINVAL);
+        return -1;
+    }
+
+    char *buffers[MAX_IOVECS];
+    for (int32_t i = 0; i < count; i++) {
+        jobject byte_buffer = (*env)->GetObjectArrayElement(env, byte_buffers, i);
+        buffers[i] = (*env)->GetDirectBufferAddress(env, byte_buffer);
+        (*env)->DeleteLocalRef(env, byte_buffer);
+        if (buffers[i] == NULL) {
+            throw_exception(env, "invalid byte buffer (vectored)", -EINVAL);
+            return -1;
+        }
+    }
+    jint buffer_positions[MAX_IOVECS];
+    jint buffer_lengths[MAX_IOVECS];
+    (*env)->GetIntArrayRegion(env, positions, 0, count, buffer_positions);
+    (*env)->GetIntArrayRegion(env, lengths, 0, count, buffer_lengths);
+
+    if (ensure_vectors(env, context) < 0) {
+        return -1;
+    }
+
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, event_type, fd, &sqe);
+    if (index < 0) {
+        return -1;
+    }
+    // completions look the buffer array up by the request slot
+    context->requests[index].buffer_addr = index;
+
+    struct vector *vector = &context->vectors[index];
+    for (int32_t i = 0; i < count; i++) {
+        vector->iov[i].iov_base = buffers[i] + buffer_positions[i];
+        vector->iov[i].iov_len = (size_t) buffer_lengths[i];
+    }
+
+    if (message) {
+        memset(&vector->msg, 0, sizeof(vector->msg));
+        vector->msg.msg_iov = vector->iov;
+        vector->msg.msg_iovlen = count;
+        if (event_type == EVENT_TYPE_READV) {
+            io_uring_prep_recvmsg(sqe, fd, &vector->msg, 0);
+        } else {
+            io_uring_prep_sendmsg(sqe, fd, &vector->msg, MSG_NOSIGNAL);
+        }
+    } else if (event_type == EVENT_TYPE_READV) {
+        io_uring_prep_readv(sqe, fd, vector->iov, count, (uint64_t) io_offset);
+    } else {
+        io_uring_prep_writev(sqe, fd, vector->iov, count, (uint64_t) io_offset);
+    }
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+
+    return index;
+}
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUring_queueReadv(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobjectArray byte_buffers, jintArray positions, jintArray lengths, jlong io_offset, jboolean message) {
+    return queue_vectored(env, ring_address, fd, fixed_index, byte_buffers, positions, lengths, io_offset, message, EVENT_TYPE_READV);
+}
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUring_queueWritev(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobjectArray byte_buffers, jintArray positions, jintArray lengths, jlong io_offset, jboolean message) {
+    return queue_vectored(env, ring_address, fd, fixed_index, byte_buffers, positions, lengths, io_offset, message, EVENT_TYPE_WRITEV);
 }
 
 JNIEXPORT jlong JNICALL
-Java_sh_blake_niouring_IoUring_queueRead(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jobject byte_buffer, jint buffer_pos, jint buffer_len, jlong io_offset) {
-    void *buffer = (*env)->GetDirectBufferAddress(env, byte_buffer);
+Java_sh_blake_niouring_IoUring_queueReceive(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len) {
+    char *buffer = (*env)->GetDirectBufferAddress(env, byte_buffer);
     if (buffer == NULL) {
-        throw_exception(env, "invalid byte buffer (read)", -EINVAL);
+        throw_exception(env, "invalid byte buffer (recvmsg)", -EINVAL);
         return -1;
     }
 
-    struct io_uring *ring = (struct io_uring *) ring_address;
-    if (io_uring_sq_space_left(ring) <= 1) {
-        throw_exception(env, "io_uring_sq_space_left", -EBUSY);
+    struct ring_context *context = (struct ring_context *) ring_address;
+    if (ensure_vectors(env, context) < 0) {
         return -1;
     }
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_RECEIVE, fd, &sqe);
+    if (index < 0) {
+        return -1;
+    }
+    struct request *req = &context->requests[index];
+    req->buffer_addr = (int64_t) buffer;
 
-    struct io_uring_sqe *sqe = io_uring_get_sqe(ring);
-    if (sqe == NULL) {
-        throw_exception(env, "io_uring_get_sqe", -EBUSY);
+    struct vector *vector = &context->vectors[index];
+    vector->iov[0].iov_base = buffer + buffer_pos;
+    vector->iov[0].iov_len = (size_t) buffer_len;
+    memset(&vector->msg, 0, sizeof(vector->msg));
+    memset(&req->addr, 0, sizeof(req->addr));
+    vector->msg.msg_name = &req->addr;
+    vector->msg.msg_namelen = sizeof(req->addr);
+    vector->msg.msg_iov = vector->iov;
+    vector->msg.msg_iovlen = 1;
+    vector->msg.msg_control = vector->control.buffer;
+    vector->msg.msg_controllen = sizeof(vector->control.buffer);
+
+    io_uring_prep_recvmsg(sqe, fd, &vector->msg, 0);
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+
+    return (int64_t) buffer;
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueReceiveMultishot(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jint buffer_group, jobject buffers, jint buffer_size) {
+    char *base = (*env)->GetDirectBufferAddress(env, buffers);
+    if (base == NULL) {
+        throw_exception(env, "invalid byte buffer (recvmsg)", -EINVAL);
+        return;
+    }
+
+    struct ring_context *context = (struct ring_context *) ring_address;
+    if (ensure_vectors(env, context) < 0) {
+        return;
+    }
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_RECEIVE, fd, &sqe);
+    if (index < 0) {
+        return;
+    }
+    // completions find the selected buffer from the ring's base address and the buffer id
+    struct request *req = &context->requests[index];
+    req->buffer_group = (int16_t) buffer_group;
+    req->buffer_addr = (int64_t) base;
+    req->buffer_size = buffer_size;
+    req->multishot = 1;
+
+    // only the name and control lengths are used, as the layout every selected buffer gets
+    struct msghdr *msg = &context->vectors[index].msg;
+    memset(msg, 0, sizeof(*msg));
+    msg->msg_namelen = sizeof(struct sockaddr_in6);
+    msg->msg_controllen = sizeof(context->vectors[index].control.buffer);
+
+    io_uring_prep_recvmsg_multishot(sqe, fd, msg, 0);
+    set_fixed_file(sqe, fixed_index);
+    sqe->flags |= IOSQE_BUFFER_SELECT;
+    sqe->buf_group = (uint16_t) buffer_group;
+    io_uring_sqe_set_data64(sqe, index);
+}
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueSendTo(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len, jstring ip_address, jint port, jboolean ipv6, jint segment_size) {
+    char *buffer = (*env)->GetDirectBufferAddress(env, byte_buffer);
+    if (buffer == NULL) {
+        throw_exception(env, "invalid byte buffer (sendmsg)", -EINVAL);
         return -1;
     }
 
-    sqe->cancel_flags = IORING_ASYNC_CANCEL_FD;
+    union peer_addr addr;
+    socklen_t addr_len = 0;
+    if (ip_address != NULL) {
+        const char *ip = (*env)->GetStringUTFChars(env, ip_address, NULL);
+        int32_t ret = parse_address(ip, port, ipv6, &addr, &addr_len);
+        (*env)->ReleaseStringUTFChars(env, ip_address, ip);
+        if (ret < 0) {
+            throw_exception(env, "invalid address (sendmsg)", ret);
+            return -1;
+        }
+    }
 
-    struct request *req = malloc(sizeof(*req));
-    if (!req) {
-        throw_out_of_memory_error(env);
+    struct ring_context *context = (struct ring_context *) ring_address;
+    if (ensure_vectors(env, context) < 0) {
         return -1;
     }
-    req->event_type = EVENT_TYPE_READ;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_SEND_TO, fd, &sqe);
+    if (index < 0) {
+        return -1;
+    }
+    struct request *req = &context->requests[index];
     req->buffer_addr = (int64_t) buffer;
-    req->fd = fd;
 
-    io_uring_prep_read(sqe, fd, buffer + buffer_pos, buffer_len, (uint64_t) io_offset);
-    io_uring_sqe_set_data(sqe, req);
+    struct vector *vector = &context->vectors[index];
+    vector->iov[0].iov_base = buffer + buffer_pos;
+    vector->iov[0].iov_len = (size_t) buffer_len;
+    memset(&vector->msg, 0, sizeof(vector->msg));
+    if (addr_len > 0) {
+        req->addr = addr;
+        vector->msg.msg_name = &req->addr;
+        vector->msg.msg_namelen = addr_len;
+    }
+    vector->msg.msg_iov = vector->iov;
+    vector->msg.msg_iovlen = 1;
+    if (segment_size > 0) {
+        // UDP_SEGMENT: the kernel cuts the buffer into datagrams of this size, the last one possibly shorter
+        uint16_t gso_size = (uint16_t) segment_size;
+        memset(&vector->control, 0, sizeof(vector->control));
+        vector->msg.msg_control = vector->control.buffer;
+        vector->msg.msg_controllen = CMSG_SPACE(sizeof(gso_size));
+        struct cmsghdr *cmsg = CMSG_FIRSTHDR(&vector->msg);
+        cmsg->cmsg_level = SOL_UDP;
+        cmsg->cmsg_type = UDP_SEGMENT;
+        cmsg->cmsg_len = CMSG_LEN(sizeof(gso_size));
+        memcpy(CMSG_DATA(cmsg), &gso_size, sizeof(gso_size));
+    }
 
-    return (uint64_t) buffer;
+    io_uring_prep_sendmsg(sqe, fd, &vector->msg, 0);
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+
+    return (int64_t) buffer;
 }
 
 JNIEXPORT jlong JNICALL
-Java_sh_blake_niouring_IoUring_queueWrite(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jobject byte_buffer, jint buffer_pos, jint buffer_len, jlong io_offset) {
-    void *buffer = (*env)->GetDirectBufferAddress(env, byte_buffer);
+Java_sh_blake_niouring_IoUring_queueSendDescriptors(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len, jintArray fds) {
+    char *buffer = (*env)->GetDirectBufferAddress(env, byte_buffer);
     if (buffer == NULL) {
-        throw_exception(env, "invalid byte buffer (write)", -EINVAL);
+        throw_exception(env, "invalid byte buffer (sendmsg)", -EINVAL);
+        return -1;
+    }
+    jsize count = (*env)->GetArrayLength(env, fds);
+    if (count > MAX_PASSED_FDS) {
+        throw_exception(env, "too many descriptors (sendmsg)", -EINVAL);
         return -1;
     }
 
-    struct io_uring *ring = (struct io_uring *) ring_address;
-    if (io_uring_sq_space_left(ring) <= 1) {
-        throw_exception(env, "io_uring_sq_space_left", -EBUSY);
+    struct ring_context *context = (struct ring_context *) ring_address;
+    if (ensure_vectors(env, context) < 0) {
         return -1;
     }
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_SEND_TO, fd, &sqe);
+    if (index < 0) {
+        return -1;
+    }
+    context->requests[index].buffer_addr = (int64_t) buffer;
 
-    struct io_uring_sqe *sqe = io_uring_get_sqe(ring);
-    if (sqe == NULL) {
-        throw_exception(env, "io_uring_get_sqe", -EBUSY);
+    struct vector *vector = &context->vectors[index];
+    vector->iov[0].iov_base = buffer + buffer_pos;
+    vector->iov[0].iov_len = (size_t) buffer_len;
+    memset(&vector->msg, 0, sizeof(vector->msg));
+    vector->msg.msg_iov = vector->iov;
+    vector->msg.msg_iovlen = 1;
+    if (count > 0) {
+        // the kernel takes its own references when the send is issued, so the descriptors may be closed after that
+        memset(&vector->control, 0, sizeof(vector->control));
+        vector->msg.msg_control = vector->control.buffer;
+        vector->msg.msg_controllen = CMSG_SPACE(sizeof(int32_t) * count);
+        struct cmsghdr *cmsg = CMSG_FIRSTHDR(&vector->msg);
+        cmsg->cmsg_level = SOL_SOCKET;
+        cmsg->cmsg_type = SCM_RIGHTS;
+        cmsg->cmsg_len = CMSG_LEN(sizeof(int32_t) * count);
+        (*env)->GetIntArrayRegion(env, fds, 0, count, (jint *) CMSG_DATA(cmsg));
+    }
+
+    io_uring_prep_sendmsg(sqe, fd, &vector->msg, MSG_NOSIGNAL);
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+
+    return (int64_t) buffer;
+}
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueReceiveDescriptors(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len) {
+    char *buffer = (*env)->GetDirectBufferAddress(env, byte_buffer);
+    if (buffer == NULL) {
+        throw_exception(env, "invalid byte buffer (recvmsg)", -EINVAL);
         return -1;
     }
-    sqe->cancel_flags = IORING_ASYNC_CANCEL_FD;
 
-    struct request *req = malloc(sizeof(*req));
-    if (!req) {
-        throw_out_of_memory_error(env);
+    struct ring_context *context = (struct ring_context *) ring_address;
+    if (ensure_vectors(env, context) < 0) {
         return -1;
     }
-    req->event_type = EVENT_TYPE_WRITE;
-    req->buffer_addr = (int64_t) buffer;
-    req->fd = fd;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_RECEIVE_FDS, fd, &sqe);
+    if (index < 0) {
+        return -1;
+    }
+    context->requests[index].buffer_addr = (int64_t) buffer;
 
-    io_uring_prep_write(sqe, fd, buffer + buffer_pos, buffer_len, (uint64_t) io_offset);
-    io_uring_sqe_set_data(sqe, req);
+    struct vector *vector = &context->vectors[index];
+    vector->iov[0].iov_base = buffer + buffer_pos;
+    vector->iov[0].iov_len = (size_t) buffer_len;
+    memset(&vector->msg, 0, sizeof(vector->msg));
+    vector->msg.msg_iov = vector->iov;
+    vector->msg.msg_iovlen = 1;
+    vector->msg.msg_control = vector->control.buffer;
+    vector->msg.msg_controllen = sizeof(vector->control.buffer);
 
-    return (uint64_t) buffer;
+    // descriptors beyond what the control buffer holds are closed by the kernel, which sets MSG_CTRUNC
+    io_uring_prep_recvmsg(sqe, fd, &vector->msg, MSG_CMSG_CLOEXEC);
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+
+    return (int64_t) buffer;
+}
+
+static int64_t queue_fixed(JNIEnv *env, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len, jlong io_offset, jint buffer_index, int8_t event_type) {
+    char *buffer = (*env)->GetDirectBufferAddress(env, byte_buffer);
+    if (buffer == NULL) {
+        throw_exception(env, "invalid byte buffer (fixed)", -EINVAL);
+        return -1;
+    }
+
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, event_type, fd, &sqe);
+    if (index < 0) {
+        return -1;
+    }
+    context->requests[index].buffer_addr = (int64_t) buffer;
+
+    if (event_type == EVENT_TYPE_READ) {
+        io_uring_prep_read_fixed(sqe, fd, buffer + buffer_pos, buffer_len, (uint64_t) io_offset, buffer_index);
+    } else {
+        io_uring_prep_write_fixed(sqe, fd, buffer + buffer_pos, buffer_len, (uint64_t) io_offset, buffer_index);
+    }
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+
+    return (int64_t) buffer;
+}
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueReadFixed(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len, jlong io_offset, jint buffer_index) {
+    return queue_fixed(env, ring_address, fd, fixed_index, byte_buffer, buffer_pos, buffer_len, io_offset, buffer_index, EVENT_TYPE_READ);
+}
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueWriteFixed(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len, jlong io_offset, jint buffer_index) {
+    return queue_fixed(env, ring_address, fd, fixed_index, byte_buffer, buffer_pos, buffer_len, io_offset, buffer_index, EVENT_TYPE_WRITE);
 }
 
 JNIEXPORT void JNICALL
-Java_sh_blake_niouring_IoUring_queueClose(JNIEnv *env, jclass cls, jlong ring_address, jint fd) {
-    struct io_uring *ring = (struct io_uring *) ring_address;
-    if (io_uring_sq_space_left(ring) <= 1) {
-        throw_exception(env, "io_uring_sq_space_left", -EBUSY);
+Java_sh_blake_niouring_IoUring_registerBuffers(JNIEnv *env, jclass cls, jlong ring_address, jobjectArray byte_buffers) {
+    struct io_uring *ring = &((struct ring_context *) ring_address)->ring;
+    int32_t count = (*env)->GetArrayLength(env, byte_buffers);
+
+    struct iovec *iovecs = malloc(sizeof(struct iovec) * count);
+    if (!iovecs) {
+        throw_out_of_memory_error(env);
         return;
     }
+    for (int32_t i = 0; i < count; i++) {
+        jobject byte_buffer = (*env)->GetObjectArrayElement(env, byte_buffers, i);
+        iovecs[i].iov_base = (*env)->GetDirectBufferAddress(env, byte_buffer);
+        iovecs[i].iov_len = (*env)->GetDirectBufferCapacity(env, byte_buffer);
+        (*env)->DeleteLocalRef(env, byte_buffer);
+        if (iovecs[i].iov_base == NULL) {
+            free(iovecs);
+            throw_exception(env, "invalid byte buffer (register)", -EINVAL);
+            return;
+        }
+    }
 
-    struct io_uring_sqe *sqe = io_uring_get_sqe(ring);
-    if (sqe == NULL) {
-        throw_exception(env, "io_uring_get_sqe", -EBUSY);
+    int32_t ret = io_uring_register_buffers(ring, iovecs, count);
+    free(iovecs);
+    if (ret < 0) {
+        throw_exception(env, "io_uring_register_buffers", ret);
+    }
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_unregisterBuffers(JNIEnv *env, jclass cls, jlong ring_address) {
+    struct io_uring *ring = &((struct ring_context *) ring_address)->ring;
+    int32_t ret = io_uring_unregister_buffers(ring);
+    if (ret < 0) {
+        throw_exception(env, "io_uring_unregister_buffers", ret);
+    }
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_registerFiles(JNIEnv *env, jclass cls, jlong ring_address, jint count, jint alloc_offset) {
+    struct io_uring *ring = &((struct ring_context *) ring_address)->ring;
+    int32_t ret = io_uring_register_files_sparse(ring, count);
+    if (ret < 0) {
+        throw_exception(env, "io_uring_register_files_sparse", ret);
         return;
     }
-    sqe->cancel_flags = IORING_ASYNC_CANCEL_FD;
 
-    struct request *req = malloc(sizeof(*req));
-    if (!req) {
-        throw_out_of_memory_error(env);
+    ret = io_uring_register_file_alloc_range(ring, alloc_offset, count - alloc_offset);
+    if (ret < 0) {
+        io_uring_unregister_files(ring);
+        throw_exception(env, "io_uring_register_file_alloc_range", ret);
+    }
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_updateFile(JNIEnv *env, jclass cls, jlong ring_address, jint fixed_index, jint fd) {
+    struct io_uring *ring = &((struct ring_context *) ring_address)->ring;
+    int32_t ret = io_uring_register_files_update(ring, fixed_index, &fd, 1);
+    if (ret < 0) {
+        throw_exception(env, "io_uring_register_files_update", ret);
+    }
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueClose(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_CLOSE, fd, &sqe);
+    if (index < 0) {
         return;
     }
-    req->event_type = EVENT_TYPE_CLOSE;
-    req->fd = fd;
 
+    if (fixed_index >= 0) {
+        io_uring_prep_close_direct(sqe, fixed_index);
+    } else {
+        io_uring_prep_close(sqe, fd);
+    }
+    io_uring_sqe_set_data64(sqe, index);
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueFsync(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jboolean data_only) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_SYNC, fd, &sqe);
+    if (index < 0) {
+        return;
+    }
+
+    io_uring_prep_fsync(sqe, fd, data_only ? IORING_FSYNC_DATASYNC : 0);
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueSyncFileRange(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jlong offset, jint length, jint flags) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_SYNC, fd, &sqe);
+    if (index < 0) {
+        return;
+    }
+
+    io_uring_prep_sync_file_range(sqe, fd, (unsigned) length, (uint64_t) offset, flags);
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueFallocate(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jint mode, jlong offset, jlong length) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_FALLOCATE, fd, &sqe);
+    if (index < 0) {
+        return;
+    }
+
+    io_uring_prep_fallocate(sqe, fd, mode, (uint64_t) offset, (uint64_t) length);
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueFadvise(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jlong offset, jint length, jint advice) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    // a hint whose result nobody waits for, so the completion is not routed to the file
+    int32_t index = acquire_request(env, context, EVENT_TYPE_FADVISE, -1, &sqe);
+    if (index < 0) {
+        return;
+    }
+
+    io_uring_prep_fadvise(sqe, fd, (uint64_t) offset, (uint32_t) length, advice);
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueCloseDetached(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jboolean shutdown_output) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index;
+    if (shutdown_output) {
+        // the same half close as the synchronous close, so the peer sees the end of the stream; hard linked, as the
+        // close must run even if there is nothing to shut down, e.g. on a socket that never connected
+        index = acquire_request(env, context, EVENT_TYPE_CLOSE, -1, &sqe);
+        if (index < 0) {
+            return;
+        }
+        io_uring_prep_shutdown(sqe, fd, SHUT_WR);
+        io_uring_sqe_set_data64(sqe, index);
+        sqe->flags |= IOSQE_IO_HARDLINK;
+    }
+
+    // no channel is looked up for the completions, as a new one may already own the descriptor by then
+    index = acquire_request(env, context, EVENT_TYPE_CLOSE, -1, &sqe);
+    if (index < 0) {
+        return;
+    }
     io_uring_prep_close(sqe, fd);
-    io_uring_sqe_set_data(sqe, req);
+    io_uring_sqe_set_data64(sqe, index);
+}
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueOpen(JNIEnv *env, jclass cls, jlong ring_address, jobject path_buffer, jint options, jint mode) {
+    char *buffer = (*env)->GetDirectBufferAddress(env, path_buffer);
+    if (buffer == NULL) {
+        throw_exception(env, "invalid byte buffer (open)", -EINVAL);
+        return -1;
+    }
+
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_OPEN, -1, &sqe);
+    if (index < 0) {
+        return -1;
+    }
+    context->requests[index].buffer_addr = (int64_t) buffer;
+
+    io_uring_prep_openat(sqe, AT_FDCWD, buffer + PATH_BUFFER_PATH_OFFSET, open_flags(options), (mode_t) mode);
+    io_uring_sqe_set_data64(sqe, index);
+
+    return (int64_t) buffer;
+}
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueStatx(JNIEnv *env, jclass cls, jlong ring_address, jobject path_buffer) {
+    char *buffer = (*env)->GetDirectBufferAddress(env, path_buffer);
+    if (buffer == NULL) {
+        throw_exception(env, "invalid byte buffer (statx)", -EINVAL);
+        return -1;
+    }
+
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_STATX, -1, &sqe);
+    if (index < 0) {
+        return -1;
+    }
+    context->requests[index].buffer_addr = (int64_t) buffer;
+
+    // the kernel fills the struct statx at the start of the buffer, ahead of the path
+    io_uring_prep_statx(sqe, AT_FDCWD, buffer + PATH_BUFFER_PATH_OFFSET, AT_STATX_SYNC_AS_STAT, STATX_BASIC_STATS,
+        (struct statx *) buffer);
+    io_uring_sqe_set_data64(sqe, index);
+
+    return (int64_t) buffer;
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueSetOption(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jint option, jint value) {
+    int32_t level, name;
+    if (socket_option(option, &level, &name) < 0) {
+        throw_exception(env, "setsockopt", -EINVAL);
+        return;
+    }
+
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_SET_OPTION, fd, &sqe);
+    if (index < 0) {
+        return;
+    }
+    // the value has to outlive the submission, and the completion needs the option to report or retry it
+    struct request *req = &context->requests[index];
+    int32_t length = socket_option_value(level, name, value, &req->option);
+    req->buffer_addr = ((int64_t) option << 32) | (uint32_t) value;
+
+    io_uring_prep_cmd_sock(sqe, URING_CMD_SETSOCKOPT, fd, level, name, &req->option, length);
+    set_fixed_file(sqe, fixed_index);
+    io_uring_sqe_set_data64(sqe, index);
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueCancel(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_CANCEL, fd, &sqe);
+    if (index < 0) {
+        return;
+    }
+
+    if (fixed_index >= 0) {
+        io_uring_prep_cancel_fd(sqe, fixed_index, IORING_ASYNC_CANCEL_ALL | IORING_ASYNC_CANCEL_FD_FIXED);
+    } else {
+        io_uring_prep_cancel_fd(sqe, fd, IORING_ASYNC_CANCEL_ALL);
+    }
+    io_uring_sqe_set_data64(sqe, index);
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueTransfer(JNIEnv *env, jclass cls, jlong ring_address, jlong target_ring_address, jint fd, jint fixed_index, jlong transfer_id) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    struct ring_context *target = (struct ring_context *) target_ring_address;
+
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_TRANSFER, fd, &sqe);
+    if (index < 0) {
+        return;
+    }
+    context->requests[index].buffer_addr = transfer_id;
+
+    uint64_t data = MESSAGE_USER_DATA_FLAG | (uint64_t) transfer_id;
+    if (fixed_index < 0) {
+        // regular descriptors are shared by the whole process, so only the number has to reach the target
+        io_uring_prep_msg_ring(sqe, target->ring.ring_fd, (uint32_t) fd, data, 0);
+        io_uring_sqe_set_data64(sqe, index);
+        return;
+    }
+
+    // a direct descriptor is copied into a slot of the target's table, then dropped from this one if that worked;
+    // acquire_request leaves room for the linked close, whose CQE is only posted if the message failed
+    io_uring_prep_msg_ring_fd_alloc(sqe, target->ring.ring_fd, fixed_index, data, 0);
+    io_uring_sqe_set_data64(sqe, index);
+    sqe->flags |= IOSQE_IO_LINK;
+
+    struct io_uring_sqe *close_sqe = io_uring_get_sqe(&context->ring);
+    io_uring_prep_close_direct(close_sqe, fixed_index);
+    io_uring_sqe_set_data64(close_sqe, TRANSFER_CLOSE_USER_DATA);
+    close_sqe->flags |= IOSQE_CQE_SKIP_SUCCESS;
+}
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUring_requestsAvailable(JNIEnv *env, jclass cls, jlong ring_address) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+
+    // acquire_request always leaves one submission queue entry spare
+    int32_t sq_space = (int32_t) io_uring_sq_space_left(&context->ring) - 1;
+    return sq_space < context->free_count ? sq_space : context->free_count;
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_linkLast(JNIEnv *env, jclass cls, jlong ring_address, jint link, jint sqe_flags) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+    if (context->last_sqe == NULL) {
+        throw_exception(env, "linkLast", -EINVAL);
+        return;
+    }
+    context->requests[context->last_request].link = link;
+    context->last_sqe->flags &= ~(IOSQE_IO_LINK | IOSQE_IO_HARDLINK);
+    context->last_sqe->flags |= (uint8_t) sqe_flags;
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueLinkTimeout(JNIEnv *env, jclass cls, jlong ring_address, jlong timeout_nanos) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_LINK_TIMEOUT, -1, &sqe);
+    if (index < 0) {
+        return;
+    }
+
+    // the kernel reads the timespec at submission, so it lives in the request slot rather than on this stack
+    struct request *req = &context->requests[index];
+    req->timeout.tv_sec = timeout_nanos / 1000000000LL;
+    req->timeout.tv_nsec = timeout_nanos % 1000000000LL;
+    io_uring_prep_link_timeout(sqe, &req->timeout, 0);
+    io_uring_sqe_set_data64(sqe, index);
+}
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueTimeout(JNIEnv *env, jclass cls, jlong ring_address, jlong timeout_nanos, jint timer_id, jboolean multishot) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_TIMEOUT, -1, &sqe);
+    if (index < 0) {
+        return -1;
+    }
+
+    struct request *req = &context->requests[index];
+    req->buffer_addr = timer_id;
+    req->multishot = multishot;
+    req->timeout.tv_sec = timeout_nanos / 1000000000LL;
+    req->timeout.tv_nsec = timeout_nanos % 1000000000LL;
+    io_uring_prep_timeout(sqe, &req->timeout, 0, multishot ? IORING_TIMEOUT_MULTISHOT : 0);
+
+    uint64_t user_data = ((uint64_t) (uint32_t) timer_id << 32) | (uint32_t) index;
+    io_uring_sqe_set_data64(sqe, user_data);
+    return (jlong) user_data;
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueTimeoutRemove(JNIEnv *env, jclass cls, jlong ring_address, jlong timeout_user_data) {
+    struct ring_context *context = (struct ring_context *) ring_address;
+
+    struct io_uring_sqe *sqe;
+    int32_t index = acquire_request(env, context, EVENT_TYPE_CANCEL, -1, &sqe);
+    if (index < 0) {
+        return;
+    }
+    io_uring_prep_timeout_remove(sqe, (uint64_t) timeout_user_data, 0);
+    io_uring_sqe_set_data64(sqe, index);
 }
 
 JNIEXPORT void JNICALL
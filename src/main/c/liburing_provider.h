@@ -3,6 +3,132 @@
 
 #include <jni.h>
 #include <stdint.h>
+#include <liburing.h>
+#include <netinet/in.h>
+#include <sys/un.h>
+
+#define EVENT_TYPE_ACCEPT   0
+#define EVENT_TYPE_READ     1
+#define EVENT_TYPE_WRITE    2
+#define EVENT_TYPE_CONNECT  3
+#define EVENT_TYPE_CLOSE    4
+#define EVENT_TYPE_CANCEL   5
+#define EVENT_TYPE_TRANSFER 6
+#define EVENT_TYPE_TRANSFER_RECEIVED 7
+#define EVENT_TYPE_LINK_TIMEOUT 8
+#define EVENT_TYPE_TIMEOUT  9
+#define EVENT_TYPE_READV    10
+#define EVENT_TYPE_WRITEV   11
+#define EVENT_TYPE_SEND_ZC  12
+#define EVENT_TYPE_SPLICE   13
+#define EVENT_TYPE_SYNC     14
+#define EVENT_TYPE_FALLOCATE 15
+#define EVENT_TYPE_OPEN     16
+#define EVENT_TYPE_STATX    17
+#define EVENT_TYPE_FADVISE  18
+#define EVENT_TYPE_RECEIVE  19
+#define EVENT_TYPE_SEND_TO  20
+#define EVENT_TYPE_RECEIVE_FDS 21
+#define EVENT_TYPE_SET_OPTION 22
+#define EVENT_TYPE_TRANSFER_CLOSE 23
+
+// user_data of CQEs posted by another ring's IORING_OP_MSG_RING, which carry no request slot
+#define MESSAGE_USER_DATA_FLAG (1ULL << 63)
+
+// user_data of the close linked behind a direct descriptor transfer: a message carrying transfer id 0, which no
+// transfer uses, so the two can never be confused
+#define TRANSFER_CLOSE_USER_DATA MESSAGE_USER_DATA_FLAG
+
+// the low half of user_data is the request slot; timeouts put their timer id in the high half, so removing a timer
+// cannot hit a newer timeout that recycled its slot
+#define REQUEST_INDEX_MASK 0xFFFFFFFFULL
+
+// most buffers a single vectored operation can take; must match IoUring.MAX_IOVECS
+#define MAX_IOVECS 8
+
+// most descriptors a single message passes with SCM_RIGHTS, as many as fit the completion record; must match
+// IoUring.MAX_PASSED_FDS
+#define MAX_PASSED_FDS 4
+
+#ifndef IORING_CQE_F_NOTIF
+#define IORING_CQE_F_NOTIF (1U << 3)
+#endif
+
+#ifndef IORING_TIMEOUT_MULTISHOT
+#define IORING_TIMEOUT_MULTISHOT (1U << 6)
+#endif
+
+// SOCKET_URING_OP_SETSOCKOPT, which newer kernel headers declare in an enum rather than as a macro
+#define URING_CMD_SETSOCKOPT 3
+
+union peer_addr {
+    struct sockaddr sa;
+    struct sockaddr_in in;
+    struct sockaddr_in6 in6;
+    struct sockaddr_un un;
+};
+
+// a socket option's value as setsockopt takes it, which is an int for everything but SO_LINGER
+union option_value {
+    int32_t value;
+    struct linger linger;
+};
+
+struct request {
+    int32_t fd;
+    int8_t event_type;
+    int8_t multishot;
+    int8_t direct;
+    int16_t buffer_group;
+    int64_t buffer_addr;
+    union peer_addr addr;
+    socklen_t addr_len;
+    int32_t link;
+    int32_t sent;
+    int32_t buffer_size;
+    union option_value option;
+    struct __kernel_timespec timeout;
+};
+
+// fixed-stride completion record, decoded by IoUring with absolute reads in native byte order
+struct result {
+    int32_t res;
+    int32_t fd;
+    uint32_t flags;
+    int8_t event_type;
+    int8_t addr_family;
+    int16_t buffer_group;
+    int64_t buffer_addr;
+    int32_t port;
+    int32_t link;
+    int64_t addr_high;
+    int64_t addr_low;
+};
+
+// iovecs (and the msghdr for sockets) of a vectored operation, kept alive in the slot of its request until completion
+struct vector {
+    struct msghdr msg;
+    struct iovec iov[MAX_IOVECS];
+    // room for the one control message a message carries: UDP_SEGMENT when sending and UDP_GRO when receiving
+    // datagrams, or SCM_RIGHTS descriptors on unix sockets
+    union {
+        struct cmsghdr header;
+        char buffer[CMSG_SPACE(sizeof(int32_t) * MAX_PASSED_FDS)];
+    } control;
+};
+
+_Static_assert(sizeof(struct result) == 48, "IoUring.RESULT_SIZE must match struct result");
+
+struct ring_context {
+    struct io_uring ring;
+    struct request *requests;
+    struct vector *vectors;
+    int32_t *free_slots;
+    int32_t free_count;
+    int32_t capacity;
+    int32_t last_request;
+    struct io_uring_sqe *last_sqe;
+};
 
 JNIEXPORT jlong JNICALL
 Java_sh_blake_niouring_IoUring_createCqes(JNIEnv *env, jclass cls, jint count);
@@ -11,38 +137,129 @@ JNIEXPORT void JNICALL
 Java_sh_blake_niouring_IoUring_freeCqes(JNIEnv *env, jclass cls, jlong cqes_address);
 
 JNIEXPORT jlong JNICALL
-Java_sh_blake_niouring_IoUring_create(JNIEnv *env, jclass cls, jint maxEvents);
+Java_sh_blake_niouring_IoUring_create(JNIEnv *env, jclass cls, jint maxEvents, jint flags, jint cq_entries, jint sq_thread_idle, jint sq_thread_cpu);
 
 JNIEXPORT void JNICALL
 Java_sh_blake_niouring_IoUring_close(JNIEnv *env, jclass cls, jlong ring_address);
 
+JNIEXPORT jboolean JNICALL
+Java_sh_blake_niouring_IoUring_isSupported(JNIEnv *env, jclass cls, jlong ring_address, jint opcode);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_enable(JNIEnv *env, jclass cls, jlong ring_address);
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUring_createEventFd(JNIEnv *env, jclass cls);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_signalEventFd(JNIEnv *env, jclass cls, jint event_fd);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_submit(JNIEnv *env, jclass cls, jlong ring_address);
+
 JNIEXPORT jint JNICALL
 Java_sh_blake_niouring_IoUring_submitAndGetCqes(JNIEnv *env, jclass cls, jlong ring_address, jobject byte_buffer, jlong cqes_address, jint cqes_size, jboolean should_wait);
 
-JNIEXPORT jstring JNICALL
-Java_sh_blake_niouring_IoUring_getCqeIpAddress(JNIEnv *env, jclass cls, jlong cqes_address, jint cqe_index);
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueAccept(JNIEnv *env, jclass cls, jlong ring_address, jint server_socket_fd, jint fixed_index, jboolean direct, jboolean multishot);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueConnect(JNIEnv *env, jclass cls, jlong ring_address, jint socket_fd, jint fixed_index, jstring ip_address, jint port);
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueRead(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len, jlong io_offset);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueReadProvided(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jint buffer_group, jint buffer_len, jlong io_offset, jboolean multishot);
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueWrite(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len, jlong io_offset);
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUring_queueReadv(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobjectArray byte_buffers, jintArray positions, jintArray lengths, jlong io_offset, jboolean message);
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUring_queueWritev(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobjectArray byte_buffers, jintArray positions, jintArray lengths, jlong io_offset, jboolean message);
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueSendZeroCopy(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len);
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueReceive(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueReceiveMultishot(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jint buffer_group, jobject buffers, jint buffer_size);
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueSendTo(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len, jstring ip_address, jint port, jboolean ipv6, jint segment_size);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueConnectUnix(JNIEnv *env, jclass cls, jlong ring_address, jint socket_fd, jint fixed_index, jbyteArray address);
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueSendDescriptors(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len, jintArray fds);
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueReceiveDescriptors(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len);
 
 JNIEXPORT void JNICALL
-Java_sh_blake_niouring_IoUring_markCqeSeen(JNIEnv *env, jclass cls, jlong ring_address, jlong cqes_address, jint cqe_index);
+Java_sh_blake_niouring_IoUring_queueSetOption(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jint option, jint value);
 
 JNIEXPORT void JNICALL
-Java_sh_blake_niouring_IoUring_queueAccept(JNIEnv *env, jclass cls, jlong ring_address, jint server_socket_fd);
+Java_sh_blake_niouring_IoUring_queueSplice(JNIEnv *env, jclass cls, jlong ring_address, jint fd_in, jint fd_out, jint length, jlong tag, jboolean poll_first);
 
 JNIEXPORT void JNICALL
-Java_sh_blake_niouring_IoUring_queueConnect(JNIEnv *env, jclass cls, jlong ring_address, jint socket_fd, jstring ip_address, jint port);
+Java_sh_blake_niouring_IoUring_queueSpliceFile(JNIEnv *env, jclass cls, jlong ring_address, jint file_fd, jlong io_offset, jlong pipe, jint socket_fd, jint length, jlong tag);
 
 JNIEXPORT jlong JNICALL
-Java_sh_blake_niouring_IoUring_queueRead(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jobject byte_buffer, jint buffer_pos, jint buffer_len, jlong io_offset);
+Java_sh_blake_niouring_IoUring_queueReadFixed(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len, jlong io_offset, jint buffer_index);
 
 JNIEXPORT jlong JNICALL
-Java_sh_blake_niouring_IoUring_queueWrite(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jobject byte_buffer, jint buffer_pos, jint buffer_len, jlong io_offset);
+Java_sh_blake_niouring_IoUring_queueWriteFixed(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index, jobject byte_buffer, jint buffer_pos, jint buffer_len, jlong io_offset, jint buffer_index);
 
 JNIEXPORT void JNICALL
-Java_sh_blake_niouring_IoUring_queueClose(JNIEnv *env, jclass cls, jlong ring_address, jint fd);
+Java_sh_blake_niouring_IoUring_registerBuffers(JNIEnv *env, jclass cls, jlong ring_address, jobjectArray byte_buffers);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_unregisterBuffers(JNIEnv *env, jclass cls, jlong ring_address);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_registerFiles(JNIEnv *env, jclass cls, jlong ring_address, jint count, jint alloc_offset);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_updateFile(JNIEnv *env, jclass cls, jlong ring_address, jint fixed_index, jint fd);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueClose(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueCancel(JNIEnv *env, jclass cls, jlong ring_address, jint fd, jint fixed_index);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueTransfer(JNIEnv *env, jclass cls, jlong ring_address, jlong target_ring_address, jint fd, jint fixed_index, jlong transfer_id);
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUring_requestsAvailable(JNIEnv *env, jclass cls, jlong ring_address);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_linkLast(JNIEnv *env, jclass cls, jlong ring_address, jint link, jint sqe_flags);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueLinkTimeout(JNIEnv *env, jclass cls, jlong ring_address, jlong timeout_nanos);
+
+JNIEXPORT jlong JNICALL
+Java_sh_blake_niouring_IoUring_queueTimeout(JNIEnv *env, jclass cls, jlong ring_address, jlong timeout_nanos, jint timer_id, jboolean multishot);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUring_queueTimeoutRemove(JNIEnv *env, jclass cls, jlong ring_address, jlong timeout_user_data);
 
 JNIEXPORT void JNICALL
 Java_sh_blake_niouring_AbstractIoUringChannel_close(JNIEnv *env, jclass cls, jint fd);
 
+int32_t acquire_request(JNIEnv *env, struct ring_context *context, int8_t event_type, int32_t fd, struct io_uring_sqe **sqe);
+
+void release_request(struct ring_context *context, int32_t index);
+
 int32_t throw_exception(JNIEnv *env, char *cause, int32_t ret);
 
 int32_t throw_out_of_memory_error(JNIEnv *env);
@@ -10,6 +10,9 @@
 #include <unistd.h>
 #include <string.h>
 #include <stdint.h>
+#include <errno.h>
+#include <netinet/tcp.h>
+#include <sys/socket.h>
 
 JNIEXPORT jint JNICALL
 Java_sh_blake_niouring_AbstractIoUringSocket_create(JNIEnv *env, jclass cls) {
@@ -60,3 +63,80 @@ Java_sh_blake_niouring_IoUringServerSocket_bind(JNIEnv *env, jclass cls, jlong s
         return;
     }
 }
+
+// missing from older headers
+#ifndef SO_BUSY_POLL
+#define SO_BUSY_POLL 46
+#endif
+#ifndef SO_INCOMING_CPU
+#define SO_INCOMING_CPU 49
+#endif
+
+int32_t socket_option(int32_t option, int32_t *level, int32_t *name) {
+    // ids of IoUringSocketOption, so Java never has to know the platform's numbers
+    static const int32_t options[][2] = {
+        {IPPROTO_TCP, TCP_NODELAY},
+        {IPPROTO_TCP, TCP_CORK},
+        {IPPROTO_TCP, TCP_QUICKACK},
+        {IPPROTO_TCP, TCP_DEFER_ACCEPT},
+        {IPPROTO_TCP, TCP_FASTOPEN},
+        {SOL_SOCKET, SO_SNDBUF},
+        {SOL_SOCKET, SO_RCVBUF},
+        {SOL_SOCKET, SO_BUSY_POLL},
+        {SOL_SOCKET, SO_INCOMING_CPU},
+        {SOL_SOCKET, SO_LINGER},
+        {SOL_SOCKET, SO_REUSEADDR},
+        {SOL_SOCKET, SO_REUSEPORT},
+        {SOL_SOCKET, SO_KEEPALIVE},
+    };
+    if (option < 0 || option >= (int32_t) (sizeof(options) / sizeof(options[0]))) {
+        return -EINVAL;
+    }
+    *level = options[option][0];
+    *name = options[option][1];
+    return 0;
+}
+
+int32_t socket_option_value(int32_t level, int32_t name, int32_t value, union option_value *optval) {
+    if (level == SOL_SOCKET && name == SO_LINGER) {
+        // a negative timeout turns lingering off
+        optval->linger.l_onoff = value >= 0;
+        optval->linger.l_linger = value >= 0 ? value : 0;
+        return sizeof(optval->linger);
+    }
+    optval->value = value;
+    return sizeof(optval->value);
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_AbstractIoUringSocket_setOption(JNIEnv *env, jclass cls, jint fd, jint option, jint value) {
+    int32_t level, name;
+    if (socket_option(option, &level, &name) < 0) {
+        throw_exception(env, "setsockopt", -EINVAL);
+        return;
+    }
+    union option_value optval;
+    socklen_t length = socket_option_value(level, name, value, &optval);
+    if (setsockopt(fd, level, name, &optval, length) < 0) {
+        throw_exception(env, "setsockopt", -errno);
+    }
+}
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_AbstractIoUringSocket_getOption(JNIEnv *env, jclass cls, jint fd, jint option) {
+    int32_t level, name;
+    if (socket_option(option, &level, &name) < 0) {
+        throw_exception(env, "getsockopt", -EINVAL);
+        return -1;
+    }
+    union option_value optval;
+    socklen_t length = sizeof(optval);
+    if (getsockopt(fd, level, name, &optval, &length) < 0) {
+        throw_exception(env, "getsockopt", -errno);
+        return -1;
+    }
+    if (level == SOL_SOCKET && name == SO_LINGER) {
+        return optval.linger.l_onoff ? optval.linger.l_linger : -1;
+    }
+    return optval.value;
+}
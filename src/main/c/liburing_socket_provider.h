@@ -4,12 +4,24 @@
 #include <jni.h>
 #include <stdint.h>
 
+#include "liburing_provider.h"
+
 JNIEXPORT jint JNICALL
 Java_sh_blake_niouring_AbstractIoUringSocket_create(JNIEnv *env, jclass cls);
 
 JNIEXPORT void JNICALL
 Java_sh_blake_niouring_IoUringServerSocket_bind(JNIEnv *env, jclass cls, jlong server_socket_fd, jstring host, jint port, jint backlog);
 
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_AbstractIoUringSocket_setOption(JNIEnv *env, jclass cls, jint fd, jint option, jint value);
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_AbstractIoUringSocket_getOption(JNIEnv *env, jclass cls, jint fd, jint option);
+
+int32_t socket_option(int32_t option, int32_t *level, int32_t *name);
+
+int32_t socket_option_value(int32_t level, int32_t name, int32_t value, union option_value *optval);
+
 int32_t throw_buffer_overflow_exception(JNIEnv *env);
 
 #endif
@@ -0,0 +1,53 @@
+#define _GNU_SOURCE
+
+#include "liburing_unix_provider.h"
+#include "liburing_provider.h"
+
+#include <jni.h>
+#include <errno.h>
+#include <stddef.h>
+#include <string.h>
+#include <stdint.h>
+#include <sys/socket.h>
+#include <sys/un.h>
+
+int32_t unix_address(JNIEnv *env, jbyteArray address, struct sockaddr_un *addr, socklen_t *addr_len) {
+    jsize length = (*env)->GetArrayLength(env, address);
+    if (length <= 0 || length >= (jsize) sizeof(addr->sun_path)) {
+        return -ENAMETOOLONG;
+    }
+    memset(addr, 0, sizeof(*addr));
+    addr->sun_family = AF_UNIX;
+    (*env)->GetByteArrayRegion(env, address, 0, length, (jbyte *) addr->sun_path);
+    // abstract names start with a NUL and are exactly as long as given; paths count their terminating NUL
+    *addr_len = offsetof(struct sockaddr_un, sun_path) + length + (addr->sun_path[0] == '\0' ? 0 : 1);
+    return 0;
+}
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUringUnixSocket_create(JNIEnv *env, jclass cls, jboolean seqpacket) {
+    int32_t fd = socket(AF_UNIX, (seqpacket ? SOCK_SEQPACKET : SOCK_STREAM) | SOCK_CLOEXEC, 0);
+    if (fd < 0) {
+        throw_exception(env, "socket", -errno);
+        return -1;
+    }
+    return fd;
+}
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringUnixServerSocket_bind(JNIEnv *env, jclass cls, jint fd, jbyteArray address, jint backlog) {
+    struct sockaddr_un addr;
+    socklen_t addr_len;
+    int32_t ret = unix_address(env, address, &addr, &addr_len);
+    if (ret < 0) {
+        throw_exception(env, "bind", ret);
+        return;
+    }
+    if (bind(fd, (struct sockaddr *) &addr, addr_len) < 0) {
+        throw_exception(env, "bind", -errno);
+        return;
+    }
+    if (listen(fd, backlog) < 0) {
+        throw_exception(env, "listen", -errno);
+    }
+}
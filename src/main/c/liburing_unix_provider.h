@@ -0,0 +1,17 @@
+#ifndef _LIBURING_UNIX_PROVIDER_DEFINED
+#define _LIBURING_UNIX_PROVIDER_DEFINED
+
+#include "liburing_provider.h"
+
+#include <jni.h>
+#include <stdint.h>
+
+JNIEXPORT jint JNICALL
+Java_sh_blake_niouring_IoUringUnixSocket_create(JNIEnv *env, jclass cls, jboolean seqpacket);
+
+JNIEXPORT void JNICALL
+Java_sh_blake_niouring_IoUringUnixServerSocket_bind(JNIEnv *env, jclass cls, jint fd, jbyteArray address, jint backlog);
+
+int32_t unix_address(JNIEnv *env, jbyteArray address, struct sockaddr_un *addr, socklen_t *addr_len);
+
+#endif
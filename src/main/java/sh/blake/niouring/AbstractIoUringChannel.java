@@ -6,17 +6,28 @@ import sh.blake.niouring.util.ReferenceCounter;
 
 import java.nio.ByteBuffer;
 import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 /**
  * The type {@code AbstractIoUringSocket}.
  */
 public abstract class AbstractIoUringChannel {
-    private final int fd;
+    private int fd;
     private final LongObjectHashMap<ReferenceCounter<ByteBuffer>> readBufferMap = new LongObjectHashMap<>();
     private final LongObjectHashMap<ReferenceCounter<ByteBuffer>> writeBufferMap = new LongObjectHashMap<>();
+    private int providedReadCount = 0;
+    private int vectoredReadCount = 0;
+    private int vectoredWriteCount = 0;
+    private int fixedFileIndex = -1;
+    private IoUring fixedFileRing;
+    private IoUring multishotReadRing;
+    private IoUringTimerWheel.Timeout idleTimeout;
+    private IoUring ring;
     private boolean closed = false;
     private Consumer<ByteBuffer> readHandler;
     private Consumer<ByteBuffer> writeHandler;
+    private ObjIntConsumer<ByteBuffer[]> readvHandler;
+    private ObjIntConsumer<ByteBuffer[]> writevHandler;
     private Consumer<Exception> exceptionHandler;
     private Runnable closeHandler;
 
@@ -30,6 +41,9 @@ public abstract class AbstractIoUringChannel {
     }
 
     protected void handleReadCompletion(ByteBuffer buffer, int bytesRead) {
+        if (idleTimeout != null) {
+            idleTimeout.touch();
+        }
         if (bytesRead < 0) {
             close();
             return;
@@ -41,6 +55,9 @@ public abstract class AbstractIoUringChannel {
     }
 
     protected void handleWriteCompletion(ByteBuffer buffer, int bytesWritten) {
+        if (idleTimeout != null) {
+            idleTimeout.touch();
+        }
         if (bytesWritten < 0) {
             close();
             return;
@@ -51,6 +68,43 @@ public abstract class AbstractIoUringChannel {
         }
     }
 
+    protected void handleReadvCompletion(ByteBuffer[] buffers, int bytesRead) {
+        if (idleTimeout != null) {
+            idleTimeout.touch();
+        }
+        if (bytesRead < 0) {
+            close();
+            return;
+        }
+        advance(buffers, bytesRead);
+        if (readvHandler != null) {
+            readvHandler.accept(buffers, bytesRead);
+        }
+    }
+
+    protected void handleWritevCompletion(ByteBuffer[] buffers, int bytesWritten) {
+        if (idleTimeout != null) {
+            idleTimeout.touch();
+        }
+        if (bytesWritten < 0) {
+            close();
+            return;
+        }
+        advance(buffers, bytesWritten);
+        if (writevHandler != null) {
+            writevHandler.accept(buffers, bytesWritten);
+        }
+    }
+
+    private static void advance(ByteBuffer[] buffers, int bytes) {
+        // the kernel fills or drains the buffers in order, so only the last one touched can be partial
+        for (int i = 0; i < buffers.length && bytes > 0; i++) {
+            int advanced = Math.min(bytes, buffers[i].remaining());
+            buffers[i].position(buffers[i].position() + advanced);
+            bytes -= advanced;
+        }
+    }
+
     /**
      * Closes the socket.
      */
@@ -58,7 +112,37 @@ public abstract class AbstractIoUringChannel {
         if (closed) {
             return;
         }
-        AbstractIoUringChannel.close(fd);
+        boolean cancelQueued = false;
+        if (ring != null && ring.isOpen() && (isReadPending() || isWritePending())) {
+            // reclaim the ring's request slots now instead of whenever the peer gets around to it; the cancel goes out
+            // with the ring's next submission, ahead of the close queued behind it
+            try {
+                ring.queueCancel(this);
+                cancelQueued = true;
+            } catch (RuntimeException ex) {
+                if (exceptionHandler != null) {
+                    exceptionHandler.accept(ex);
+                }
+            }
+        }
+        multishotReadRing = null;
+        if (idleTimeout != null) {
+            idleTimeout.cancel();
+        }
+        if (fixedFileRing != null) {
+            if (cancelQueued && fixedFileRing == ring) {
+                fixedFileRing.unregisterFileAfterSubmit(this);
+            } else {
+                fixedFileRing.unregisterFile(this);
+            }
+        }
+        if (fd >= 0 && (ring == null || !ring.queueCloseDetached(fd, this instanceof AbstractIoUringSocket))) {
+            if (cancelQueued) {
+                // a cancel by descriptor cannot find anything once the descriptor is gone
+                ring.submitNow();
+            }
+            AbstractIoUringChannel.close(fd);
+        }
         closed = true;
         if (closeHandler != null) {
             closeHandler.run();
@@ -66,7 +150,8 @@ public abstract class AbstractIoUringChannel {
     }
 
     /**
-     * Gets the file descriptor.
+     * Gets the file descriptor. Channels that only exist as a direct descriptor have no regular file descriptor and
+     * use the bitwise complement of their fixed file index instead, which keeps them distinct from real descriptors.
      *
      * @return the long
      */
@@ -74,13 +159,50 @@ public abstract class AbstractIoUringChannel {
         return fd;
     }
 
+    void setFd(int fd) {
+        this.fd = fd;
+    }
+
+    /**
+     * Gets the index of the channel in its ring's registered file table.
+     *
+     * @return the fixed file index, or -1 if the channel is not registered
+     */
+    int fixedFileIndex() {
+        return fixedFileIndex;
+    }
+
+    /**
+     * Gets the ring whose registered file table holds this channel.
+     *
+     * @return the ring, or null if the channel is not registered
+     */
+    IoUring fixedFileRing() {
+        return fixedFileRing;
+    }
+
+    void setFixedFile(IoUring fixedFileRing, int fixedFileIndex) {
+        this.fixedFileRing = fixedFileRing;
+        this.fixedFileIndex = fixedFileIndex;
+    }
+
+    /**
+     * Checks if the channel is registered in a ring's file table, in which case operations on that ring refer to it
+     * by its fixed file index instead of its file descriptor.
+     *
+     * @return whether the channel is registered
+     */
+    public boolean isFixedFile() {
+        return fixedFileIndex >= 0;
+    }
+
     /**
      * Checks if a write operation is currently pending.
      *
      * @return whether write is pending
      */
     public boolean isWritePending() {
-        return !writeBufferMap.isEmpty();
+        return !writeBufferMap.isEmpty() || vectoredWriteCount > 0;
     }
 
     /**
@@ -89,7 +211,7 @@ public abstract class AbstractIoUringChannel {
      * @return whether read is pending
      */
     public boolean isReadPending() {
-        return !readBufferMap.isEmpty();
+        return !readBufferMap.isEmpty() || providedReadCount > 0 || vectoredReadCount > 0;
     }
 
     /**
@@ -132,6 +254,31 @@ public abstract class AbstractIoUringChannel {
         return this;
     }
 
+    /**
+     * Sets the handler to be called when a vectored read operation completes, with the buffers and the total number of
+     * bytes read into them. Each buffer's position has already been advanced past the bytes it received.
+     *
+     * @param readvHandler the vectored read handler
+     * @return this instance
+     */
+    public AbstractIoUringChannel onReadv(ObjIntConsumer<ByteBuffer[]> readvHandler) {
+        this.readvHandler = readvHandler;
+        return this;
+    }
+
+    /**
+     * Sets the handler to be called when a vectored write operation completes, with the buffers and the total number
+     * of bytes written from them. Each buffer's position has already been advanced past the bytes it gave; a short
+     * write leaves the remainder in the buffers, ready to be queued again.
+     *
+     * @param writevHandler the vectored write handler
+     * @return this instance
+     */
+    public AbstractIoUringChannel onWritev(ObjIntConsumer<ByteBuffer[]> writevHandler) {
+        this.writevHandler = writevHandler;
+        return this;
+    }
+
     /**
      * Gets the exception handler.
      *
@@ -159,6 +306,85 @@ public abstract class AbstractIoUringChannel {
         return writeBufferMap;
     }
 
+    /**
+     * Tracks a queued read that will select its buffer from a {@link IoUringBufferRing}.
+     */
+    void incrementProvidedReadCount() {
+        providedReadCount++;
+    }
+
+    /**
+     * Tracks the completion of a read that selected its buffer from a {@link IoUringBufferRing}.
+     */
+    void decrementProvidedReadCount() {
+        providedReadCount--;
+    }
+
+    /**
+     * Tracks a queued vectored operation.
+     *
+     * @param read whether the operation is a read
+     */
+    void incrementVectoredCount(boolean read) {
+        if (read) {
+            vectoredReadCount++;
+        } else {
+            vectoredWriteCount++;
+        }
+    }
+
+    /**
+     * Tracks the completion of a vectored operation.
+     *
+     * @param read whether the operation is a read
+     */
+    void decrementVectoredCount(boolean read) {
+        if (read) {
+            vectoredReadCount--;
+        } else {
+            vectoredWriteCount--;
+        }
+    }
+
+    /**
+     * Gets the ring this channel's operations were last queued on.
+     *
+     * @return the ring, or null if none
+     */
+    IoUring ring() {
+        return ring;
+    }
+
+    void setRing(IoUring ring) {
+        this.ring = ring;
+    }
+
+    /**
+     * Gets the ring with a multishot read armed for this channel.
+     *
+     * @return the ring, or null if no multishot read is armed
+     */
+    IoUring multishotReadRing() {
+        return multishotReadRing;
+    }
+
+    void setMultishotReadRing(IoUring multishotReadRing) {
+        this.multishotReadRing = multishotReadRing;
+    }
+
+    /**
+     * Gets the idle timeout set with {@link IoUringTimerWheel#idleTimeout(AbstractIoUringChannel, long, java.util.concurrent.TimeUnit)}.
+     *
+     * @return the idle timeout, or null if none is pending
+     */
+    IoUringTimerWheel.Timeout idleTimeout() {
+        return idleTimeout;
+    }
+
+    void setIdleTimeout(IoUringTimerWheel.Timeout idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
     /**
      * Sets the handler to be called when an exception is caught while handling I/O for the socket.
      *
@@ -176,6 +402,11 @@ public abstract class AbstractIoUringChannel {
 
     /**
      * Sets the handler to be called when the channel is closed.
+     * <p>
+     * The handler runs from {@link #close()} itself. The descriptor may not be closed yet by then: a channel's ring
+     * usually closes it asynchronously, with an {@code IORING_OP_CLOSE} that only goes out with the ring's next
+     * submission. The channel can no longer be used either way, but the peer may not see the connection end until the
+     * ring runs again.
      * @param closeHandler The close handler
      * @return this instance
      */
@@ -205,7 +436,7 @@ public abstract class AbstractIoUringChannel {
         return !closed;
     }
 
-    private static native void close(int fd);
+    static native void close(int fd);
 
     static {
         NativeLibraryLoader.load();
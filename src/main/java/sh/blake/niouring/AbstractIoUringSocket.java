@@ -2,12 +2,20 @@ package sh.blake.niouring;
 
 import sh.blake.niouring.util.NativeLibraryLoader;
 
+import java.util.function.ObjLongConsumer;
+
 /**
  * An {@link AbstractIoUringChannel} representing a network socket.
  */
 public class AbstractIoUringSocket extends AbstractIoUringChannel {
-    private final String ipAddress;
+    private String ipAddress;
     private final int port;
+    private final int remotePort;
+    private final int addressFamily;
+    private final long addressHigh;
+    private final long addressLow;
+    private int fileTransferCount = 0;
+    private ObjLongConsumer<IoUringFile> fileTransferHandler;
 
     /**
      * Creates a new {@code AbstractIoUringSocket} instance.
@@ -19,9 +27,40 @@ public class AbstractIoUringSocket extends AbstractIoUringChannel {
         super(fd);
         this.ipAddress = ipAddress;
         this.port = port;
+        this.remotePort = port;
+        this.addressFamily = 0;
+        this.addressHigh = 0L;
+        this.addressLow = 0L;
+    }
+
+    /**
+     * Creates a new {@code AbstractIoUringSocket} instance for an accepted connection. The peer address is kept in
+     * its raw form and only formatted if {@link #ipAddress()} is called.
+     * @param fd The file descriptor
+     * @param port The local port
+     * @param addressFamily The peer address family (4 or 6, 0 if unknown)
+     * @param addressHigh The upper 64 bits of an IPv6 peer address
+     * @param addressLow The IPv4 peer address, or the lower 64 bits of an IPv6 peer address
+     * @param remotePort The peer port
+     */
+    AbstractIoUringSocket(int fd, int port, int addressFamily, long addressHigh, long addressLow, int remotePort) {
+        super(fd);
+        this.port = port;
+        this.remotePort = remotePort;
+        this.addressFamily = addressFamily;
+        this.addressHigh = addressHigh;
+        this.addressLow = addressLow;
     }
 
+    /**
+     * Gets the IP address, which for accepted sockets is the address of the peer.
+     *
+     * @return the IP address, or null if the peer address is unknown
+     */
     public String ipAddress() {
+        if (ipAddress == null && addressFamily != 0) {
+            ipAddress = addressFamily == 4 ? formatIpv4((int) addressLow) : formatIpv6(addressHigh, addressLow);
+        }
         return ipAddress;
     }
 
@@ -29,7 +68,102 @@ public class AbstractIoUringSocket extends AbstractIoUringChannel {
         return port;
     }
 
+    /**
+     * Gets the port of the remote end, which for accepted sockets is the port of the peer.
+     *
+     * @return the remote port
+     */
+    public int remotePort() {
+        return remotePort;
+    }
+
+    void handleFileTransferCompletion(IoUringFile file, long bytesTransferred) {
+        if (idleTimeout() != null) {
+            idleTimeout().touch();
+        }
+        if (fileTransferHandler != null) {
+            fileTransferHandler.accept(file, bytesTransferred);
+        }
+    }
+
+    /**
+     * Sets the handler to be called when a transfer queued with
+     * {@link IoUring#queueTransfer(IoUringFile, long, long, AbstractIoUringSocket)} completes, with the file and the
+     * total number of bytes sent.
+     *
+     * @param fileTransferHandler the file transfer handler
+     * @return this instance
+     */
+    public AbstractIoUringSocket onFileTransfer(ObjLongConsumer<IoUringFile> fileTransferHandler) {
+        this.fileTransferHandler = fileTransferHandler;
+        return this;
+    }
+
+    /**
+     * Sets a socket option right away with {@code setsockopt}. Options set before connecting or accepting apply from
+     * the start of the connection. Sockets without a file descriptor, like those accepted into direct descriptors,
+     * need {@link IoUring#queueOption(AbstractIoUringSocket, IoUringSocketOption, Object)} instead.
+     *
+     * @param option the option
+     * @param value the value
+     * @param <T> the type of the option's value
+     * @return this instance
+     */
+    public <T> AbstractIoUringSocket option(IoUringSocketOption<T> option, T value) {
+        AbstractIoUringSocket.setOption(descriptor(), option.id(), option.encode(value));
+        return this;
+    }
+
+    /**
+     * Reads a socket option with {@code getsockopt}.
+     *
+     * @param option the option
+     * @param <T> the type of the option's value
+     * @return the value
+     */
+    public <T> T option(IoUringSocketOption<T> option) {
+        return option.decode(AbstractIoUringSocket.getOption(descriptor(), option.id()));
+    }
+
+    private int descriptor() {
+        if (fd() < 0) {
+            throw new IllegalStateException("Socket has no file descriptor, queue options on its ring instead");
+        }
+        return fd();
+    }
+
+    @Override
+    public boolean isWritePending() {
+        return super.isWritePending() || fileTransferCount > 0;
+    }
+
+    void incrementFileTransferCount() {
+        fileTransferCount++;
+    }
+
+    void decrementFileTransferCount() {
+        fileTransferCount--;
+    }
+
+    static String formatIpv4(int address) {
+        return (address >>> 24) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+
+    static String formatIpv6(long high, long low) {
+        StringBuilder builder = new StringBuilder(39);
+        for (int i = 0; i < 8; i++) {
+            long word = i < 4 ? high >>> (48 - i * 16) : low >>> (48 - (i - 4) * 16);
+            if (i > 0) {
+                builder.append(':');
+            }
+            builder.append(Integer.toHexString((int) (word & 0xFFFF)));
+        }
+        return builder.toString();
+    }
+
     static native int create();
+    static native void setOption(int fd, int option, int value);
+    private static native int getOption(int fd, int option);
 
     static {
         NativeLibraryLoader.load();
@@ -1,36 +1,130 @@
 package sh.blake.niouring;
 
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
+import org.eclipse.collections.impl.stack.mutable.primitive.IntArrayStack;
 import sh.blake.niouring.util.ReferenceCounter;
 import sh.blake.niouring.util.NativeLibraryLoader;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
  * Primary interface for creating and working with an {@code io_uring}.
+ * <p>
+ * An {@code IoUring} is not thread safe and should only be used from the thread executing it, with the exception of
+ * {@link #post(Runnable)} and {@link #wakeup()}, which let other threads hand work to that thread.
  */
 public class IoUring {
-    private static final int DEFAULT_MAX_EVENTS = 1024;
     private static final int EVENT_TYPE_ACCEPT = 0;
     private static final int EVENT_TYPE_READ = 1;
     private static final int EVENT_TYPE_WRITE = 2;
     private static final int EVENT_TYPE_CONNECT = 3;
     private static final int EVENT_TYPE_CLOSE = 4;
+    private static final int EVENT_TYPE_CANCEL = 5;
+    private static final int EVENT_TYPE_TRANSFER = 6;
+    private static final int EVENT_TYPE_TRANSFER_RECEIVED = 7;
+    private static final int EVENT_TYPE_LINK_TIMEOUT = 8;
+    private static final int EVENT_TYPE_TIMEOUT = 9;
+    private static final int EVENT_TYPE_READV = 10;
+    private static final int EVENT_TYPE_WRITEV = 11;
+    private static final int EVENT_TYPE_SEND_ZC = 12;
+    private static final int EVENT_TYPE_SPLICE = 13;
+    private static final int EVENT_TYPE_SYNC = 14;
+    private static final int EVENT_TYPE_FALLOCATE = 15;
+    private static final int EVENT_TYPE_OPEN = 16;
+    private static final int EVENT_TYPE_STATX = 17;
+    private static final int EVENT_TYPE_FADVISE = 18;
+    private static final int EVENT_TYPE_RECEIVE = 19;
+    private static final int EVENT_TYPE_SEND_TO = 20;
+    private static final int EVENT_TYPE_RECEIVE_FDS = 21;
+    private static final int EVENT_TYPE_SET_OPTION = 22;
+    private static final int EVENT_TYPE_TRANSFER_CLOSE = 23;
+    private static final int MAX_IOVECS = 8;
+    private static final int MAX_PASSED_FDS = 4;
+    private static final int IORING_OP_URING_CMD = 46;
+    private static final int IORING_OP_SEND_ZC = 47;
+    private static final int IOSQE_IO_LINK = 1 << 2;
+    private static final int IOSQE_IO_HARDLINK = 1 << 3;
+    private static final int MAX_CHAIN_ID = (1 << 23) - 1;
+    private static final long FILE_TRANSFER_TAG = 8;
+    private static final int FILE_TRANSFER_CHUNK_SIZE = 64 * 1024;
+    private static final int RESULT_SIZE = 48;
+    private static final int PATH_OFFSET = 256;
+    private static final int PATH_BUFFER_SIZE = PATH_OFFSET + 4096;
+    private static final int IORING_CQE_F_BUFFER = 1;
+    private static final int IORING_CQE_F_MORE = 2;
+    private static final int IORING_CQE_BUFFER_SHIFT = 16;
+    static final int EAGAIN = 11;
+    private static final int EPIPE = 32;
+    private static final int EINVAL = 22;
+    private static final int ETIME = 62;
+    private static final int ENOBUFS = 105;
+    private static final int EOPNOTSUPP = 95;
+    private static final int ECANCELED = 125;
+    private static final AtomicLong TRANSFER_IDS = new AtomicLong();
 
     private final long ring;
-    private final int ringSize;
+    private final int batchSize;
     private final IntObjectHashMap<AbstractIoUringChannel> fdToSocket = new IntObjectHashMap<>();
+    private final IntObjectHashMap<IoUringBufferRing> bufferRings = new IntObjectHashMap<>();
+    private final IntHashSet multishotAccepts = new IntHashSet();
+    private ByteBuffer[] registeredBuffers;
+    private IntArrayStack freeFileSlots;
+    private int manualFileSlots;
     private Consumer<Exception> exceptionHandler;
     private boolean closed = false;
+    private boolean enabled;
     private final long cqes;
     private final ByteBuffer resultBuffer;
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean waiting = new AtomicBoolean(false);
+    private final WakeupChannel wakeupChannel;
+    private final LongObjectHashMap<Transfer> outboundTransfers = new LongObjectHashMap<>();
+    private final ConcurrentLinkedQueue<Transfer> inboundTransfers = new ConcurrentLinkedQueue<>();
+    private final LongObjectHashMap<Transfer> receivedTransfers = new LongObjectHashMap<>();
+    private final AtomicInteger abandonedTransfers = new AtomicInteger();
+    private BiConsumer<IoUring, IoUringSocket> transferHandler;
+    private final IntObjectHashMap<IoUringChain> chains = new IntObjectHashMap<>();
+    private int lastChainId = 0;
+    private final IntObjectHashMap<IoUringTimer> timers = new IntObjectHashMap<>();
+    private int lastTimerId = 0;
+    private boolean multishotTimeouts = true;
+    private final IntObjectHashMap<ByteBuffer[]> vectors = new IntObjectHashMap<>();
+    private final int[] vectorPositions = new int[MAX_IOVECS];
+    private final int[] vectorLengths = new int[MAX_IOVECS];
+    private int zeroCopyThreshold = 16 * 1024;
+    private final boolean zeroCopySends;
+    private boolean queuedOptions;
+    private final IntObjectHashMap<IoUringForward> forwards = new IntObjectHashMap<>();
+    private int lastForwardId = 0;
+    private final IntObjectHashMap<FileTransfer> fileTransfers = new IntObjectHashMap<>();
+    private int lastFileTransferId = 0;
+    private final LongObjectHashMap<PathRequest> pathRequests = new LongObjectHashMap<>();
+    private final ArrayDeque<ByteBuffer> pathBuffers = new ArrayDeque<>();
+    private final IntArrayList unsubmittedCloses = new IntArrayList();
+    private final IntArrayList unsubmittedUnregisters = new IntArrayList();
+    private final boolean sqPoll;
 
     /**
-     * Instantiates a new {@code IoUring} with {@code DEFAULT_MAX_EVENTS}.
+     * Instantiates a new {@code IoUring} with the default {@link IoUringOptions}.
      */
     public IoUring() {
-        this(DEFAULT_MAX_EVENTS);
+        this(new IoUringOptions());
     }
 
     /**
@@ -39,10 +133,27 @@ public class IoUring {
      * @param ringSize the max events
      */
     public IoUring(int ringSize) {
-        this.ringSize = ringSize;
-        this.ring = IoUring.create(ringSize);
-        this.cqes = IoUring.createCqes(ringSize);
-        this.resultBuffer = ByteBuffer.allocateDirect(ringSize * 17);
+        this(new IoUringOptions().ringSize(ringSize));
+    }
+
+    /**
+     * Instantiates a new {@code IoUring} with the specified setup options.
+     *
+     * @param options the setup options
+     */
+    public IoUring(IoUringOptions options) {
+        int flags = options.setupFlags();
+        this.batchSize = Math.max(options.ringSize(), options.completionQueueSize());
+        this.ring = IoUring.create(options.ringSize(), flags, options.completionQueueSize(), options.sqPollIdleMillis(),
+            options.sqPollCpu());
+        this.enabled = (flags & IoUringOptions.IORING_SETUP_R_DISABLED) == 0;
+        this.sqPoll = (flags & IoUringOptions.IORING_SETUP_SQPOLL) != 0;
+        this.queuedOptions = IoUring.isSupported(ring, IORING_OP_URING_CMD);
+        this.zeroCopySends = IoUring.isSupported(ring, IORING_OP_SEND_ZC);
+        this.cqes = IoUring.createCqes(batchSize);
+        this.resultBuffer = ByteBuffer.allocateDirect(batchSize * RESULT_SIZE).order(ByteOrder.nativeOrder());
+        this.wakeupChannel = new WakeupChannel(IoUring.createEventFd());
+        queueRead(wakeupChannel, wakeupChannel.buffer);
     }
 
     /**
@@ -52,7 +163,20 @@ public class IoUring {
         if (closed) {
             throw new IllegalStateException("io_uring closed");
         }
-        closed = true;
+        synchronized (wakeupChannel) {
+            closed = true;
+            wakeupChannel.close();
+        }
+        bufferRings.forEachValue(IoUringBufferRing::close);
+        bufferRings.clear();
+        // forwards end with the ring, which also drops the splices they would otherwise wait for
+        for (IoUringForward forward : forwards.toList()) {
+            forward.close();
+            forward.release();
+        }
+        // closes still sitting in the submission queue are dropped with the ring, so their descriptors are closed here
+        unsubmittedCloses.forEach(fd -> AbstractIoUringChannel.close(fd));
+        unsubmittedCloses.clear();
         IoUring.close(ring);
         IoUring.freeCqes(cqes);
     }
@@ -86,12 +210,34 @@ public class IoUring {
             throw new IllegalStateException("io_uring closed");
         }
         try {
-            int count = IoUring.submitAndGetCqes(ring, resultBuffer, cqes, ringSize, shouldWait);
-            for (int i = 0; i < count && i < ringSize; i++) {
+            if (!enabled) {
+                // single issuer rings bind to the thread enabling them, which should be the one executing them
+                IoUring.enable(ring);
+                enabled = true;
+            }
+            runTasks();
+            if (shouldWait) {
+                // posters only signal the eventfd while this is set, so tasks posted from here on wake the wait
+                waiting.set(true);
+                if (!tasks.isEmpty()) {
+                    waiting.set(false);
+                    shouldWait = false;
+                }
+            }
+            // completions are already consumed from the kernel's queue, so one failing handler must not drop the rest
+            int count = IoUring.submitAndGetCqes(ring, resultBuffer, cqes, batchSize, shouldWait);
+            waiting.set(false);
+            unsubmittedCloses.clear();
+            if (!unsubmittedUnregisters.isEmpty()) {
+                unregisterSubmittedFiles();
+            }
+            for (int i = 0; i < count && i < batchSize; i++) {
                 try {
-                    handleEventCompletion(cqes, resultBuffer, i);
-                } finally {
-                    IoUring.markCqeSeen(ring, cqes, i);
+                    handleEventCompletion(resultBuffer, i * RESULT_SIZE);
+                } catch (Exception ex) {
+                    if (exceptionHandler != null) {
+                        exceptionHandler.accept(ex);
+                    }
                 }
             }
             return count;
@@ -99,34 +245,251 @@ public class IoUring {
             if (exceptionHandler != null) {
                 exceptionHandler.accept(ex);
             }
-        } finally {
-            resultBuffer.clear();
         }
         return -1;
     }
 
-    private void handleEventCompletion(long cqes, ByteBuffer results, int i) {
-        int result = results.getInt();
-        int fd = results.getInt();
-        int eventType = results.get();
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception ex) {
+                if (exceptionHandler != null) {
+                    exceptionHandler.accept(ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Posts a task to be run on the thread executing this ring, before its next submission. This is the way for other
+     * threads to queue operations: anything the task queues is submitted together with the ring's own operations in
+     * the next {@code io_uring_enter}. A ring blocked in {@link #execute()} is woken up. This method is thread safe.
+     *
+     * @param task the task
+     * @return this instance
+     */
+    public IoUring post(Runnable task) {
+        tasks.offer(task);
+        if (waiting.compareAndSet(true, false)) {
+            wakeup();
+        }
+        return this;
+    }
+
+    /**
+     * Wakes the ring up if it is blocked in {@link #execute()}, or makes its next {@code execute()} return without
+     * waiting otherwise. This method is thread safe.
+     */
+    public void wakeup() {
+        synchronized (wakeupChannel) {
+            // the lock keeps a wakeup racing with close from signalling the eventfd's recycled descriptor
+            if (!closed) {
+                IoUring.signalEventFd(wakeupChannel.fd());
+            }
+        }
+    }
+
+    private void handleEventCompletion(ByteBuffer results, int offset) {
+        int result = results.getInt(offset);
+        int fd = results.getInt(offset + 4);
+        int cqeFlags = results.getInt(offset + 8);
+        int eventType = results.get(offset + 12);
+        int bufferGroup = results.getShort(offset + 14);
+        long bufferAddress = results.getLong(offset + 16);
+        int link = results.getInt(offset + 28);
 
-        if (eventType == EVENT_TYPE_ACCEPT) {
+        if (eventType == EVENT_TYPE_TIMEOUT) {
+            handleTimeoutCompletion((int) bufferAddress, result, cqeFlags);
+        } else if (eventType == EVENT_TYPE_SPLICE) {
+            handleSpliceCompletion(bufferAddress, result);
+        } else if (eventType == EVENT_TYPE_TRANSFER_CLOSE) {
+            // the close linked behind a failed direct transfer, whose failure the transfer itself reports
+            return;
+        } else if (eventType == EVENT_TYPE_LINK_TIMEOUT) {
+            // the timed out operation reports the expiry itself, by completing with -ECANCELED
+            return;
+        } else if (eventType == EVENT_TYPE_FADVISE) {
+            // only a hint, so a file system ignoring it is no error
+            return;
+        } else if (eventType == EVENT_TYPE_OPEN || eventType == EVENT_TYPE_STATX) {
+            handlePathCompletion(bufferAddress, result);
+        } else if (eventType == EVENT_TYPE_TRANSFER) {
+            handleTransferCompletion(result, bufferAddress);
+        } else if (eventType == EVENT_TYPE_TRANSFER_RECEIVED) {
+            handleTransferReceived(result, bufferAddress);
+        } else if (eventType == EVENT_TYPE_ACCEPT) {
             IoUringServerSocket serverSocket = (IoUringServerSocket) fdToSocket.get(fd);
-            String ipAddress = IoUring.getCqeIpAddress(cqes, i);
-            IoUringSocket socket = serverSocket.handleAcceptCompletion(this, serverSocket, result, ipAddress);
-            if (socket != null) {
-                fdToSocket.put(socket.fd(), socket);
+            boolean ended = (cqeFlags & IORING_CQE_F_MORE) == 0 && multishotAccepts.remove(fd);
+            if (serverSocket == null) {
+                return;
+            }
+            // errors like -EMFILE are transient, so only a cancel stops a multishot accept for good
+            boolean rearm = ended && result != -ECANCELED && serverSocket.isOpen() && serverSocket.isMultishot();
+            if (ended && result < 0 && result != -ECANCELED && serverSocket.exceptionHandler() != null) {
+                serverSocket.exceptionHandler().accept(new RuntimeException("Multishot accept ended with result: " + result));
+            }
+            try {
+                int addressFamily = results.get(offset + 13);
+                int port = results.getInt(offset + 24);
+                long addressHigh = results.getLong(offset + 32);
+                long addressLow = results.getLong(offset + 40);
+                IoUringSocket socket = serverSocket.handleAcceptCompletion(this, serverSocket, result,
+                    addressFamily, addressHigh, addressLow, port, serverSocket.isDirectDescriptors());
+                if (socket != null) {
+                    register(socket);
+                }
+            } finally {
+                if (rearm) {
+                    queueAccept(serverSocket);
+                }
             }
         } else {
             AbstractIoUringChannel channel = fdToSocket.get(fd);
+            boolean linkFailed = link != 0 && handleLinkCompletion(channel, link, result);
+            boolean vectoredRead = eventType == EVENT_TYPE_READV;
+            ByteBuffer[] vector = null;
+            if (vectoredRead || eventType == EVENT_TYPE_WRITEV) {
+                // keyed by request slot, which the next vectored operation may reuse
+                vector = vectors.remove((int) bufferAddress);
+                if (channel != null) {
+                    channel.decrementVectoredCount(vectoredRead);
+                }
+            }
+            boolean sync = eventType == EVENT_TYPE_SYNC || eventType == EVENT_TYPE_FALLOCATE;
+            if (sync && channel instanceof IoUringFile) {
+                ((IoUringFile) channel).decrementSyncCount();
+            }
             if (channel == null || channel.isClosed()) {
+                if (eventType == EVENT_TYPE_RECEIVE_FDS && result >= 0) {
+                    closeDescriptors(results, offset);
+                }
+                if (bufferGroup >= 0 && (cqeFlags & IORING_CQE_F_BUFFER) != 0) {
+                    bufferRings.get(bufferGroup).recycle(cqeFlags >>> IORING_CQE_BUFFER_SHIFT);
+                }
                 return;
             }
             try {
                 if (eventType == EVENT_TYPE_CONNECT) {
-                    ((IoUringSocket) channel).handleConnectCompletion(this, result);
+                    if (!linkFailed) {
+                        ((IoUringSocket) channel).handleConnectCompletion(this, result);
+                    }
+                } else if (eventType == EVENT_TYPE_READ && bufferGroup >= 0) {
+                    boolean ended = (cqeFlags & IORING_CQE_F_MORE) == 0;
+                    boolean multishot = ended && channel.multishotReadRing() == this;
+                    if (ended) {
+                        channel.decrementProvidedReadCount();
+                    }
+                    if (multishot) {
+                        channel.setMultishotReadRing(null);
+                    }
+                    IoUringBufferRing bufferRing = bufferRings.get(bufferGroup);
+                    if ((cqeFlags & IORING_CQE_F_BUFFER) == 0) {
+                        if (result == -ENOBUFS) {
+                            // a burst took every buffer, so resume once the application gives one back
+                            if (multishot) {
+                                AbstractIoUringSocket socket = (AbstractIoUringSocket) channel;
+                                bufferRing.whenRecycled(() -> rearmMultishotRead(socket, bufferRing));
+                            }
+                            if (channel.exceptionHandler() != null) {
+                                channel.exceptionHandler().accept(new IllegalStateException("Buffer ring " + bufferGroup + " exhausted"));
+                            }
+                        } else if (result != -ECANCELED) {
+                            // a cancelled read was stopped on purpose, which leaves the connection alone; any other
+                            // error ends it
+                            if (channel.exceptionHandler() != null) {
+                                channel.exceptionHandler().accept(new RuntimeException("Read failed with result: " + result));
+                            }
+                            channel.close();
+                        }
+                    } else {
+                        int bufferId = cqeFlags >>> IORING_CQE_BUFFER_SHIFT;
+                        try {
+                            channel.handleReadCompletion(bufferRing.take(bufferId), result);
+                        } finally {
+                            // only a failed read keeps its buffer from the handler, which never sees it
+                            if (result < 0) {
+                                bufferRing.recycle(bufferId);
+                            }
+                        }
+                        if (multishot && result > 0 && channel.isOpen()) {
+                            queueMultishotRead((AbstractIoUringSocket) channel, bufferRing);
+                        }
+                    }
+                } else if (eventType == EVENT_TYPE_RECEIVE && bufferGroup >= 0) {
+                    IoUringDatagramSocket socket = (IoUringDatagramSocket) channel;
+                    boolean ended = (cqeFlags & IORING_CQE_F_MORE) == 0;
+                    if (ended) {
+                        socket.decrementProvidedReadCount();
+                        socket.setMultishotReadRing(null);
+                    }
+                    IoUringBufferRing bufferRing = bufferRings.get(bufferGroup);
+                    try {
+                        if ((cqeFlags & IORING_CQE_F_BUFFER) == 0) {
+                            if (result == -ENOBUFS) {
+                                if (ended) {
+                                    bufferRing.whenRecycled(() -> rearmMultishotRead(socket, bufferRing));
+                                }
+                                if (socket.exceptionHandler() != null) {
+                                    socket.exceptionHandler().accept(new IllegalStateException("Buffer ring " + bufferGroup + " exhausted"));
+                                }
+                            } else if (result != -ECANCELED) {
+                                socket.handleReceiveCompletion(null, result);
+                            }
+                        } else {
+                            int bufferId = cqeFlags >>> IORING_CQE_BUFFER_SHIFT;
+                            if (result < 0) {
+                                bufferRing.recycle(bufferId);
+                                socket.handleReceiveCompletion(null, result);
+                            } else {
+                                // the payload follows the header, address and control data the kernel put first
+                                ByteBuffer buffer = bufferRing.take(bufferId);
+                                buffer.position((int) bufferAddress).limit((int) bufferAddress + result);
+                                socket.handleReceiveCompletion(datagram(results, offset, buffer), result);
+                            }
+                        }
+                    } finally {
+                        // an error such as a refused connected send ends the receive but not the socket, which keeps
+                        // receiving; exhausted buffers re-arm it once one is recycled instead
+                        boolean rearm = ended && result != -ECANCELED && result != -ENOBUFS && socket.isOpen();
+                        if (rearm) {
+                            queueMultishotReceive(socket, bufferRing);
+                        }
+                    }
+                } else if (eventType == EVENT_TYPE_RECEIVE) {
+                    ReferenceCounter<ByteBuffer> refCounter = channel.readBufferMap().get(bufferAddress);
+                    ByteBuffer buffer = refCounter.ref();
+                    if (buffer == null) {
+                        throw new IllegalStateException("Buffer already removed");
+                    }
+                    if (refCounter.deincrementReferenceCount() == 0) {
+                        channel.readBufferMap().remove(bufferAddress);
+                    }
+                    if (!linkFailed) {
+                        if (result >= 0) {
+                            buffer.limit(buffer.position() + result);
+                        }
+                        ((IoUringDatagramSocket) channel).handleReceiveCompletion(datagram(results, offset, buffer), result);
+                    }
+                } else if (eventType == EVENT_TYPE_RECEIVE_FDS) {
+                    ReferenceCounter<ByteBuffer> refCounter = channel.readBufferMap().get(bufferAddress);
+                    ByteBuffer buffer = refCounter.ref();
+                    if (buffer == null) {
+                        throw new IllegalStateException("Buffer already removed");
+                    }
+                    if (refCounter.deincrementReferenceCount() == 0) {
+                        channel.readBufferMap().remove(bufferAddress);
+                    }
+                    int[] fds = result >= 0 ? descriptors(results, offset) : new int[0];
+                    if (linkFailed) {
+                        for (int passedFd : fds) {
+                            AbstractIoUringChannel.close(passedFd);
+                        }
+                    } else {
+                        ((IoUringUnixSocket) channel).handleDescriptorsCompletion(buffer, result, fds);
+                    }
                 } else if (eventType == EVENT_TYPE_READ) {
-                    long bufferAddress = results.getLong();
                     ReferenceCounter<ByteBuffer> refCounter = channel.readBufferMap().get(bufferAddress);
                     ByteBuffer buffer = refCounter.ref();
                     if (buffer == null) {
@@ -135,9 +498,23 @@ public class IoUring {
                     if (refCounter.deincrementReferenceCount() == 0) {
                         channel.readBufferMap().remove(bufferAddress);
                     }
-                    channel.handleReadCompletion(buffer, result);
-                } else if (eventType == EVENT_TYPE_WRITE) {
-                    long bufferAddress = results.getLong();
+                    if (!linkFailed) {
+                        channel.handleReadCompletion(buffer, result);
+                    }
+                } else if (eventType == EVENT_TYPE_WRITE || eventType == EVENT_TYPE_SEND_TO) {
+                    ReferenceCounter<ByteBuffer> refCounter = channel.writeBufferMap().get(bufferAddress);
+                    ByteBuffer buffer = refCounter.ref();
+                    if (buffer == null) {
+                        throw new IllegalStateException("Buffer already removed");
+                    }
+                    if (refCounter.deincrementReferenceCount() == 0) {
+                        channel.writeBufferMap().remove(bufferAddress);
+                    }
+                    if (!linkFailed) {
+                        channel.handleWriteCompletion(buffer, result);
+                    }
+                } else if (eventType == EVENT_TYPE_SEND_ZC && (cqeFlags & IORING_CQE_F_MORE) == 0) {
+                    // a send the kernel still holds the buffer for is reported by its notification, which follows
                     ReferenceCounter<ByteBuffer> refCounter = channel.writeBufferMap().get(bufferAddress);
                     ByteBuffer buffer = refCounter.ref();
                     if (buffer == null) {
@@ -146,10 +523,29 @@ public class IoUring {
                     if (refCounter.deincrementReferenceCount() == 0) {
                         channel.writeBufferMap().remove(bufferAddress);
                     }
-                    channel.handleWriteCompletion(buffer, result);
-                } else if (eventType == EVENT_TYPE_CLOSE) {
+                    if (!linkFailed) {
+                        channel.handleWriteCompletion(buffer, result);
+                    }
+                } else if (vector != null && !linkFailed) {
+                    if (vectoredRead) {
+                        channel.handleReadvCompletion(vector, result);
+                    } else {
+                        channel.handleWritevCompletion(vector, result);
+                    }
+                } else if (sync && !linkFailed) {
+                    IoUringFile file = (IoUringFile) channel;
+                    if (eventType == EVENT_TYPE_SYNC) {
+                        file.handleSyncCompletion(result);
+                    } else {
+                        file.handleAllocateCompletion(result);
+                    }
+                } else if (eventType == EVENT_TYPE_SET_OPTION && !linkFailed) {
+                    handleOptionCompletion((AbstractIoUringSocket) channel, bufferAddress, result);
+                } else if (eventType == EVENT_TYPE_CLOSE && !linkFailed) {
                     channel.setClosed(true);
-                    channel.closeHandler().run();
+                    if (channel.closeHandler() != null) {
+                        channel.closeHandler().run();
+                    }
                 }
             } catch (Exception ex) {
                 if (channel.exceptionHandler() != null) {
@@ -163,15 +559,64 @@ public class IoUring {
         }
     }
 
+    private void handleOptionCompletion(AbstractIoUringSocket socket, long optionAndValue, int result) {
+        int option = (int) (optionAndValue >>> 32);
+        int value = (int) optionAndValue;
+        if (result == -EOPNOTSUPP && socket.fd() >= 0) {
+            // sockets only take commands since Linux 6.7, older kernels with the opcode reject them all, so set
+            // options directly from now on; a value the kernel really rejects is reported by the direct call
+            queuedOptions = false;
+            AbstractIoUringSocket.setOption(socket.fd(), option, value);
+        } else if (result < 0) {
+            throw new RuntimeException("Setting " + IoUringSocketOption.forId(option) + " failed with result: " + result);
+        }
+    }
+
+    private static int[] descriptors(ByteBuffer results, int offset) {
+        // passed descriptors take the place of the address, with their count in the port field
+        int[] fds = new int[results.getInt(offset + 24)];
+        for (int i = 0; i < fds.length; i++) {
+            fds[i] = results.getInt(offset + 32 + i * 4);
+        }
+        return fds;
+    }
+
+    private static void closeDescriptors(ByteBuffer results, int offset) {
+        for (int passedFd : descriptors(results, offset)) {
+            AbstractIoUringChannel.close(passedFd);
+        }
+    }
+
+    private static IoUringDatagram datagram(ByteBuffer results, int offset, ByteBuffer buffer) {
+        // the segment size of coalesced datagrams shares the port field, above the 16 bits a port takes
+        int port = results.getInt(offset + 24);
+        return new IoUringDatagram(buffer, results.get(offset + 13), results.getLong(offset + 32),
+            results.getLong(offset + 40), port & 0xFFFF, port >>> 16);
+    }
+
     /**
      * Queues a {@link IoUringServerSocket} for an accept operation on the next ring execution.
+     * <p>
+     * If the server socket is in multishot mode, one submission keeps accepting connections until it is cancelled
+     * with {@link #queueCancel(AbstractIoUringChannel)}, and is re-armed whenever the kernel ends it. Queuing it again
+     * while it is armed on this ring does nothing.
      *
      * @param serverSocket the server socket
      * @return this instance
      */
     public IoUring queueAccept(IoUringServerSocket serverSocket) {
-        fdToSocket.put(serverSocket.fd(), serverSocket);
-        IoUring.queueAccept(ring, serverSocket.fd());
+        if (serverSocket.isDirectDescriptors() && freeFileSlots == null) {
+            throw new IllegalStateException("No file table registered for direct descriptors");
+        }
+        boolean multishot = serverSocket.isMultishot();
+        if (multishot && multishotAccepts.contains(serverSocket.fd())) {
+            return this;
+        }
+        register(serverSocket);
+        IoUring.queueAccept(ring, serverSocket.fd(), fixedFileIndex(serverSocket), serverSocket.isDirectDescriptors(), multishot);
+        if (multishot) {
+            multishotAccepts.add(serverSocket.fd());
+        }
         return this;
     }
 
@@ -182,122 +627,1606 @@ public class IoUring {
      * @return this instance
      */
     public IoUring queueConnect(IoUringSocket socket) {
-        fdToSocket.put(socket.fd(), socket);
-        IoUring.queueConnect(ring, socket.fd(), socket.ipAddress(), socket.port());
+        register(socket);
+        if (socket instanceof IoUringUnixSocket) {
+            byte[] address = IoUringUnixSocket.encodeAddress(((IoUringUnixSocket) socket).path());
+            IoUring.queueConnectUnix(ring, socket.fd(), fixedFileIndex(socket), address);
+        } else {
+            IoUring.queueConnect(ring, socket.fd(), fixedFileIndex(socket), socket.ipAddress(), socket.port());
+        }
         return this;
     }
 
     /**
-     * Queues {@link IoUringSocket} for a read operation on the next ring execution.
+     * Hands a socket over to another ring with {@code IORING_OP_MSG_RING}, e.g. from an acceptor ring to the least
+     * loaded worker ring. The transfer is submitted with this ring's other operations, and the target ring registers
+     * the socket and calls its {@link #onTransfer(BiConsumer)} handler on its own thread. A direct descriptor is moved
+     * into a slot of the target's file table (Linux >= 6.0), which must have been set up with {@link #registerFiles(int)}.
+     * <p>
+     * The socket must not have pending operations and must not be used by this ring's thread afterwards. If the
+     * transfer fails, the socket stays with this ring and its exception handler is called.
      *
-     * @param channel the channel
-     * @param buffer the buffer to read into
+     * @param socket the socket
+     * @param target the ring to hand the socket to
      * @return this instance
      */
-    public IoUring queueRead(AbstractIoUringChannel channel, ByteBuffer buffer) {
-        return queueRead(channel, buffer, 0L);
+    public IoUring transfer(IoUringSocket socket, IoUring target) {
+        if (target == this) {
+            throw new IllegalArgumentException("Cannot transfer a socket to its own io_uring");
+        }
+        if (socket.isReadPending() || socket.isWritePending()) {
+            throw new IllegalStateException("Cannot transfer a socket with pending operations");
+        }
+        int fixedFileIndex = fixedFileIndex(socket);
+        if (fixedFileIndex >= 0 && socket.fd() >= 0) {
+            // a regular descriptor travels by number, so this ring's file table entry is simply dropped
+            unregisterFile(socket);
+            fixedFileIndex = -1;
+        }
+        Transfer transfer = new Transfer(TRANSFER_IDS.incrementAndGet(), socket, target, fixedFileIndex);
+        IoUring.queueTransfer(ring, target.ring, socket.fd(), fixedFileIndex, transfer.id);
+        deregister(socket);
+        socket.setRing(null);
+        outboundTransfers.put(transfer.id, transfer);
+        // the message is only submitted with this ring's next execution, after the target can find the transfer
+        target.inboundTransfers.offer(transfer);
+        return this;
+    }
+
+    private boolean handleLinkCompletion(AbstractIoUringChannel channel, int link, int result) {
+        int chainId = link >>> 8;
+        IoUringChain chain = chains.get(chainId);
+        if (chain == null) {
+            return false;
+        }
+        boolean last = chain.completeLink() == 0;
+        if (last) {
+            chains.remove(chainId);
+        }
+        if (result >= 0) {
+            if (last && !chain.isFailed() && chain.completeHandler() != null) {
+                try {
+                    chain.completeHandler().run();
+                } catch (Exception ex) {
+                    if (channel != null && channel.exceptionHandler() != null) {
+                        channel.exceptionHandler().accept(ex);
+                    } else if (exceptionHandler != null) {
+                        exceptionHandler.accept(ex);
+                    }
+                }
+            }
+            return false;
+        }
+        chain.fail();
+        IoUringChainException ex = new IoUringChainException(link & 0xFF, result);
+        if (chain.exceptionHandler() != null) {
+            chain.exceptionHandler().accept(ex);
+        } else if (channel != null && channel.exceptionHandler() != null) {
+            channel.exceptionHandler().accept(ex);
+        } else if (exceptionHandler != null) {
+            exceptionHandler.accept(ex);
+        }
+        return true;
+    }
+
+    private void handleTransferCompletion(int result, long transferId) {
+        Transfer transfer = outboundTransfers.remove(transferId);
+        if (transfer == null) {
+            return;
+        }
+        if (result >= 0) {
+            // the socket now belongs to the target; only the direct descriptor's old slot is left to recycle
+            if (transfer.fixedFileIndex >= 0 && transfer.fixedFileIndex < manualFileSlots) {
+                freeFileSlots.push(transfer.fixedFileIndex);
+            }
+            return;
+        }
+        // the target never hears of a failed transfer, so it has to be told to forget it
+        transfer.abandoned = true;
+        if (!transfer.target.inboundTransfers.remove(transfer)) {
+            transfer.target.abandonedTransfers.incrementAndGet();
+        }
+        IoUringSocket socket = transfer.socket;
+        register(socket);
+        if (socket.exceptionHandler() != null) {
+            socket.exceptionHandler().accept(new RuntimeException("Transfer failed with result: " + result));
+        }
+    }
+
+    private void handleTransferReceived(int result, long transferId) {
+        // the queue is only for handing transfers across threads; lookups go through a map owned by this ring
+        Transfer transfer;
+        while ((transfer = inboundTransfers.poll()) != null) {
+            receivedTransfers.put(transfer.id, transfer);
+        }
+        if (abandonedTransfers.get() > 0) {
+            removeAbandonedTransfers();
+        }
+        transfer = receivedTransfers.remove(transferId);
+        if (transfer == null) {
+            return;
+        }
+        IoUringSocket socket = transfer.socket;
+        if (transfer.fixedFileIndex >= 0) {
+            socket.setFd(~result);
+            socket.setFixedFile(this, result);
+        }
+        register(socket);
+        if (transferHandler != null) {
+            transferHandler.accept(this, socket);
+        }
+    }
+
+    private void removeAbandonedTransfers() {
+        LongArrayList abandoned = new LongArrayList();
+        receivedTransfers.forEachKeyValue((id, transfer) -> {
+            if (transfer.abandoned) {
+                abandoned.add(id);
+            }
+        });
+        abandoned.forEach(receivedTransfers::remove);
+        abandonedTransfers.addAndGet(-abandoned.size());
     }
 
     /**
-     * Queues {@link IoUringSocket} for a read operation on the next ring execution.
+     * Sets the handler that is called on this ring's thread for every socket transferred to this ring with
+     * {@link #transfer(IoUringSocket, IoUring)}.
      *
-     * @param channel the channel
-     * @param buffer the buffer to read into
-     * @param offset the offset into the file/source of the read; Casted to u64
+     * @param transferHandler the transfer handler
      * @return this instance
      */
-    public IoUring queueRead(AbstractIoUringChannel channel, ByteBuffer buffer, long offset) {
-        if (!buffer.isDirect()) {
-            throw new IllegalArgumentException("Buffer must be direct");
+    public IoUring onTransfer(BiConsumer<IoUring, IoUringSocket> transferHandler) {
+        this.transferHandler = transferHandler;
+        return this;
+    }
+
+    /**
+     * Starts a chain of linked operations, which the kernel runs one after the other. See {@link IoUringChain}.
+     *
+     * @return the chain builder
+     */
+    public IoUringChain chain() {
+        return new IoUringChain(this);
+    }
+
+    IoUring queueChain(IoUringChain chain) {
+        List<IoUringChain.Link> links = chain.links();
+        int requests = links.size();
+        for (IoUringChain.Link link : links) {
+            if (link.timeoutNanos() >= 0) {
+                requests++;
+            }
         }
-        fdToSocket.put(channel.fd(), channel);
-        long bufferAddress = IoUring.queueRead(ring, channel.fd(), buffer, buffer.position(), buffer.limit() - buffer.position(), offset);
-        ReferenceCounter<ByteBuffer> refCounter = channel.readBufferMap().get(bufferAddress);
-        if (refCounter == null) {
-            refCounter = new ReferenceCounter<>(buffer);
-            channel.readBufferMap().put(bufferAddress, refCounter);
+        // a chain cut short would leave its last link flag set, linking it to whatever is queued next
+        if (IoUring.requestsAvailable(ring) < requests) {
+            chain.setPending(0);
+            throw new IllegalStateException("Not enough room in the ring for a chain of " + requests + " requests");
+        }
+        int chainId = nextChainId();
+        int linkFlag = chain.isHardLink() ? IOSQE_IO_HARDLINK : IOSQE_IO_LINK;
+        chains.put(chainId, chain);
+        int queued = 0;
+        int lastLink = 0;
+        try {
+            for (IoUringChain.Link link : links) {
+                boolean last = queued == links.size() - 1;
+                link.queue().run();
+                queued++;
+                lastLink = (chainId << 8) | (queued - 1);
+                IoUring.linkLast(ring, lastLink, last && link.timeoutNanos() < 0 ? 0 : linkFlag);
+                if (link.timeoutNanos() >= 0) {
+                    IoUring.queueLinkTimeout(ring, link.timeoutNanos());
+                    lastLink = 0;
+                    if (!last) {
+                        IoUring.linkLast(ring, 0, linkFlag);
+                    }
+                }
+            }
+        } catch (RuntimeException ex) {
+            // end the chain at the last queued request, so it does not swallow whatever is queued next
+            if (queued > 0) {
+                IoUring.linkLast(ring, lastLink, 0);
+                chain.setPending(queued);
+                chain.fail();
+            } else {
+                chains.remove(chainId);
+                chain.setPending(0);
+            }
+            throw ex;
         }
-        refCounter.incrementReferenceCount();
         return this;
     }
 
+    private int nextChainId() {
+        do {
+            lastChainId = lastChainId == MAX_CHAIN_ID ? 1 : lastChainId + 1;
+        } while (chains.containsKey(lastChainId));
+        return lastChainId;
+    }
+
     /**
-     * Queues {@link IoUringSocket} for a write operation on the next ring execution.
+     * Schedules a task to run once on this ring's thread after a delay, with an {@code IORING_OP_TIMEOUT} request
+     * submitted on the next ring execution.
      *
-     * @param channel the channel
-     * @return this instance
+     * @param delay the delay
+     * @param unit the time unit of the delay
+     * @param task the task
+     * @return the timer, which can be cancelled
      */
-    public IoUring queueWrite(AbstractIoUringChannel channel, ByteBuffer buffer) {
-        return queueWrite(channel, buffer, 0L);
+    public IoUringTimer schedule(long delay, TimeUnit unit, Runnable task) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Delay must not be negative");
+        }
+        IoUringTimer timer = new IoUringTimer(this, nextTimerId(), task, 0L);
+        armTimer(timer, unit.toNanos(delay));
+        timers.put(timer.id(), timer);
+        return timer;
     }
 
     /**
-     * Queues {@link IoUringSocket} for a write operation on the next ring execution.
+     * Schedules a task to run repeatedly on this ring's thread, first after one period. A single multishot
+     * {@code IORING_OP_TIMEOUT} request drives the timer on Linux >= 6.4; older kernels fall back to re-arming a
+     * one-shot timeout after every run.
      *
-     * @param channel the channel
-     * @param offset the offset into the file/source of the write; Casted to u64
-     * @return this instance
+     * @param period the period
+     * @param unit the time unit of the period
+     * @param task the task
+     * @return the timer, which can be cancelled
      */
-    public IoUring queueWrite(AbstractIoUringChannel channel, ByteBuffer buffer, long offset) {
-        if (!buffer.isDirect()) {
-            throw new IllegalArgumentException("Buffer must be direct");
+    public IoUringTimer scheduleAtFixedRate(long period, TimeUnit unit, Runnable task) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive");
         }
-        fdToSocket.put(channel.fd(), channel);
-        long bufferAddress = IoUring.queueWrite(ring, channel.fd(), buffer, buffer.position(), buffer.limit() - buffer.position(), offset);
-        ReferenceCounter<ByteBuffer> refCounter = channel.writeBufferMap().get(bufferAddress);
-        if (refCounter == null) {
-            refCounter = new ReferenceCounter<>(buffer);
-            channel.writeBufferMap().put(bufferAddress, refCounter);
+        IoUringTimer timer = new IoUringTimer(this, nextTimerId(), task, unit.toNanos(period));
+        armTimer(timer, timer.periodNanos());
+        timers.put(timer.id(), timer);
+        return timer;
+    }
+
+    void cancelTimer(IoUringTimer timer) {
+        if (timer.isDone() || timers.remove(timer.id()) == null) {
+            return;
         }
-        refCounter.incrementReferenceCount();
-        return this;
+        timer.setDone(true);
+        IoUring.queueTimeoutRemove(ring, timer.userData());
     }
 
-    public IoUring queueClose(AbstractIoUringChannel channel) {
-        IoUring.queueClose(ring, channel.fd());
-        return this;
+    private void armTimer(IoUringTimer timer, long nanos) {
+        timer.setUserData(IoUring.queueTimeout(ring, nanos, timer.id(), timer.isPeriodic() && multishotTimeouts));
+    }
+
+    private void handleTimeoutCompletion(int timerId, int result, int cqeFlags) {
+        IoUringTimer timer = timers.get(timerId);
+        if (timer == null) {
+            return;
+        }
+        boolean more = (cqeFlags & IORING_CQE_F_MORE) != 0;
+        if (result == -EINVAL && timer.isPeriodic() && multishotTimeouts) {
+            // the kernel predates multishot timeouts, so every periodic timer re-arms itself from now on
+            multishotTimeouts = false;
+            armTimer(timer, timer.periodNanos());
+            return;
+        }
+        if (result != -ETIME) {
+            timers.remove(timerId);
+            timer.setDone(true);
+            throw new RuntimeException("Timer ended with result: " + result);
+        }
+        if (!timer.isPeriodic()) {
+            timers.remove(timerId);
+            timer.setDone(true);
+        } else if (!more) {
+            armTimer(timer, timer.periodNanos());
+        }
+        timer.task().run();
+    }
+
+    private int nextTimerId() {
+        do {
+            lastTimerId = lastTimerId == Integer.MAX_VALUE ? 1 : lastTimerId + 1;
+        } while (timers.containsKey(lastTimerId));
+        return lastTimerId;
     }
 
     /**
-     * Gets the exception handler.
+     * Joins two sockets, moving data between them in both directions until either side closes, e.g. a proxied client
+     * and its upstream connection. Data goes from one socket into a pipe and from the pipe into the other socket with
+     * {@code IORING_OP_SPLICE}, so it is never copied into user space. Forwarding starts on the next ring execution.
+     * <p>
+     * The sockets must not have pending operations and must not be used directly while forwarded; the forward closes
+     * them when it ends.
      *
-     * @return the exception handler
+     * @param from the first socket
+     * @param to the second socket
+     * @return the forward
      */
-    Consumer<Exception> exceptionHandler() {
-        return exceptionHandler;
+    public IoUringForward forward(AbstractIoUringSocket from, AbstractIoUringSocket to) {
+        if (from.isReadPending() || from.isWritePending() || to.isReadPending() || to.isWritePending()) {
+            throw new IllegalStateException("Cannot forward a socket with pending operations");
+        }
+        if (from.fd() < 0 || to.fd() < 0) {
+            throw new IllegalArgumentException("Cannot forward a socket that only exists as a direct descriptor");
+        }
+        int id = nextForwardId();
+        IoUringForward forward = new IoUringForward(this, id, from, to);
+        forwards.put(id, forward);
+        forward.start();
+        return forward;
+    }
+
+    void queueSplice(int fdIn, int fdOut, int length, long tag, boolean pollFirst) {
+        IoUring.queueSplice(ring, fdIn, fdOut, length, tag, pollFirst);
+    }
+
+    void removeForward(int id) {
+        forwards.remove(id);
+    }
+
+    private void handleSpliceCompletion(long tag, int result) {
+        if ((tag & 1) != 0) {
+            // the poll ahead of a splice; a failed poll cancels the splice, which reports it
+            return;
+        }
+        int id = (int) (tag >>> 4);
+        boolean out = (tag & 2) != 0;
+        if ((tag & FILE_TRANSFER_TAG) != 0) {
+            FileTransfer transfer = fileTransfers.get(id);
+            if (transfer != null) {
+                handleFileTransferCompletion(transfer, out, result);
+            }
+            return;
+        }
+        IoUringForward forward = forwards.get(id);
+        if (forward != null) {
+            forward.handleSpliceCompletion((int) (tag >>> 2) & 1, out, result);
+        }
     }
 
     /**
-     * Sets the handler that is called when an {@code Exception} is caught during execution.
+     * Queues a transfer of part of a file to a socket, like {@code sendfile}, started on the next ring execution. The
+     * data goes from the file into a pipe and from the pipe into the socket with linked {@code IORING_OP_SPLICE}
+     * operations, in chunks of up to 64 KiB, so it is never copied into user space. Short splices are resumed until
+     * the whole range is sent.
+     * <p>
+     * Completion is reported once, to the socket's {@link AbstractIoUringSocket#onFileTransfer} handler, with the
+     * total number of bytes sent, which is less than {@code length} only if the file ends first. Failures go to the
+     * socket's exception handler.
      *
-     * @param exceptionHandler the exception handler
+     * @param file the file
+     * @param offset the offset in the file to start from
+     * @param length the number of bytes to send
+     * @param socket the socket
+     * @return this instance
      */
-    public IoUring onException(Consumer<Exception> exceptionHandler) {
-        this.exceptionHandler = exceptionHandler;
+    public IoUring queueTransfer(IoUringFile file, long offset, long length, AbstractIoUringSocket socket) {
+        if (offset < 0 || length <= 0) {
+            throw new IllegalArgumentException("Offset must not be negative and length must be positive");
+        }
+        if (file.fd() < 0 || socket.fd() < 0) {
+            throw new IllegalArgumentException("Cannot splice a channel that only exists as a direct descriptor");
+        }
+        register(socket);
+        int id = nextFileTransferId();
+        FileTransfer transfer = new FileTransfer(id, file, socket, offset, length, IoUringForward.createPipe());
+        try {
+            queueFileTransferChunk(transfer);
+        } catch (RuntimeException ex) {
+            IoUringForward.closePipe(transfer.pipe);
+            throw ex;
+        }
+        fileTransfers.put(id, transfer);
+        socket.incrementFileTransferCount();
         return this;
     }
 
+    private void queueFileTransferChunk(FileTransfer transfer) {
+        int length = (int) Math.min(transfer.remaining, FILE_TRANSFER_CHUNK_SIZE);
+        IoUring.queueSpliceFile(ring, transfer.file.fd(), transfer.offset, transfer.pipe, transfer.socket.fd(), length,
+            transfer.tag());
+    }
+
+    private void handleFileTransferCompletion(FileTransfer transfer, boolean out, int result) {
+        if (!out) {
+            // only record what the file gave; the socket side, which completes after it, decides what comes next
+            if (result > 0) {
+                transfer.buffered += result;
+                transfer.offset += result;
+                transfer.remaining -= result;
+            } else if (result == 0) {
+                transfer.remaining = 0;
+            } else {
+                transfer.result = result;
+            }
+            return;
+        }
+        if (result > 0) {
+            transfer.buffered -= result;
+            transfer.sent += result;
+        } else if (result != -ECANCELED || transfer.socket.isClosed()) {
+            // a cancelled send is expected after a short read from the file, which breaks the link
+            transfer.result = result == 0 ? -EPIPE : result;
+        }
+        if (transfer.result < 0) {
+            finishFileTransfer(transfer);
+        } else if (transfer.buffered > 0) {
+            queueSplice((int) (transfer.pipe >> 32), transfer.socket.fd(), transfer.buffered, transfer.tag() | 2, false);
+        } else if (transfer.remaining > 0) {
+            queueFileTransferChunk(transfer);
+        } else {
+            finishFileTransfer(transfer);
+        }
+    }
+
+    private void finishFileTransfer(FileTransfer transfer) {
+        fileTransfers.remove(transfer.id);
+        IoUringForward.closePipe(transfer.pipe);
+        AbstractIoUringSocket socket = transfer.socket;
+        socket.decrementFileTransferCount();
+        if (transfer.result < 0) {
+            if (socket.exceptionHandler() != null) {
+                socket.exceptionHandler().accept(new RuntimeException("File transfer failed with result: " + transfer.result));
+            }
+        } else {
+            socket.handleFileTransferCompletion(transfer.file, transfer.sent);
+        }
+    }
+
+    private int nextFileTransferId() {
+        do {
+            lastFileTransferId = lastFileTransferId == Integer.MAX_VALUE ? 1 : lastFileTransferId + 1;
+        } while (fileTransfers.containsKey(lastFileTransferId));
+        return lastFileTransferId;
+    }
+
+    private int nextForwardId() {
+        do {
+            lastForwardId = lastForwardId == Integer.MAX_VALUE ? 1 : lastForwardId + 1;
+        } while (forwards.containsKey(lastForwardId));
+        return lastForwardId;
+    }
+
     /**
-     * Deregister this channel from the ring.
+     * Queues {@link IoUringSocket} for a read operation on the next ring execution.
+     *
+     * @param channel the channel
+     * @param buffer the buffer to read into
+     * @return this instance
+     */
+    public IoUring queueRead(AbstractIoUringChannel channel, ByteBuffer buffer) {
+        return queueRead(channel, buffer, 0L);
+    }
+
+    /**
+     * Queues {@link IoUringSocket} for a read operation on the next ring execution.
      *
      * @param channel the channel
+     * @param buffer the buffer to read into
+     * @param offset the offset into the file/source of the read; Casted to u64
+     * @return this instance
      */
-    void deregister(AbstractIoUringChannel channel) {
-        fdToSocket.remove(channel.fd());
+    public IoUring queueRead(AbstractIoUringChannel channel, ByteBuffer buffer, long offset) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer must be direct");
+        }
+        checkDirectAlignment(channel, buffer, offset);
+        register(channel);
+        long bufferAddress = IoUring.queueRead(ring, channel.fd(), fixedFileIndex(channel), buffer, buffer.position(), buffer.limit() - buffer.position(), offset);
+        trackBuffer(channel.readBufferMap(), buffer, bufferAddress);
+        return this;
+    }
+
+    /**
+     * Registers a ring of {@code count} kernel-provided buffers of {@code bufferSize} bytes each with this ring.
+     *
+     * @param count the number of buffers, must be a power of two
+     * @param bufferSize the size of each buffer
+     * @return the buffer ring
+     */
+    public IoUringBufferRing registerBufferRing(int count, int bufferSize) {
+        if (closed) {
+            throw new IllegalStateException("io_uring closed");
+        }
+        int groupId = bufferRings.size();
+        while (bufferRings.containsKey(groupId)) {
+            groupId++;
+        }
+        IoUringBufferRing bufferRing = new IoUringBufferRing(ring, groupId, count, bufferSize);
+        bufferRings.put(groupId, bufferRing);
+        return bufferRing;
+    }
+
+    /**
+     * Unregisters a buffer ring from this ring. Buffers still held by read handlers must not be used afterwards.
+     *
+     * @param bufferRing the buffer ring
+     * @return this instance
+     */
+    public IoUring unregisterBufferRing(IoUringBufferRing bufferRing) {
+        if (bufferRings.remove(bufferRing.groupId()) != null) {
+            bufferRing.close();
+        }
+        return this;
+    }
+
+    /**
+     * Queues {@link IoUringSocket} for a read operation on the next ring execution, letting the kernel pick a buffer
+     * from {@code bufferRing} once data is ready. The read handler receives the chosen buffer, which must be given back
+     * with {@link IoUringBufferRing#release(ByteBuffer)} when the handler is done with it.
+     *
+     * @param channel the channel
+     * @param bufferRing the buffer ring to select a buffer from
+     * @return this instance
+     */
+    public IoUring queueRead(AbstractIoUringChannel channel, IoUringBufferRing bufferRing) {
+        return queueRead(channel, bufferRing, 0L);
+    }
+
+    /**
+     * Queues {@link IoUringSocket} for a read operation on the next ring execution, letting the kernel pick a buffer
+     * from {@code bufferRing} once data is ready.
+     *
+     * @param channel the channel
+     * @param bufferRing the buffer ring to select a buffer from
+     * @param offset the offset into the file/source of the read; Casted to u64
+     * @return this instance
+     */
+    public IoUring queueRead(AbstractIoUringChannel channel, IoUringBufferRing bufferRing, long offset) {
+        if (bufferRings.get(bufferRing.groupId()) != bufferRing) {
+            throw new IllegalArgumentException("Buffer ring is not registered with this io_uring");
+        }
+        register(channel);
+        IoUring.queueReadProvided(ring, channel.fd(), fixedFileIndex(channel), bufferRing.groupId(), bufferRing.bufferSize(), offset, false);
+        channel.incrementProvidedReadCount();
+        return this;
+    }
+
+    /**
+     * Queues a multishot receive ({@code IORING_RECV_MULTISHOT}) on a socket, which delivers a read callback for
+     * every chunk of data that arrives, each in a buffer picked from {@code bufferRing}, until the peer closes the
+     * connection or the receive is cancelled with {@link #queueCancel(AbstractIoUringChannel)}, which leaves the
+     * socket open. The receive is re-armed if the kernel ends it while the socket is still open, and cancelled when
+     * the socket is closed. If the buffer ring runs dry, the socket's exception handler is told and the receive
+     * resumes as soon as a buffer is released. Queuing it again while it is armed does nothing.
+     *
+     * @param socket the socket
+     * @param bufferRing the buffer ring to select buffers from
+     * @return this instance
+     */
+    public IoUring queueMultishotRead(AbstractIoUringSocket socket, IoUringBufferRing bufferRing) {
+        if (bufferRings.get(bufferRing.groupId()) != bufferRing) {
+            throw new IllegalArgumentException("Buffer ring is not registered with this io_uring");
+        }
+        if (socket.multishotReadRing() != null) {
+            return this;
+        }
+        register(socket);
+        IoUring.queueReadProvided(ring, socket.fd(), fixedFileIndex(socket), bufferRing.groupId(), 0, 0L, true);
+        socket.incrementProvidedReadCount();
+        socket.setMultishotReadRing(this);
+        return this;
+    }
+
+    /**
+     * Queues setting a socket option ({@code IORING_OP_URING_CMD} with {@code SOCKET_URING_OP_SETSOCKOPT}) on the next
+     * ring execution, which saves a system call by going out with the ring's other operations, and works for sockets
+     * accepted into direct descriptors, which have no file descriptor to call {@code setsockopt} on. On kernels before
+     * Linux 6.7 the option is set with a plain {@code setsockopt} instead, right away, or when the first queued attempt
+     * fails as unsupported. Failures, including values the kernel rejects, are reported to the socket's exception
+     * handler.
+     *
+     * @param socket the socket
+     * @param option the option
+     * @param value the value
+     * @param <T> the type of the option's value
+     * @return this instance
+     */
+    public <T> IoUring queueOption(AbstractIoUringSocket socket, IoUringSocketOption<T> option, T value) {
+        return queueOption(socket, option.id(), option.encode(value));
+    }
+
+    IoUring queueOption(AbstractIoUringSocket socket, int option, int value) {
+        if (!queuedOptions && socket.fd() >= 0) {
+            AbstractIoUringSocket.setOption(socket.fd(), option, value);
+            return this;
+        }
+        register(socket);
+        IoUring.queueSetOption(ring, socket.fd(), fixedFileIndex(socket), option, value);
+        return this;
+    }
+
+    /**
+     * Queues a write of the buffer's remaining bytes to a unix socket together with open descriptors
+     * ({@code SCM_RIGHTS}), on the next ring execution. The peer gets its own copies of the descriptors, so this side
+     * may close them as soon as the write handler gets the buffer back.
+     *
+     * @param socket the socket
+     * @param buffer the buffer to send, which must not be empty
+     * @param fds the descriptors to pass, at most 4
+     * @return this instance
+     */
+    public IoUring queueSendDescriptors(IoUringUnixSocket socket, ByteBuffer buffer, int... fds) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer must be direct");
+        }
+        if (!buffer.hasRemaining()) {
+            // descriptors travel with data, so a message without any would be dropped on stream sockets
+            throw new IllegalArgumentException("Buffer must not be empty");
+        }
+        if (fds.length > MAX_PASSED_FDS) {
+            throw new IllegalArgumentException("At most " + MAX_PASSED_FDS + " descriptors can be passed at once");
+        }
+        register(socket);
+        long bufferAddress = IoUring.queueSendDescriptors(ring, socket.fd(), fixedFileIndex(socket), buffer, buffer.position(), buffer.remaining(), fds);
+        trackBuffer(socket.writeBufferMap(), buffer, bufferAddress);
+        return this;
+    }
+
+    /**
+     * Queues a read from a unix socket that also takes any descriptors passed with the data, on the next ring
+     * execution. The socket's {@link IoUringUnixSocket#onDescriptors(java.util.function.BiConsumer) descriptor handler}
+     * gets the buffer and the descriptors, which are opened with {@code O_CLOEXEC}. Descriptors beyond the first 4 of
+     * a message are closed by the kernel.
+     *
+     * @param socket the socket
+     * @param buffer the buffer to read into
+     * @return this instance
+     */
+    public IoUring queueReceiveDescriptors(IoUringUnixSocket socket, ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer must be direct");
+        }
+        register(socket);
+        long bufferAddress = IoUring.queueReceiveDescriptors(ring, socket.fd(), fixedFileIndex(socket), buffer, buffer.position(), buffer.remaining());
+        trackBuffer(socket.readBufferMap(), buffer, bufferAddress);
+        return this;
+    }
+
+    /**
+     * Queues a receive of one datagram into {@code buffer}, from its position up to its limit, on the next ring
+     * execution. The socket's receive handler gets the datagram and its source address, with the buffer's limit set
+     * to the end of the payload. A datagram larger than the space left is truncated.
+     *
+     * @param socket the socket
+     * @param buffer the buffer to receive into
+     * @return this instance
+     */
+    public IoUring queueReceive(IoUringDatagramSocket socket, ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer must be direct");
+        }
+        register(socket);
+        long bufferAddress = IoUring.queueReceive(ring, socket.fd(), fixedFileIndex(socket), buffer, buffer.position(), buffer.remaining());
+        trackBuffer(socket.readBufferMap(), buffer, bufferAddress);
+        return this;
+    }
+
+    /**
+     * Queues a multishot receive ({@code IORING_OP_RECVMSG} with {@code IORING_RECV_MULTISHOT}, Linux >= 6.0) on a
+     * datagram socket, which delivers every datagram that arrives in a buffer picked from {@code bufferRing}, until
+     * it is cancelled with {@link #queueCancel(AbstractIoUringChannel)}. Each buffer must be given back with
+     * {@link IoUringBufferRing#release(ByteBuffer)}. The kernel puts the source address and control data in the buffer
+     * ahead of the payload, so buffers need about 100 bytes on top of the largest datagram expected; longer datagrams
+     * are reported as failed. The receive is re-armed if the kernel ends it while the socket is still open, or once a
+     * buffer is released if the buffer ring ran dry, and queuing it again while it is armed does nothing.
+     *
+     * @param socket the socket
+     * @param bufferRing the buffer ring to select buffers from
+     * @return this instance
+     */
+    public IoUring queueMultishotReceive(IoUringDatagramSocket socket, IoUringBufferRing bufferRing) {
+        if (bufferRings.get(bufferRing.groupId()) != bufferRing) {
+            throw new IllegalArgumentException("Buffer ring is not registered with this io_uring");
+        }
+        if (socket.multishotReadRing() != null) {
+            return this;
+        }
+        register(socket);
+        IoUring.queueReceiveMultishot(ring, socket.fd(), fixedFileIndex(socket), bufferRing.groupId(), bufferRing.buffers(), bufferRing.bufferSize());
+        socket.incrementProvidedReadCount();
+        socket.setMultishotReadRing(this);
+        return this;
+    }
+
+    /**
+     * Queues a send of the buffer's remaining bytes as one datagram on the next ring execution. The socket's write
+     * handler gets the buffer back once it is sent.
+     *
+     * @param socket the socket
+     * @param buffer the buffer to send
+     * @param ipAddress the destination address, or null to send to the address the socket is connected to
+     * @param port the destination port
+     * @return this instance
+     */
+    public IoUring queueSendTo(IoUringDatagramSocket socket, ByteBuffer buffer, String ipAddress, int port) {
+        return queueSendTo(socket, buffer, ipAddress, port, 0);
+    }
+
+    /**
+     * Queues a send of the buffer's remaining bytes on the next ring execution, which the kernel splits into datagrams
+     * of {@code segmentSize} bytes, the last one possibly shorter ({@code UDP_SEGMENT}, Linux >= 4.18). Sending many
+     * datagrams with one operation saves a trip through the network stack per datagram. At most 64 segments fit in
+     * one send, and the buffer must not exceed 64 KiB.
+     *
+     * @param socket the socket
+     * @param buffer the buffer to send
+     * @param ipAddress the destination address, or null to send to the address the socket is connected to
+     * @param port the destination port
+     * @param segmentSize the size of each datagram, or 0 to send the buffer as a single datagram
+     * @return this instance
+     */
+    public IoUring queueSendTo(IoUringDatagramSocket socket, ByteBuffer buffer, String ipAddress, int port, int segmentSize) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer must be direct");
+        }
+        if (segmentSize < 0 || segmentSize > 0xFFFF) {
+            throw new IllegalArgumentException("Segment size must be between 0 and 65535");
+        }
+        if (ipAddress == null && !socket.isConnected()) {
+            throw new IllegalArgumentException("Destination required for a socket that is not connected");
+        }
+        register(socket);
+        long bufferAddress = IoUring.queueSendTo(ring, socket.fd(), fixedFileIndex(socket), buffer, buffer.position(),
+            buffer.remaining(), ipAddress, port, socket.isIpv6(), segmentSize);
+        trackBuffer(socket.writeBufferMap(), buffer, bufferAddress);
+        return this;
+    }
+
+    private void rearmMultishotRead(AbstractIoUringSocket socket, IoUringBufferRing bufferRing) {
+        if (socket.isClosed() || bufferRings.get(bufferRing.groupId()) != bufferRing) {
+            return;
+        }
+        try {
+            if (socket instanceof IoUringDatagramSocket) {
+                queueMultishotReceive((IoUringDatagramSocket) socket, bufferRing);
+            } else {
+                queueMultishotRead(socket, bufferRing);
+            }
+        } catch (RuntimeException ex) {
+            if (socket.exceptionHandler() != null) {
+                socket.exceptionHandler().accept(ex);
+            }
+        }
+    }
+
+    /**
+     * Queues {@link IoUringSocket} for a write operation on the next ring execution.
+     *
+     * @param channel the channel
+     * @return this instance
+     */
+    public IoUring queueWrite(AbstractIoUringChannel channel, ByteBuffer buffer) {
+        return queueWrite(channel, buffer, 0L);
+    }
+
+    /**
+     * Queues {@link IoUringSocket} for a write operation on the next ring execution.
+     *
+     * @param channel the channel
+     * @param offset the offset into the file/source of the write; Casted to u64
+     * @return this instance
+     */
+    public IoUring queueWrite(AbstractIoUringChannel channel, ByteBuffer buffer, long offset) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer must be direct");
+        }
+        checkDirectAlignment(channel, buffer, offset);
+        register(channel);
+        long bufferAddress = IoUring.queueWrite(ring, channel.fd(), fixedFileIndex(channel), buffer, buffer.position(), buffer.limit() - buffer.position(), offset);
+        trackBuffer(channel.writeBufferMap(), buffer, bufferAddress);
+        return this;
+    }
+
+    /**
+     * Queues a zero-copy send ({@code IORING_OP_SEND_ZC}, Linux >= 6.0) on the next ring execution. The kernel sends
+     * straight from the buffer's pages instead of copying them into socket memory, which pays off for large writes
+     * like file downloads. The buffer must not be modified until the write handler gets it back, which only happens
+     * once the kernel has released it, possibly well after the data was sent.
+     * <p>
+     * Buffers with fewer remaining bytes than the {@link #zeroCopyThreshold(int) threshold} are written with a regular
+     * {@link #queueWrite(AbstractIoUringChannel, ByteBuffer)}, as are all buffers on kernels without zero-copy sends,
+     * which the ring checks for once when it is created.
+     *
+     * @param socket the socket
+     * @param buffer the buffer to send from
+     * @return this instance
+     */
+    public IoUring queueSendZeroCopy(AbstractIoUringSocket socket, ByteBuffer buffer) {
+        if (buffer.remaining() < zeroCopyThreshold || !zeroCopySends) {
+            return queueWrite(socket, buffer);
+        }
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer must be direct");
+        }
+        register(socket);
+        long bufferAddress = IoUring.queueSendZeroCopy(ring, socket.fd(), fixedFileIndex(socket), buffer, buffer.position(), buffer.remaining());
+        trackBuffer(socket.writeBufferMap(), buffer, bufferAddress);
+        return this;
+    }
+
+    /**
+     * Sets the size below which {@link #queueSendZeroCopy(AbstractIoUringSocket, ByteBuffer)} copies instead. Pinning
+     * pages and waiting for the extra notification costs more than copying a small buffer. Defaults to 16 KiB.
+     *
+     * @param zeroCopyThreshold the threshold in bytes
+     * @return this instance
+     */
+    public IoUring zeroCopyThreshold(int zeroCopyThreshold) {
+        if (zeroCopyThreshold < 0) {
+            throw new IllegalArgumentException("Zero-copy threshold must not be negative");
+        }
+        this.zeroCopyThreshold = zeroCopyThreshold;
+        return this;
+    }
+
+    /**
+     * Queues a vectored read ({@code IORING_OP_READV}, or {@code IORING_OP_RECVMSG} for sockets) filling the buffers
+     * in order, on the next ring execution. Completion is reported once for the whole array, to the channel's
+     * {@link AbstractIoUringChannel#onReadv} handler.
+     *
+     * @param channel the channel
+     * @param buffers the buffers to read into, at most 8
+     * @return this instance
+     */
+    public IoUring queueReadv(AbstractIoUringChannel channel, ByteBuffer... buffers) {
+        return queueReadv(channel, buffers, 0L);
+    }
+
+    /**
+     * Queues a vectored read at an offset on the next ring execution. See {@link #queueReadv(AbstractIoUringChannel, ByteBuffer...)}.
+     *
+     * @param channel the channel
+     * @param buffers the buffers to read into, at most 8
+     * @param offset the offset into the file/source of the read; Casted to u64
+     * @return this instance
+     */
+    public IoUring queueReadv(AbstractIoUringChannel channel, ByteBuffer[] buffers, long offset) {
+        return queueVectored(channel, buffers, offset, true);
+    }
+
+    /**
+     * Queues a vectored write ({@code IORING_OP_WRITEV}, or {@code IORING_OP_SENDMSG} for sockets) draining the
+     * buffers in order, on the next ring execution. A header and a body go out in one operation with one completion,
+     * reported to the channel's {@link AbstractIoUringChannel#onWritev} handler.
+     *
+     * @param channel the channel
+     * @param buffers the buffers to write from, at most 8
+     * @return this instance
+     */
+    public IoUring queueWritev(AbstractIoUringChannel channel, ByteBuffer... buffers) {
+        return queueWritev(channel, buffers, 0L);
+    }
+
+    /**
+     * Queues a vectored write at an offset on the next ring execution. See {@link #queueWritev(AbstractIoUringChannel, ByteBuffer...)}.
+     *
+     * @param channel the channel
+     * @param buffers the buffers to write from, at most 8
+     * @param offset the offset into the file/destination of the write; Casted to u64
+     * @return this instance
+     */
+    public IoUring queueWritev(AbstractIoUringChannel channel, ByteBuffer[] buffers, long offset) {
+        return queueVectored(channel, buffers, offset, false);
+    }
+
+    private IoUring queueVectored(AbstractIoUringChannel channel, ByteBuffer[] buffers, long offset, boolean read) {
+        if (buffers.length == 0 || buffers.length > MAX_IOVECS) {
+            throw new IllegalArgumentException("Expected 1 to " + MAX_IOVECS + " buffers, got " + buffers.length);
+        }
+        for (int i = 0; i < buffers.length; i++) {
+            if (!buffers[i].isDirect()) {
+                throw new IllegalArgumentException("Buffer must be direct");
+            }
+            checkDirectAlignment(channel, buffers[i], offset);
+            vectorPositions[i] = buffers[i].position();
+            vectorLengths[i] = buffers[i].remaining();
+        }
+        register(channel);
+        boolean message = channel instanceof AbstractIoUringSocket;
+        int index = read
+            ? IoUring.queueReadv(ring, channel.fd(), fixedFileIndex(channel), buffers, vectorPositions, vectorLengths, offset, message)
+            : IoUring.queueWritev(ring, channel.fd(), fixedFileIndex(channel), buffers, vectorPositions, vectorLengths, offset, message);
+        vectors.put(index, buffers);
+        channel.incrementVectoredCount(read);
+        return this;
+    }
+
+    /**
+     * Registers a set of direct buffers with the kernel so their pages stay pinned and mapped for the lifetime of the
+     * registration. Registered buffers are addressed by their index in {@code buffers} with
+     * {@link #queueReadFixed(AbstractIoUringChannel, int)} and {@link #queueWriteFixed(AbstractIoUringChannel, int)}.
+     * Any previous registration is replaced.
+     *
+     * @param buffers the buffers to register
+     * @return this instance
+     */
+    public IoUring registerBuffers(ByteBuffer... buffers) {
+        for (ByteBuffer buffer : buffers) {
+            if (!buffer.isDirect()) {
+                throw new IllegalArgumentException("Buffer must be direct");
+            }
+        }
+        if (registeredBuffers != null) {
+            unregisterBuffers();
+        }
+        IoUring.registerBuffers(ring, buffers);
+        registeredBuffers = buffers.clone();
+        return this;
+    }
+
+    /**
+     * Unregisters the buffers previously registered with {@link #registerBuffers(ByteBuffer...)}.
+     *
+     * @return this instance
+     */
+    public IoUring unregisterBuffers() {
+        if (registeredBuffers == null) {
+            throw new IllegalStateException("No buffers registered");
+        }
+        IoUring.unregisterBuffers(ring);
+        registeredBuffers = null;
+        return this;
+    }
+
+    /**
+     * Queues {@link IoUringSocket} for a read operation into a registered buffer on the next ring execution.
+     *
+     * @param channel the channel
+     * @param bufferIndex the index of the registered buffer to read into
+     * @return this instance
+     */
+    public IoUring queueReadFixed(AbstractIoUringChannel channel, int bufferIndex) {
+        return queueReadFixed(channel, bufferIndex, 0L);
+    }
+
+    /**
+     * Queues {@link IoUringSocket} for a read operation into a registered buffer on the next ring execution.
+     *
+     * @param channel the channel
+     * @param bufferIndex the index of the registered buffer to read into
+     * @param offset the offset into the file/source of the read; Casted to u64
+     * @return this instance
+     */
+    public IoUring queueReadFixed(AbstractIoUringChannel channel, int bufferIndex, long offset) {
+        ByteBuffer buffer = registeredBuffer(bufferIndex);
+        checkDirectAlignment(channel, buffer, offset);
+        register(channel);
+        long bufferAddress = IoUring.queueReadFixed(ring, channel.fd(), fixedFileIndex(channel), buffer, buffer.position(), buffer.limit() - buffer.position(), offset, bufferIndex);
+        trackBuffer(channel.readBufferMap(), buffer, bufferAddress);
+        return this;
+    }
+
+    /**
+     * Queues {@link IoUringSocket} for a write operation from a registered buffer on the next ring execution.
+     *
+     * @param channel the channel
+     * @param bufferIndex the index of the registered buffer to write from
+     * @return this instance
+     */
+    public IoUring queueWriteFixed(AbstractIoUringChannel channel, int bufferIndex) {
+        return queueWriteFixed(channel, bufferIndex, 0L);
+    }
+
+    /**
+     * Queues {@link IoUringSocket} for a write operation from a registered buffer on the next ring execution.
+     *
+     * @param channel the channel
+     * @param bufferIndex the index of the registered buffer to write from
+     * @param offset the offset into the file/source of the write; Casted to u64
+     * @return this instance
+     */
+    public IoUring queueWriteFixed(AbstractIoUringChannel channel, int bufferIndex, long offset) {
+        ByteBuffer buffer = registeredBuffer(bufferIndex);
+        checkDirectAlignment(channel, buffer, offset);
+        register(channel);
+        long bufferAddress = IoUring.queueWriteFixed(ring, channel.fd(), fixedFileIndex(channel), buffer, buffer.position(), buffer.limit() - buffer.position(), offset, bufferIndex);
+        trackBuffer(channel.writeBufferMap(), buffer, bufferAddress);
+        return this;
+    }
+
+    /**
+     * Queues an {@code fsync} of a file on the next ring execution, flushing its data and metadata to stable storage.
+     * Completion is reported to the file's {@link IoUringFile#onSync(Runnable)} handler. The sync only covers writes
+     * that completed before it started, so link it behind a write with {@link IoUringChain#fsync(IoUringFile)} rather
+     * than queuing both at once.
+     *
+     * @param file the file
+     * @return this instance
+     */
+    public IoUring queueFsync(IoUringFile file) {
+        register(file);
+        IoUring.queueFsync(ring, file.fd(), fixedFileIndex(file), false);
+        file.incrementSyncCount();
+        return this;
+    }
+
+    /**
+     * Queues an {@code fdatasync} of a file on the next ring execution. Like {@link #queueFsync(IoUringFile)}, but
+     * skips metadata that is not needed to read the data back, such as timestamps, which usually saves a journal
+     * write.
+     *
+     * @param file the file
+     * @return this instance
+     */
+    public IoUring queueFdatasync(IoUringFile file) {
+        register(file);
+        IoUring.queueFsync(ring, file.fd(), fixedFileIndex(file), true);
+        file.incrementSyncCount();
+        return this;
+    }
+
+    /**
+     * Queues a {@code sync_file_range} on the next ring execution, acting on the dirty pages of part of a file.
+     * Completion is reported to the file's {@link IoUringFile#onSync(Runnable)} handler. It never flushes metadata or
+     * the disk's write cache, so it is no durability guarantee on its own; use it to start writeback early, e.g.
+     * {@link IoUringFile#SYNC_FILE_RANGE_WRITE} behind a large write, so a later {@code fdatasync} has less to do.
+     *
+     * @param file the file
+     * @param offset the start of the range
+     * @param length the length of the range, or {@code 0} for everything up to the end of the file
+     * @param flags a combination of the {@code IoUringFile.SYNC_FILE_RANGE_*} flags
+     * @return this instance
+     */
+    public IoUring queueSyncFileRange(IoUringFile file, long offset, int length, int flags) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Offset and length must not be negative");
+        }
+        register(file);
+        IoUring.queueSyncFileRange(ring, file.fd(), fixedFileIndex(file), offset, length, flags);
+        file.incrementSyncCount();
+        return this;
+    }
+
+    /**
+     * Queues an {@code fallocate} on the next ring execution, reserving disk space for part of a file so later writes
+     * into it cannot fail for lack of space and need not allocate blocks. Completion is reported to the file's
+     * {@link IoUringFile#onAllocate(Runnable)} handler.
+     *
+     * @param file the file
+     * @param mode {@code 0} to extend the file size as well, or a combination of the {@code IoUringFile.FALLOC_FL_*}
+     *             flags
+     * @param offset the start of the range
+     * @param length the length of the range
+     * @return this instance
+     */
+    public IoUring queueFallocate(IoUringFile file, int mode, long offset, long length) {
+        if (offset < 0 || length <= 0) {
+            throw new IllegalArgumentException("Offset must not be negative and length must be positive");
+        }
+        register(file);
+        IoUring.queueFallocate(ring, file.fd(), fixedFileIndex(file), mode, offset, length);
+        file.incrementSyncCount();
+        return this;
+    }
+
+    /**
+     * Queues an {@code fadvise} on the next ring execution, telling the kernel how part of a file is about to be
+     * accessed, e.g. {@link IoUringFile#POSIX_FADV_SEQUENTIAL} for a larger readahead window or
+     * {@link IoUringFile#POSIX_FADV_WILLNEED} to start reading ahead right away. Being a hint, its result is ignored.
+     *
+     * @param file the file
+     * @param offset the start of the range
+     * @param length the length of the range, or {@code 0} for everything up to the end of the file
+     * @param advice one of the {@code IoUringFile.POSIX_FADV_*} constants
+     * @return this instance
+     */
+    public IoUring queueFadvise(IoUringFile file, long offset, int length, int advice) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Offset and length must not be negative");
+        }
+        IoUring.queueFadvise(ring, file.fd(), fixedFileIndex(file), offset, length, advice);
+        return this;
+    }
+
+    /**
+     * Queues an {@code IORING_OP_CLOSE} of a descriptor no channel on this ring refers to anymore, so the close runs
+     * on a kernel worker instead of blocking the ring's thread, e.g. on the final flush of a file on a network file
+     * system. Sockets are shut down for writing first, with a linked {@code IORING_OP_SHUTDOWN}. Only done if the ring
+     * has free slots and no polling thread, which could still be submitting the close when the ring is closed.
+     *
+     * @param fd the file descriptor
+     * @param shutdown whether to shut the descriptor down for writing first
+     * @return whether the close was queued; if not, the caller must close the descriptor itself
+     */
+    boolean queueCloseDetached(int fd, boolean shutdown) {
+        if (closed || sqPoll || IoUring.requestsAvailable(ring) < (shutdown ? 2 : 1)) {
+            return false;
+        }
+        IoUring.queueCloseDetached(ring, fd, shutdown);
+        unsubmittedCloses.add(fd);
+        return true;
+    }
+
+    /**
+     * Queues an open of a file ({@code IORING_OP_OPENAT}) on the next ring execution, so a slow path lookup, e.g. on a
+     * network file system or with a cold dentry cache, blocks a kernel worker instead of the ring's thread. The opened
+     * file is passed to the handler; if the open fails, the ring's exception handler is called instead. Relative paths
+     * are resolved against the working directory.
+     *
+     * @param path the path to the file
+     * @param options the open options
+     * @param openHandler the handler receiving the opened file
+     * @return this instance
+     */
+    public IoUring queueOpen(String path, IoUringFileOptions options, Consumer<IoUringFile> openHandler) {
+        // requests without options are statx requests
+        Objects.requireNonNull(options, "options");
+        PathRequest request = new PathRequest(path, options, openHandler, null, null);
+        queuePathRequest(request);
+        return this;
+    }
+
+    /**
+     * Queues opens of many files, keeping at most half of the ring's free submission slots busy with them and queuing
+     * the rest as earlier opens complete, so a large batch neither overflows the ring nor crowds out other operations.
+     * See {@link #queueOpen(String, IoUringFileOptions, Consumer)}.
+     *
+     * @param paths the paths to the files
+     * @param options the open options, shared by every file
+     * @param openHandler the handler receiving each opened file
+     * @return this instance
+     */
+    public IoUring queueOpen(String[] paths, IoUringFileOptions options, Consumer<IoUringFile> openHandler) {
+        Objects.requireNonNull(options, "options");
+        new PathBatch(paths, options, openHandler, null).start();
+        return this;
+    }
+
+    /**
+     * Queues a {@code statx} of a file ({@code IORING_OP_STATX}) on the next ring execution. The handler receives the
+     * file's metadata, or the error if there is none, e.g. for a missing file.
+     *
+     * @param path the path to the file
+     * @param statHandler the handler receiving the metadata
+     * @return this instance
+     */
+    public IoUring queueStatx(String path, Consumer<IoUringStat> statHandler) {
+        PathRequest request = new PathRequest(path, null, null, statHandler, null);
+        queuePathRequest(request);
+        return this;
+    }
+
+    /**
+     * Queues {@code statx} of many files, for example to warm a static file server's metadata cache, in windows like
+     * {@link #queueOpen(String[], IoUringFileOptions, Consumer)}.
+     *
+     * @param paths the paths to the files
+     * @param statHandler the handler receiving the metadata of each file
+     * @return this instance
+     */
+    public IoUring queueStatx(String[] paths, Consumer<IoUringStat> statHandler) {
+        new PathBatch(paths, null, null, statHandler).start();
+        return this;
+    }
+
+    private static byte[] pathBytes(String path) {
+        byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        // the path is passed to the kernel NUL terminated
+        if (pathBytes.length >= PATH_BUFFER_SIZE - PATH_OFFSET) {
+            throw new IllegalArgumentException("Path too long: " + path);
+        }
+        return pathBytes;
+    }
+
+    private void queuePathRequest(PathRequest request) {
+        byte[] pathBytes = pathBytes(request.path);
+        ByteBuffer buffer = pathBuffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(PATH_BUFFER_SIZE).order(ByteOrder.nativeOrder());
+        }
+        buffer.clear();
+        buffer.position(PATH_OFFSET);
+        buffer.put(pathBytes).put((byte) 0);
+        long bufferAddress;
+        try {
+            bufferAddress = request.options != null
+                ? IoUring.queueOpen(ring, buffer, request.options.flags(), request.options.mode())
+                : IoUring.queueStatx(ring, buffer);
+        } catch (RuntimeException ex) {
+            pathBuffers.push(buffer);
+            throw ex;
+        }
+        request.buffer = buffer;
+        pathRequests.put(bufferAddress, request);
+    }
+
+    private void handlePathCompletion(long bufferAddress, int result) {
+        PathRequest request = pathRequests.remove(bufferAddress);
+        if (request == null) {
+            return;
+        }
+        try {
+            if (request.statHandler != null) {
+                request.statHandler.accept(new IoUringStat(request.path, result, request.buffer));
+            } else if (result < 0) {
+                throw new RuntimeException("Open of " + request.path + " failed with result: " + result);
+            } else {
+                request.openHandler.accept(new IoUringFile(result, request.options));
+            }
+        } finally {
+            pathBuffers.push(request.buffer);
+            if (request.batch != null) {
+                request.batch.queueNext();
+            }
+        }
+    }
+
+    private static void checkDirectAlignment(AbstractIoUringChannel channel, ByteBuffer buffer, long offset) {
+        if (channel instanceof IoUringFile) {
+            ((IoUringFile) channel).checkDirectAlignment(buffer, offset);
+        }
+    }
+
+    private ByteBuffer registeredBuffer(int bufferIndex) {
+        if (registeredBuffers == null) {
+            throw new IllegalStateException("No buffers registered");
+        }
+        if (bufferIndex < 0 || bufferIndex >= registeredBuffers.length) {
+            throw new IndexOutOfBoundsException("Registered buffer index " + bufferIndex + " out of range");
+        }
+        return registeredBuffers[bufferIndex];
+    }
+
+    private static void trackBuffer(LongObjectHashMap<ReferenceCounter<ByteBuffer>> bufferMap, ByteBuffer buffer, long bufferAddress) {
+        ReferenceCounter<ByteBuffer> refCounter = bufferMap.get(bufferAddress);
+        if (refCounter == null) {
+            refCounter = new ReferenceCounter<>(buffer);
+            bufferMap.put(bufferAddress, refCounter);
+        }
+        refCounter.incrementReferenceCount();
+    }
+
+    public IoUring queueClose(AbstractIoUringChannel channel) {
+        if (channel.fixedFileRing() == this && channel.fd() < 0) {
+            int fixedFileIndex = channel.fixedFileIndex();
+            releaseFileSlot(channel);
+            IoUring.queueClose(ring, channel.fd(), fixedFileIndex);
+            return this;
+        }
+        if (channel.fixedFileRing() != null) {
+            channel.fixedFileRing().unregisterFile(channel);
+        }
+        IoUring.queueClose(ring, channel.fd(), -1);
+        return this;
+    }
+
+    /**
+     * Queues cancellation of every in-flight operation on a channel, such as a multishot accept. Cancelled operations
+     * complete with {@code -ECANCELED}.
+     *
+     * @param channel the channel
+     * @return this instance
+     */
+    public IoUring queueCancel(AbstractIoUringChannel channel) {
+        IoUring.queueCancel(ring, channel.fd(), fixedFileIndex(channel));
+        return this;
+    }
+
+    /**
+     * Registers a sparse table of {@code count} fixed files with this ring. The lower half of the table is used by
+     * {@link #registerFile(AbstractIoUringChannel)}, the upper half is left to the kernel for sockets accepted from
+     * an {@link IoUringServerSocket} with direct descriptors enabled.
+     *
+     * @param count the size of the fixed file table
+     * @return this instance
+     */
+    public IoUring registerFiles(int count) {
+        if (freeFileSlots != null) {
+            throw new IllegalStateException("Files already registered");
+        }
+        if (count < 2) {
+            throw new IllegalArgumentException("File table must have at least two slots");
+        }
+        manualFileSlots = count / 2;
+        IoUring.registerFiles(ring, count, manualFileSlots);
+        freeFileSlots = new IntArrayStack();
+        for (int i = manualFileSlots - 1; i >= 0; i--) {
+            freeFileSlots.push(i);
+        }
+        return this;
+    }
+
+    /**
+     * Installs a channel into a free slot of this ring's fixed file table. Operations queued on this ring for the
+     * channel then skip the per-operation file descriptor lookup in the kernel.
+     *
+     * @param channel the channel
+     * @return this instance
+     */
+    public IoUring registerFile(AbstractIoUringChannel channel) {
+        if (freeFileSlots == null) {
+            throw new IllegalStateException("No file table registered");
+        }
+        if (channel.isFixedFile()) {
+            throw new IllegalStateException("Channel already registered");
+        }
+        if (freeFileSlots.isEmpty()) {
+            throw new IllegalStateException("File table full");
+        }
+        int fixedFileIndex = freeFileSlots.pop();
+        try {
+            IoUring.updateFile(ring, fixedFileIndex, channel.fd());
+        } catch (RuntimeException ex) {
+            freeFileSlots.push(fixedFileIndex);
+            throw ex;
+        }
+        channel.setFixedFile(this, fixedFileIndex);
+        return this;
+    }
+
+    /**
+     * Removes a channel from this ring's fixed file table.
+     *
+     * @param channel the channel
+     * @return this instance
+     */
+    public IoUring unregisterFile(AbstractIoUringChannel channel) {
+        if (channel.fixedFileRing() != this) {
+            throw new IllegalArgumentException("Channel is not registered with this io_uring");
+        }
+        int fixedFileIndex = channel.fixedFileIndex();
+        releaseFileSlot(channel);
+        if (!closed) {
+            IoUring.updateFile(ring, fixedFileIndex, -1);
+        }
+        return this;
+    }
+
+    /**
+     * Removes a channel from this ring's fixed file table once the ring's next submission has gone out, so operations
+     * already queued against its fixed file index, e.g. a cancel queued by {@link AbstractIoUringChannel#close()}, still
+     * find it. The slot is not handed out again until then.
+     *
+     * @param channel the channel
+     */
+    void unregisterFileAfterSubmit(AbstractIoUringChannel channel) {
+        if (channel.fixedFileRing() != this) {
+            throw new IllegalArgumentException("Channel is not registered with this io_uring");
+        }
+        unsubmittedUnregisters.add(channel.fixedFileIndex());
+        channel.setFixedFile(null, -1);
+    }
+
+    private void unregisterSubmittedFiles() {
+        for (int i = 0; i < unsubmittedUnregisters.size(); i++) {
+            int fixedFileIndex = unsubmittedUnregisters.get(i);
+            IoUring.updateFile(ring, fixedFileIndex, -1);
+            if (fixedFileIndex < manualFileSlots) {
+                freeFileSlots.push(fixedFileIndex);
+            }
+        }
+        unsubmittedUnregisters.clear();
+    }
+
+    private void releaseFileSlot(AbstractIoUringChannel channel) {
+        int fixedFileIndex = channel.fixedFileIndex();
+        if (fixedFileIndex < manualFileSlots) {
+            freeFileSlots.push(fixedFileIndex);
+        }
+        channel.setFixedFile(null, -1);
+    }
+
+    private int fixedFileIndex(AbstractIoUringChannel channel) {
+        if (channel.fixedFileRing() != this) {
+            if (channel.fd() < 0) {
+                throw new IllegalArgumentException("Direct descriptor belongs to another io_uring");
+            }
+            return -1;
+        }
+        return channel.fixedFileIndex();
+    }
+
+    /**
+     * Gets the exception handler.
+     *
+     * @return the exception handler
+     */
+    Consumer<Exception> exceptionHandler() {
+        return exceptionHandler;
+    }
+
+    /**
+     * Sets the handler that is called when an {@code Exception} is caught during execution.
+     *
+     * @param exceptionHandler the exception handler
+     */
+    public IoUring onException(Consumer<Exception> exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+        return this;
+    }
+
+    /**
+     * Checks if the ring is open.
+     *
+     * @return true if the ring has not been closed
+     */
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Submits queued operations right away instead of on the next ring execution, e.g. a cancel that has to reach the
+     * kernel while the channel's descriptor is still valid.
+     */
+    void submitNow() {
+        if (enabled) {
+            IoUring.submit(ring);
+        }
+    }
+
+    /**
+     * Register this channel with the ring so completions for it can be dispatched.
+     *
+     * @param channel the channel
+     */
+    void register(AbstractIoUringChannel channel) {
+        fdToSocket.put(channel.fd(), channel);
+        channel.setRing(this);
+    }
+
+    /**
+     * Deregister this channel from the ring.
+     *
+     * @param channel the channel
+     */
+    void deregister(AbstractIoUringChannel channel) {
+        fdToSocket.remove(channel.fd());
+    }
+
+    private static final class Transfer {
+        private final long id;
+        private final IoUringSocket socket;
+        private final IoUring target;
+        private final int fixedFileIndex;
+        private volatile boolean abandoned = false;
+
+        Transfer(long id, IoUringSocket socket, IoUring target, int fixedFileIndex) {
+            this.id = id;
+            this.socket = socket;
+            this.target = target;
+            this.fixedFileIndex = fixedFileIndex;
+        }
+    }
+
+    private static final class FileTransfer {
+        private final int id;
+        private final IoUringFile file;
+        private final AbstractIoUringSocket socket;
+        private final long pipe;
+        private long offset;
+        private long remaining;
+        private int buffered;
+        private long sent;
+        private int result;
+
+        FileTransfer(int id, IoUringFile file, AbstractIoUringSocket socket, long offset, long length, long pipe) {
+            this.id = id;
+            this.file = file;
+            this.socket = socket;
+            this.offset = offset;
+            this.remaining = length;
+            this.pipe = pipe;
+        }
+
+        long tag() {
+            return ((long) id << 4) | FILE_TRANSFER_TAG;
+        }
+    }
+
+    private static final class PathRequest {
+        private final String path;
+        private final IoUringFileOptions options;
+        private final Consumer<IoUringFile> openHandler;
+        private final Consumer<IoUringStat> statHandler;
+        private final PathBatch batch;
+        private ByteBuffer buffer;
+
+        PathRequest(String path, IoUringFileOptions options, Consumer<IoUringFile> openHandler,
+                    Consumer<IoUringStat> statHandler, PathBatch batch) {
+            this.path = path;
+            this.options = options;
+            this.openHandler = openHandler;
+            this.statHandler = statHandler;
+            this.batch = batch;
+        }
+    }
+
+    private final class PathBatch {
+        private final String[] paths;
+        private final IoUringFileOptions options;
+        private final Consumer<IoUringFile> openHandler;
+        private final Consumer<IoUringStat> statHandler;
+        private int next = 0;
+
+        PathBatch(String[] paths, IoUringFileOptions options, Consumer<IoUringFile> openHandler,
+                  Consumer<IoUringStat> statHandler) {
+            this.paths = paths;
+            this.options = options;
+            this.openHandler = openHandler;
+            this.statHandler = statHandler;
+        }
+
+        void start() {
+            // a bad path would otherwise only surface once part of the batch has run
+            for (String path : paths) {
+                pathBytes(path);
+            }
+            int window = Math.max(1, IoUring.requestsAvailable(ring) / 2);
+            for (int i = 0; i < window && next < paths.length; i++) {
+                queueNext();
+            }
+        }
+
+        void queueNext() {
+            if (next < paths.length && !closed) {
+                String path = paths[next++];
+                queuePathRequest(new PathRequest(path, options, openHandler, statHandler, this));
+            }
+        }
+    }
+
+    private static class WakeupChannel extends AbstractIoUringChannel {
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(8);
+
+        WakeupChannel(int fd) {
+            super(fd);
+            onRead(in -> {
+                // the read resets the eventfd counter, so keep one queued for the next signal
+                if (ring().isOpen()) {
+                    buffer.clear();
+                    ring().queueRead(this, buffer);
+                }
+            });
+        }
     }
 
-    private static native long create(int maxEvents);
+    private static native long create(int maxEvents, int flags, int cqEntries, int sqThreadIdle, int sqThreadCpu);
+    private static native boolean isSupported(long ring, int opcode);
+    private static native void enable(long ring);
+    private static native int createEventFd();
+    private static native void signalEventFd(int eventFd);
     private static native void close(long ring);
     private static native long createCqes(int count);
     private static native void freeCqes(long cqes);
+    private static native void submit(long ring);
     private static native int submitAndGetCqes(long ring, ByteBuffer buffer, long cqes, int cqesSize, boolean shouldWait);
-    private static native String getCqeIpAddress(long cqes, int cqeIndex);
-    private static native void markCqeSeen(long ring, long cqes, int cqeIndex);
-    private static native void queueAccept(long ring, int serverSocketFd);
-    private static native void queueConnect(long ring, int socketFd, String ipAddress, int port);
-    private static native long queueRead(long ring, int channelFd, ByteBuffer buffer, int bufferPos, int bufferLen, long offset);
-    private static native long queueWrite(long ring, int channelFd, ByteBuffer buffer, int bufferPos, int bufferLen, long offset);
-    private static native void queueClose(long ring, int channelFd);
+    private static native void queueAccept(long ring, int serverSocketFd, int fixedFileIndex, boolean direct, boolean multishot);
+    private static native void queueConnect(long ring, int socketFd, int fixedFileIndex, String ipAddress, int port);
+    private static native long queueRead(long ring, int channelFd, int fixedFileIndex, ByteBuffer buffer, int bufferPos, int bufferLen, long offset);
+    private static native void queueReadProvided(long ring, int channelFd, int fixedFileIndex, int bufferGroup, int bufferLen, long offset, boolean multishot);
+    private static native long queueWrite(long ring, int channelFd, int fixedFileIndex, ByteBuffer buffer, int bufferPos, int bufferLen, long offset);
+    private static native long queueSendZeroCopy(long ring, int channelFd, int fixedFileIndex, ByteBuffer buffer, int bufferPos, int bufferLen);
+    private static native void queueSetOption(long ring, int channelFd, int fixedFileIndex, int option, int value);
+    private static native void queueConnectUnix(long ring, int socketFd, int fixedFileIndex, byte[] address);
+    private static native long queueSendDescriptors(long ring, int channelFd, int fixedFileIndex, ByteBuffer buffer, int bufferPos, int bufferLen, int[] fds);
+    private static native long queueReceiveDescriptors(long ring, int channelFd, int fixedFileIndex, ByteBuffer buffer, int bufferPos, int bufferLen);
+    private static native long queueReceive(long ring, int channelFd, int fixedFileIndex, ByteBuffer buffer, int bufferPos, int bufferLen);
+    private static native void queueReceiveMultishot(long ring, int channelFd, int fixedFileIndex, int bufferGroup, ByteBuffer buffers, int bufferSize);
+    private static native long queueSendTo(long ring, int channelFd, int fixedFileIndex, ByteBuffer buffer, int bufferPos, int bufferLen, String ipAddress, int port, boolean ipv6, int segmentSize);
+    private static native void queueSplice(long ring, int fdIn, int fdOut, int length, long tag, boolean pollFirst);
+    private static native void queueSpliceFile(long ring, int fileFd, long offset, long pipe, int socketFd, int length, long tag);
+    private static native int queueReadv(long ring, int channelFd, int fixedFileIndex, ByteBuffer[] buffers, int[] positions, int[] lengths, long offset, boolean message);
+    private static native int queueWritev(long ring, int channelFd, int fixedFileIndex, ByteBuffer[] buffers, int[] positions, int[] lengths, long offset, boolean message);
+    private static native long queueReadFixed(long ring, int channelFd, int fixedFileIndex, ByteBuffer buffer, int bufferPos, int bufferLen, long offset, int bufferIndex);
+    private static native long queueWriteFixed(long ring, int channelFd, int fixedFileIndex, ByteBuffer buffer, int bufferPos, int bufferLen, long offset, int bufferIndex);
+    private static native void registerBuffers(long ring, ByteBuffer[] buffers);
+    private static native void unregisterBuffers(long ring);
+    private static native void registerFiles(long ring, int count, int allocOffset);
+    private static native void updateFile(long ring, int fixedFileIndex, int fd);
+    private static native void queueClose(long ring, int channelFd, int fixedFileIndex);
+    private static native void queueCancel(long ring, int channelFd, int fixedFileIndex);
+    private static native void queueFadvise(long ring, int channelFd, int fixedFileIndex, long offset, int length, int advice);
+    private static native void queueCloseDetached(long ring, int fd, boolean shutdown);
+    private static native long queueOpen(long ring, ByteBuffer pathBuffer, int options, int mode);
+    private static native long queueStatx(long ring, ByteBuffer pathBuffer);
+    private static native void queueFsync(long ring, int channelFd, int fixedFileIndex, boolean dataOnly);
+    private static native void queueSyncFileRange(long ring, int channelFd, int fixedFileIndex, long offset, int length, int flags);
+    private static native void queueFallocate(long ring, int channelFd, int fixedFileIndex, int mode, long offset, long length);
+    private static native void queueTransfer(long ring, long targetRing, int channelFd, int fixedFileIndex, long transferId);
+    private static native int requestsAvailable(long ring);
+    private static native void linkLast(long ring, int link, int sqeFlags);
+    private static native void queueLinkTimeout(long ring, long timeoutNanos);
+    private static native long queueTimeout(long ring, long timeoutNanos, int timerId, boolean multishot);
+    private static native void queueTimeoutRemove(long ring, long timeoutUserData);
 
     static {
         NativeLibraryLoader.load();
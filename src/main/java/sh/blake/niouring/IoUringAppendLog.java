@@ -0,0 +1,293 @@
+package sh.blake.niouring;
+
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * An append-only log on an {@link IoUringFile}, for write-ahead logs and similar. Records are appended at an offset the
+ * log tracks itself, and are reported durable once an {@code fdatasync} covering them has completed:
+ * <pre>{@code
+ * IoUringAppendLog log = new IoUringAppendLog(ring, "queue.wal");
+ * log.append(record, offset -> acknowledge(offset)); // called once the record is on stable storage
+ * }</pre>
+ * Appends use group commit: every record appended while the ring runs its handlers is copied into one buffer, which
+ * is written with a single write and a linked {@code fdatasync} before the ring's next submission. Records appended
+ * while that commit is in flight form the next batch, so however many callers there are, there is at most one sync
+ * in flight and one batch waiting.
+ * <p>
+ * Space is preallocated with {@code fallocate} a segment at a time ahead of the append offset, without changing the
+ * file size, so appends neither allocate blocks nor run out of space halfway through a batch, and the file size still
+ * marks the end of the log when it is reopened.
+ * <p>
+ * A short write is resumed with the rest of the batch, followed by another {@code fdatasync}. A failed commit fails the
+ * log: its records and every record appended after it are never reported durable, the exception handler is called,
+ * and further appends throw. Like the ring, the log must only be used from the ring's thread; other threads can append
+ * through {@link IoUring#post(Runnable)}.
+ */
+public class IoUringAppendLog {
+    private static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final int INITIAL_BATCH_CAPACITY = 64 * 1024;
+
+    private final IoUring ring;
+    private final IoUringFile file;
+    private final long segmentSize;
+    private final Runnable commitTask = this::commit;
+    private final Runnable committedTask = this::handleCommitted;
+    private Batch pending = new Batch();
+    private Batch committing;
+    private Batch spare = new Batch();
+    private long appendOffset;
+    private long durableOffset;
+    private long allocatedOffset;
+    private boolean allocating = false;
+    private boolean preallocate = true;
+    private boolean commitScheduled = false;
+    private int writtenPosition;
+    private RuntimeException failure;
+    private Consumer<Exception> exceptionHandler;
+
+    /**
+     * Opens or creates a log with 64 MiB segments, appending after its existing contents.
+     *
+     * @param ring the ring running the log's I/O
+     * @param path the path to the log file
+     */
+    public IoUringAppendLog(IoUring ring, String path) {
+        this(ring, path, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens or creates a log, appending after its existing contents.
+     *
+     * @param ring the ring running the log's I/O
+     * @param path the path to the log file
+     * @param segmentSize the amount of space preallocated at a time
+     */
+    public IoUringAppendLog(IoUring ring, String path, long segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive");
+        }
+        this.ring = ring;
+        this.segmentSize = segmentSize;
+        this.appendOffset = new File(path).length();
+        this.durableOffset = appendOffset;
+        this.allocatedOffset = appendOffset;
+        this.file = new IoUringFile(path, new IoUringFileOptions().write(true).create(true));
+        file.onAllocate(() -> allocating = false);
+        file.onException(this::handleFileException);
+    }
+
+    /**
+     * Appends a record to the log. The record's remaining bytes are copied right away, so the buffer may be reused as
+     * soon as this returns.
+     *
+     * @param record the record
+     * @param durableHandler called with the record's offset in the file once it is durable, or null
+     * @return the offset of the record in the file
+     */
+    public long append(ByteBuffer record, LongConsumer durableHandler) {
+        if (failure != null) {
+            throw new IllegalStateException("Log failed", failure);
+        }
+        if (file.isClosed()) {
+            throw new IllegalStateException("Log closed");
+        }
+        long offset = appendOffset;
+        pending.add(record, offset, durableHandler);
+        appendOffset += pending.lastLength;
+        if (!commitScheduled && committing == null) {
+            // the task runs right before the ring's next submission, by which time this round's appends are all in
+            commitScheduled = true;
+            ring.post(commitTask);
+        }
+        return offset;
+    }
+
+    /**
+     * Sets the handler for a failed commit, after which the log accepts no more appends, for failed preallocations,
+     * which only stop the log from preallocating, and for exceptions thrown by durable handlers.
+     *
+     * @param exceptionHandler the exception handler
+     * @return this instance
+     */
+    public IoUringAppendLog onException(Consumer<Exception> exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+        return this;
+    }
+
+    /**
+     * Gets the offset the next record will be appended at, which is also the length of the log.
+     *
+     * @return the append offset
+     */
+    public long appendOffset() {
+        return appendOffset;
+    }
+
+    /**
+     * Gets the offset up to which the log is durable.
+     *
+     * @return the durable offset
+     */
+    public long durableOffset() {
+        return durableOffset;
+    }
+
+    /**
+     * Gets the log's file.
+     *
+     * @return the file
+     */
+    public IoUringFile file() {
+        return file;
+    }
+
+    /**
+     * Closes the log's file. Records that are not durable yet are dropped without being reported.
+     */
+    public void close() {
+        file.close();
+    }
+
+    private void commit() {
+        commitScheduled = false;
+        if (failure != null || file.isClosed() || committing != null || pending.size() == 0) {
+            return;
+        }
+        committing = pending;
+        pending = spare;
+        spare = null;
+        long batchEnd = durableOffset + committing.buffer.position();
+        committing.buffer.flip();
+        try {
+            if (preallocate && !allocating && batchEnd + segmentSize / 2 > allocatedOffset) {
+                // the next segment is reserved while the current one still has room, so appends never wait for it
+                long allocateEnd = Math.max(allocatedOffset, batchEnd) + segmentSize;
+                ring.queueFallocate(file, IoUringFile.FALLOC_FL_KEEP_SIZE, allocatedOffset, allocateEnd - allocatedOffset);
+                allocatedOffset = allocateEnd;
+                allocating = true;
+            }
+            queueCommit(committing);
+        } catch (RuntimeException ex) {
+            fail(ex);
+        }
+    }
+
+    private void queueCommit(Batch batch) {
+        // the completion comes from the chain's own sync, so a sync queued on the file by anyone else acknowledges
+        // nothing
+        writtenPosition = batch.buffer.position();
+        ring.chain()
+            .write(file, batch.buffer, durableOffset + writtenPosition)
+            .fdatasync(file)
+            .onComplete(committedTask)
+            .onException(this::handleCommitFailure)
+            .queue();
+    }
+
+    private void handleCommitted() {
+        Batch batch = committing;
+        if (batch == null) {
+            return;
+        }
+        committing = null;
+        durableOffset += batch.buffer.limit();
+        for (int i = 0; i < batch.size(); i++) {
+            LongConsumer handler = batch.handlers.get(i);
+            if (handler == null) {
+                continue;
+            }
+            try {
+                handler.accept(batch.offsets.get(i));
+            } catch (Exception ex) {
+                if (exceptionHandler != null) {
+                    exceptionHandler.accept(ex);
+                }
+            }
+        }
+        batch.clear();
+        spare = batch;
+        if (pending.size() > 0) {
+            commit();
+        }
+    }
+
+    private void handleCommitFailure(IoUringChainException ex) {
+        // the write and the sync both report a failed commit, so only the first one counts
+        Batch batch = committing;
+        if (batch == null) {
+            return;
+        }
+        boolean shortWrite = batch.buffer.hasRemaining() && batch.buffer.position() > writtenPosition;
+        if (ex.link() == 1 && ex.isCancelled() && shortWrite) {
+            // a short write, e.g. on a nearly full disk, breaks the link and cancels the sync, so the rest is written
+            // and synced again before the batch counts as durable
+            try {
+                queueCommit(batch);
+            } catch (RuntimeException queueFailure) {
+                fail(queueFailure);
+            }
+            return;
+        }
+        fail(ex);
+    }
+
+    private void fail(RuntimeException ex) {
+        committing = null;
+        failure = ex;
+        if (exceptionHandler != null) {
+            exceptionHandler.accept(ex);
+        }
+    }
+
+    private void handleFileException(Exception ex) {
+        if (allocating) {
+            // most likely a file system without fallocate; appends work without it, only slower
+            allocating = false;
+            preallocate = false;
+        }
+        if (exceptionHandler != null) {
+            exceptionHandler.accept(ex);
+        }
+    }
+
+    private static final class Batch {
+        private final LongArrayList offsets = new LongArrayList();
+        private final List<LongConsumer> handlers = new ArrayList<>();
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_BATCH_CAPACITY);
+        private int lastLength;
+
+        void add(ByteBuffer record, long offset, LongConsumer handler) {
+            lastLength = record.remaining();
+            if (buffer.remaining() < lastLength) {
+                int capacity = buffer.capacity();
+                while (capacity - buffer.position() < lastLength) {
+                    capacity *= 2;
+                }
+                ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+            buffer.put(record.duplicate());
+            offsets.add(offset);
+            handlers.add(handler);
+        }
+
+        int size() {
+            return handlers.size();
+        }
+
+        void clear() {
+            buffer.clear();
+            offsets.clear();
+            handlers.clear();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package sh.blake.niouring;
+
+import org.eclipse.collections.impl.block.factory.HashingStrategies;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMapWithHashingStrategy;
+import sh.blake.niouring.util.NativeLibraryLoader;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A ring of kernel-provided buffers registered with an {@link IoUring} ({@code IORING_REGISTER_PBUF_RING}).
+ * <p>
+ * Reads queued with {@link IoUring#queueRead(AbstractIoUringChannel, IoUringBufferRing)} do not tie up a buffer while
+ * they wait for data; the kernel picks one from this ring only once data is ready. The chosen buffer is handed to the
+ * channel's read handler and stays out of the ring until it is given back with {@link #release(ByteBuffer)}.
+ */
+public class IoUringBufferRing {
+    private final long ring;
+    private final int groupId;
+    private final int count;
+    private final int bufferSize;
+    private final ByteBuffer buffers;
+    private final ByteBuffer[] slices;
+    private final ObjectIntHashMapWithHashingStrategy<ByteBuffer> sliceToBufferId;
+    private final long bufferRing;
+    private final List<Runnable> recycleTasks = new ArrayList<>();
+    private final BitSet lent;
+    private boolean closed = false;
+
+    /**
+     * Instantiates a new {@code IoUringBufferRing}.
+     *
+     * @param ring the ring address
+     * @param groupId the buffer group id
+     * @param count the number of buffers, must be a power of two
+     * @param bufferSize the size of each buffer
+     */
+    IoUringBufferRing(long ring, int groupId, int count, int bufferSize) {
+        if (count <= 0 || count > 32768 || Integer.bitCount(count) != 1) {
+            throw new IllegalArgumentException("Buffer count must be a power of two no greater than 32768");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        this.ring = ring;
+        this.groupId = groupId;
+        this.count = count;
+        this.bufferSize = bufferSize;
+        this.buffers = ByteBuffer.allocateDirect(count * bufferSize);
+        this.slices = new ByteBuffer[count];
+        this.lent = new BitSet(count);
+        this.sliceToBufferId = new ObjectIntHashMapWithHashingStrategy<>(HashingStrategies.identityStrategy(), count);
+        for (int i = 0; i < count; i++) {
+            buffers.limit((i + 1) * bufferSize).position(i * bufferSize);
+            slices[i] = buffers.slice();
+            sliceToBufferId.put(slices[i], i);
+        }
+        buffers.clear();
+        this.bufferRing = IoUringBufferRing.create(ring, buffers, count, bufferSize, groupId);
+    }
+
+    /**
+     * Gives a buffer that was delivered to a read handler back to the kernel so it can be picked for another read. Each
+     * delivery must be released exactly once, as a buffer given back twice could be picked for two reads at once.
+     *
+     * @param buffer the exact buffer instance passed to the read handler
+     * @throws IllegalStateException if the buffer was already given back
+     */
+    public void release(ByteBuffer buffer) {
+        if (closed) {
+            return;
+        }
+        int bufferId = sliceToBufferId.getIfAbsent(buffer, -1);
+        if (bufferId < 0) {
+            throw new IllegalArgumentException("Buffer does not belong to this buffer ring");
+        }
+        if (!lent.get(bufferId)) {
+            throw new IllegalStateException("Buffer " + bufferId + " was already released");
+        }
+        recycle(bufferId);
+    }
+
+    /**
+     * Takes the buffer the kernel selected for a completed read, ready to be handed to a read handler.
+     *
+     * @param bufferId the buffer id reported by the completion
+     * @return the buffer
+     */
+    ByteBuffer take(int bufferId) {
+        ByteBuffer buffer = slices[bufferId];
+        buffer.clear();
+        lent.set(bufferId);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the kernel by id.
+     *
+     * @param bufferId the buffer id
+     */
+    void recycle(int bufferId) {
+        lent.clear(bufferId);
+        IoUringBufferRing.recycle(bufferRing, buffers, bufferSize, bufferId, count);
+        if (!recycleTasks.isEmpty()) {
+            // copied first, as a task may run out of buffers again right away and register itself anew
+            List<Runnable> tasks = new ArrayList<>(recycleTasks);
+            recycleTasks.clear();
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Runs a task once the next buffer is given back, e.g. to re-arm a multishot read the kernel ended because the
+     * ring ran out of buffers.
+     *
+     * @param task the task
+     */
+    void whenRecycled(Runnable task) {
+        recycleTasks.add(task);
+    }
+
+    /**
+     * Gets the memory backing every buffer of the ring, which the kernel writes into at {@code bufferId * bufferSize}.
+     *
+     * @return the backing buffer
+     */
+    ByteBuffer buffers() {
+        return buffers;
+    }
+
+    /**
+     * Unregisters the buffer ring from the kernel.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        IoUringBufferRing.free(ring, bufferRing, count, groupId);
+    }
+
+    /**
+     * Gets the buffer group id used to select buffers from this ring.
+     *
+     * @return the group id
+     */
+    public int groupId() {
+        return groupId;
+    }
+
+    /**
+     * Gets the number of buffers in the ring.
+     *
+     * @return the buffer count
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Gets the size of each buffer in the ring.
+     *
+     * @return the buffer size
+     */
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    private static native long create(long ring, ByteBuffer buffers, int count, int bufferSize, int groupId);
+    private static native void recycle(long bufferRing, ByteBuffer buffers, int bufferSize, int bufferId, int count);
+    private static native void free(long ring, long bufferRing, int count, int groupId);
+
+    static {
+        NativeLibraryLoader.load();
+    }
+}
@@ -0,0 +1,289 @@
+package sh.blake.niouring;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A chain of linked operations ({@code IOSQE_IO_LINK}), created with {@link IoUring#chain()}. The kernel starts each
+ * operation only once the previous one has completed, so e.g. "write the response, then close" needs no round trip
+ * through Java between the steps:
+ * <pre>{@code
+ * ring.chain()
+ *     .write(socket, response).timeout(5, TimeUnit.SECONDS)
+ *     .close(socket)
+ *     .onException(ex -> socket.close())
+ *     .queue();
+ * }</pre>
+ * Each completed operation calls its channel's handlers as usual. When a link fails, the operations after it are
+ * cancelled, and every failed or cancelled link is reported as an {@link IoUringChainException} to the chain's
+ * exception handler (or, if none is set, the channel's) instead of the channel's completion handler.
+ */
+public class IoUringChain {
+    private static final int MAX_LINKS = 256;
+
+    private final IoUring ring;
+    private final List<Link> links = new ArrayList<>();
+    private boolean hardLink = false;
+    private Consumer<IoUringChainException> exceptionHandler;
+    private Runnable completeHandler;
+    private int pending;
+    private boolean failed = false;
+
+    /**
+     * Instantiates a new {@code IoUringChain}.
+     *
+     * @param ring the ring the chain is queued on
+     */
+    IoUringChain(IoUring ring) {
+        this.ring = ring;
+    }
+
+    /**
+     * Adds a read to the chain.
+     *
+     * @param channel the channel
+     * @param buffer the buffer to read into
+     * @return this instance
+     */
+    public IoUringChain read(AbstractIoUringChannel channel, ByteBuffer buffer) {
+        return read(channel, buffer, 0L);
+    }
+
+    /**
+     * Adds a read at an offset to the chain.
+     *
+     * @param channel the channel
+     * @param buffer the buffer to read into
+     * @param offset the offset to read from
+     * @return this instance
+     */
+    public IoUringChain read(AbstractIoUringChannel channel, ByteBuffer buffer, long offset) {
+        return add(() -> ring.queueRead(channel, buffer, offset));
+    }
+
+    /**
+     * Adds a write to the chain.
+     *
+     * @param channel the channel
+     * @param buffer the buffer to write from
+     * @return this instance
+     */
+    public IoUringChain write(AbstractIoUringChannel channel, ByteBuffer buffer) {
+        return write(channel, buffer, 0L);
+    }
+
+    /**
+     * Adds a write at an offset to the chain.
+     *
+     * @param channel the channel
+     * @param buffer the buffer to write from
+     * @param offset the offset to write to
+     * @return this instance
+     */
+    public IoUringChain write(AbstractIoUringChannel channel, ByteBuffer buffer, long offset) {
+        return add(() -> ring.queueWrite(channel, buffer, offset));
+    }
+
+    /**
+     * Adds a vectored read to the chain.
+     *
+     * @param channel the channel
+     * @param buffers the buffers to read into
+     * @return this instance
+     */
+    public IoUringChain readv(AbstractIoUringChannel channel, ByteBuffer... buffers) {
+        return add(() -> ring.queueReadv(channel, buffers));
+    }
+
+    /**
+     * Adds a vectored write to the chain.
+     *
+     * @param channel the channel
+     * @param buffers the buffers to write from
+     * @return this instance
+     */
+    public IoUringChain writev(AbstractIoUringChannel channel, ByteBuffer... buffers) {
+        return add(() -> ring.queueWritev(channel, buffers));
+    }
+
+    /**
+     * Adds an {@code fsync} to the chain. Linked behind writes to the same file, it makes them durable once it
+     * completes.
+     *
+     * @param file the file
+     * @return this instance
+     */
+    public IoUringChain fsync(IoUringFile file) {
+        return add(() -> ring.queueFsync(file));
+    }
+
+    /**
+     * Adds an {@code fdatasync} to the chain.
+     *
+     * @param file the file
+     * @return this instance
+     */
+    public IoUringChain fdatasync(IoUringFile file) {
+        return add(() -> ring.queueFdatasync(file));
+    }
+
+    /**
+     * Adds a connect to the chain.
+     *
+     * @param socket the socket
+     * @return this instance
+     */
+    public IoUringChain connect(IoUringSocket socket) {
+        return add(() -> ring.queueConnect(socket));
+    }
+
+    /**
+     * Adds a close to the chain.
+     *
+     * @param channel the channel
+     * @return this instance
+     */
+    public IoUringChain close(AbstractIoUringChannel channel) {
+        return add(() -> ring.queueClose(channel));
+    }
+
+    /**
+     * Gives the most recently added operation a deadline ({@code IORING_OP_LINK_TIMEOUT}). If it has not completed in
+     * time, it is cancelled and reported with {@code -ECANCELED}, together with the rest of the chain.
+     *
+     * @param timeout the timeout
+     * @param unit the time unit of the timeout
+     * @return this instance
+     */
+    public IoUringChain timeout(long timeout, TimeUnit unit) {
+        if (links.isEmpty()) {
+            throw new IllegalStateException("No operation to time out");
+        }
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative");
+        }
+        links.get(links.size() - 1).timeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    /**
+     * Sets whether the chain uses hard links ({@code IOSQE_IO_HARDLINK}), which keep going after a failed link
+     * instead of cancelling the rest of the chain. Useful when a later step, like a close, must run regardless.
+     *
+     * @param hardLink whether to use hard links
+     * @return this instance
+     */
+    public IoUringChain hardLink(boolean hardLink) {
+        this.hardLink = hardLink;
+        return this;
+    }
+
+    /**
+     * Sets the handler for failed and cancelled links.
+     *
+     * @param exceptionHandler the exception handler
+     * @return this instance
+     */
+    public IoUringChain onException(Consumer<IoUringChainException> exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+        return this;
+    }
+
+    /**
+     * Sets the handler called once every link of the chain has completed without failing, e.g. to acknowledge writes
+     * once a linked {@code fdatasync} has made them durable. It runs as soon as the last link completes, before that
+     * link's channel handlers.
+     *
+     * @param completeHandler the complete handler
+     * @return this instance
+     */
+    public IoUringChain onComplete(Runnable completeHandler) {
+        this.completeHandler = completeHandler;
+        return this;
+    }
+
+    /**
+     * Queues the chain on its ring, to be submitted on the next ring execution.
+     *
+     * @return the ring
+     */
+    public IoUring queue() {
+        if (links.isEmpty()) {
+            throw new IllegalStateException("Chain is empty");
+        }
+        if (pending > 0) {
+            throw new IllegalStateException("Chain already queued");
+        }
+        pending = links.size();
+        failed = false;
+        return ring.queueChain(this);
+    }
+
+    private IoUringChain add(Runnable queue) {
+        if (links.size() == MAX_LINKS) {
+            throw new IllegalStateException("Chain cannot have more than " + MAX_LINKS + " links");
+        }
+        links.add(new Link(queue));
+        return this;
+    }
+
+    List<Link> links() {
+        return links;
+    }
+
+    boolean isHardLink() {
+        return hardLink;
+    }
+
+    Consumer<IoUringChainException> exceptionHandler() {
+        return exceptionHandler;
+    }
+
+    Runnable completeHandler() {
+        return completeHandler;
+    }
+
+    /**
+     * Marks the chain as failed, so its complete handler is not called.
+     */
+    void fail() {
+        failed = true;
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Counts down a completed link.
+     *
+     * @return the number of links still in flight
+     */
+    int completeLink() {
+        return --pending;
+    }
+
+    void setPending(int pending) {
+        this.pending = pending;
+    }
+
+    static final class Link {
+        private final Runnable queue;
+        private long timeoutNanos = -1;
+
+        Link(Runnable queue) {
+            this.queue = queue;
+        }
+
+        Runnable queue() {
+            return queue;
+        }
+
+        long timeoutNanos() {
+            return timeoutNanos;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package sh.blake.niouring;
+
+/**
+ * Reports a link of an {@link IoUringChain} that failed, or that was cancelled because an earlier link failed or its
+ * link timeout expired (result {@code -ECANCELED}).
+ */
+public class IoUringChainException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private static final int ECANCELED = 125;
+
+    private final int link;
+    private final int result;
+
+    /**
+     * Instantiates a new {@code IoUringChainException}.
+     *
+     * @param link the index of the link in its chain
+     * @param result the negative result of the link's operation
+     */
+    public IoUringChainException(int link, int result) {
+        super((result == -ECANCELED ? "Link " + link + " of chain was cancelled" : "Link " + link + " of chain failed")
+            + " with result: " + result);
+        this.link = link;
+        this.result = result;
+    }
+
+    /**
+     * Gets the index of the link in its chain, in the order the operations were added.
+     *
+     * @return the link index
+     */
+    public int link() {
+        return link;
+    }
+
+    /**
+     * Gets the negative result of the link's operation.
+     *
+     * @return the result
+     */
+    public int result() {
+        return result;
+    }
+
+    /**
+     * Checks whether the link was cancelled rather than failing itself.
+     *
+     * @return whether the link was cancelled
+     */
+    public boolean isCancelled() {
+        return result == -ECANCELED;
+    }
+}
@@ -0,0 +1,79 @@
+package sh.blake.niouring;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A datagram received by an {@link IoUringDatagramSocket}, together with the address it was sent from. The source
+ * address is kept in its raw form and only formatted if {@link #ipAddress()} is called.
+ */
+public class IoUringDatagram {
+    private final ByteBuffer buffer;
+    private final int addressFamily;
+    private final long addressHigh;
+    private final long addressLow;
+    private final int port;
+    private final int segmentSize;
+    private String ipAddress;
+
+    /**
+     * Instantiates a new {@code IoUringDatagram}.
+     *
+     * @param buffer the buffer holding the payload between its position and limit
+     * @param addressFamily the source address family (4 or 6)
+     * @param addressHigh the upper 64 bits of an IPv6 source address
+     * @param addressLow the IPv4 source address, or the lower 64 bits of an IPv6 source address
+     * @param port the source port
+     * @param segmentSize the size of the coalesced datagrams, or 0
+     */
+    IoUringDatagram(ByteBuffer buffer, int addressFamily, long addressHigh, long addressLow, int port, int segmentSize) {
+        this.buffer = buffer;
+        this.addressFamily = addressFamily;
+        this.addressHigh = addressHigh;
+        this.addressLow = addressLow;
+        this.port = port;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Gets the buffer the datagram was received into, with the payload between its position and limit. Buffers
+     * picked from a {@link IoUringBufferRing} must be given back with {@link IoUringBufferRing#release(ByteBuffer)}.
+     *
+     * @return the buffer
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Gets the IP address the datagram was sent from. IPv4 senders on an IPv6 socket show up as mapped addresses.
+     *
+     * @return the source IP address, or null if the kernel did not report one
+     */
+    public String ipAddress() {
+        if (ipAddress == null && addressFamily != 0) {
+            ipAddress = addressFamily == 4
+                ? AbstractIoUringSocket.formatIpv4((int) addressLow)
+                : AbstractIoUringSocket.formatIpv6(addressHigh, addressLow);
+        }
+        return ipAddress;
+    }
+
+    /**
+     * Gets the port the datagram was sent from.
+     *
+     * @return the source port
+     */
+    public int port() {
+        return port;
+    }
+
+    /**
+     * Gets the size of each datagram the kernel coalesced into this payload when {@link IoUringDatagramSocket#gro(boolean)}
+     * is enabled. The payload then holds consecutive datagrams of this size, the last one possibly shorter.
+     *
+     * @return the segment size, or 0 if the payload is a single datagram
+     */
+    public int segmentSize() {
+        return segmentSize;
+    }
+}
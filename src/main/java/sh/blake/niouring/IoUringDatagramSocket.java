@@ -0,0 +1,138 @@
+package sh.blake.niouring;
+
+import sh.blake.niouring.util.NativeLibraryLoader;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * A {@code DatagramSocket} analog for working with an {@code io_uring}, sending and receiving UDP datagrams with
+ * {@code IORING_OP_SENDMSG} and {@code IORING_OP_RECVMSG}:
+ * <pre>{@code
+ * IoUringDatagramSocket socket = new IoUringDatagramSocket("0.0.0.0", 5353)
+ *     .onReceive(datagram -> reply(datagram.ipAddress(), datagram.port(), datagram.buffer()));
+ * ring.queueMultishotReceive(socket, bufferRing);
+ * }</pre>
+ * The socket's {@link #port()} is the port it is bound to. Each receive reports where its datagram came from.
+ * A multishot receive with a {@link IoUringBufferRing} keeps one submission receiving for as long as the socket is
+ * open, also after a receive error, which is reported to the exception handler.
+ * <p>
+ * With segmentation offload, one send can carry many datagrams
+ * ({@link IoUring#queueSendTo(IoUringDatagramSocket, ByteBuffer, String, int, int)}), and with
+ * {@link #gro(boolean)} one receive can deliver many datagrams coalesced by the kernel.
+ */
+public class IoUringDatagramSocket extends AbstractIoUringSocket {
+    private final boolean ipv6;
+    private boolean connected = false;
+    private Consumer<IoUringDatagram> receiveHandler;
+
+    /**
+     * Instantiates a new {@code IoUringDatagramSocket} bound to the loopback address.
+     *
+     * @param port the port to bind, or 0 for any free port
+     */
+    public IoUringDatagramSocket(int port) {
+        this("127.0.0.1", port);
+    }
+
+    /**
+     * Instantiates a new {@code IoUringDatagramSocket}. Binding an IPv6 address also receives from IPv4 senders.
+     *
+     * @param ipAddress the address to bind
+     * @param port the port to bind, or 0 for any free port
+     */
+    public IoUringDatagramSocket(String ipAddress, int port) {
+        this(IoUringDatagramSocket.create(isIpv6(ipAddress)), ipAddress, port);
+    }
+
+    private IoUringDatagramSocket(int fd, String ipAddress, int port) {
+        super(fd, ipAddress, bindOrClose(fd, ipAddress, port));
+        this.ipv6 = isIpv6(ipAddress);
+    }
+
+    /**
+     * Connects the socket, making the address the destination of sends queued without one and the only source
+     * datagrams are received from. This only records the address, so it takes effect right away.
+     *
+     * @param ipAddress the peer address
+     * @param port the peer port
+     * @return this instance
+     */
+    public IoUringDatagramSocket connect(String ipAddress, int port) {
+        IoUringDatagramSocket.connect(fd(), ipAddress, port, ipv6);
+        connected = true;
+        return this;
+    }
+
+    /**
+     * Sets whether the kernel coalesces consecutive datagrams from the same sender into a single receive
+     * ({@code UDP_GRO}, Linux >= 5.0), reporting their size through {@link IoUringDatagram#segmentSize()}. Receive
+     * buffers should then be large enough for many datagrams.
+     *
+     * @param gro whether to coalesce received datagrams
+     * @return this instance
+     */
+    public IoUringDatagramSocket gro(boolean gro) {
+        IoUringDatagramSocket.setGro(fd(), gro);
+        return this;
+    }
+
+    /**
+     * Sets the handler called for every received datagram.
+     *
+     * @param receiveHandler the receive handler
+     * @return this instance
+     */
+    public IoUringDatagramSocket onReceive(Consumer<IoUringDatagram> receiveHandler) {
+        this.receiveHandler = receiveHandler;
+        return this;
+    }
+
+    /**
+     * Checks whether the socket has a default destination.
+     *
+     * @return whether the socket is connected
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    boolean isIpv6() {
+        return ipv6;
+    }
+
+    void handleReceiveCompletion(IoUringDatagram datagram, int result) {
+        if (idleTimeout() != null) {
+            idleTimeout().touch();
+        }
+        if (result < 0) {
+            // unlike a stream, a datagram socket stays usable after an error such as a refused connected send
+            throw new RuntimeException("Receive failed with result: " + result);
+        }
+        if (receiveHandler != null) {
+            receiveHandler.accept(datagram);
+        }
+    }
+
+    private static boolean isIpv6(String ipAddress) {
+        return ipAddress.indexOf(':') >= 0;
+    }
+
+    private static int bindOrClose(int fd, String ipAddress, int port) {
+        try {
+            return IoUringDatagramSocket.bind(fd, ipAddress, port, isIpv6(ipAddress));
+        } catch (RuntimeException ex) {
+            AbstractIoUringChannel.close(fd);
+            throw ex;
+        }
+    }
+
+    private static native int create(boolean ipv6);
+    private static native int bind(int fd, String ipAddress, int port, boolean ipv6);
+    private static native void connect(int fd, String ipAddress, int port, boolean ipv6);
+    private static native void setGro(int fd, boolean enabled);
+
+    static {
+        NativeLibraryLoader.load();
+    }
+}
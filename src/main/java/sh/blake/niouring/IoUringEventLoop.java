@@ -0,0 +1,185 @@
+package sh.blake.niouring;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
+
+import java.util.function.Consumer;
+
+/**
+ * A single ring of an {@link IoUringEventLoopGroup}, together with the thread running it, its listener and the
+ * channels it owns.
+ * <p>
+ * Apart from {@link #index()}, {@link #cpu()} and {@link #serverSocket()}, methods must be called from the loop's own
+ * thread, e.g. from one of its handlers.
+ */
+public class IoUringEventLoop {
+    private final IoUringEventLoopGroup group;
+    private final int index;
+    private final int cpu;
+    private final IoUringServerSocket serverSocket;
+    private final IntObjectHashMap<AbstractIoUringChannel> channels = new IntObjectHashMap<>();
+    private volatile IoUring ring;
+
+    /**
+     * Instantiates a new {@code IoUringEventLoop}.
+     *
+     * @param group the owning group
+     * @param index the index of the loop in the group
+     * @param cpu the CPU to pin the loop thread to, or {@code -1}
+     * @param serverSocket the listener owned by this loop, or null
+     */
+    IoUringEventLoop(IoUringEventLoopGroup group, int index, int cpu, IoUringServerSocket serverSocket) {
+        this.group = group;
+        this.index = index;
+        this.cpu = cpu;
+        this.serverSocket = serverSocket;
+    }
+
+    /**
+     * Runs the loop on the current thread until the group is stopped and every channel is closed, or the stop is
+     * forced.
+     */
+    void run() {
+        try {
+            if (cpu >= 0) {
+                IoUringEventLoopGroup.setAffinity(cpu);
+            }
+            ring = new IoUring(group.options()).onException(group.exceptionHandler());
+            if (serverSocket != null) {
+                serverSocket.onAccept(this::handleAccept);
+                ring.queueAccept(serverSocket);
+            }
+            while (!isDone()) {
+                ring.execute();
+            }
+        } catch (RuntimeException ex) {
+            if (group.exceptionHandler() != null) {
+                group.exceptionHandler().accept(ex);
+            }
+        } finally {
+            if (serverSocket != null && serverSocket.isOpen()) {
+                serverSocket.close();
+            }
+            channels.forEachValue(AbstractIoUringChannel::close);
+            channels.clear();
+            if (ring != null && ring.isOpen()) {
+                ring.close();
+            }
+        }
+    }
+
+    private void handleAccept(IoUring ring, IoUringSocket socket) {
+        if (!serverSocket.isMultishot() && !group.isStopping()) {
+            ring.queueAccept(serverSocket);
+        }
+        addChannel(socket);
+        if (group.acceptHandler() != null) {
+            group.acceptHandler().accept(ring, socket);
+        }
+    }
+
+    private boolean isDone() {
+        if (!group.isStopping()) {
+            return false;
+        }
+        if (serverSocket != null && serverSocket.isOpen()) {
+            // stop accepting; the accept must be cancelled first, as the kernel would keep the listener alive for it
+            ring.queueCancel(serverSocket);
+            ring.submitNow();
+            serverSocket.close();
+        }
+        return channelCount() == 0 || group.isForced();
+    }
+
+    /**
+     * Wakes the loop if it is blocked waiting for completions.
+     */
+    void wakeup() {
+        // a loop that has not created its ring yet checks the stop flag before it first waits
+        IoUring ring = this.ring;
+        if (ring != null) {
+            ring.wakeup();
+        }
+    }
+
+    /**
+     * Adds a channel to this loop's registry, so it is closed when the loop stops. Accepted sockets are added
+     * automatically.
+     *
+     * @param channel the channel
+     * @return this instance
+     */
+    public IoUringEventLoop addChannel(AbstractIoUringChannel channel) {
+        channels.put(channel.fd(), channel);
+        return this;
+    }
+
+    /**
+     * Gets the number of open channels in this loop's registry.
+     *
+     * @return the channel count
+     */
+    public int channelCount() {
+        pruneClosedChannels();
+        return channels.size();
+    }
+
+    /**
+     * Calls the consumer for every open channel in this loop's registry.
+     *
+     * @param consumer the consumer
+     * @return this instance
+     */
+    public IoUringEventLoop forEachChannel(Consumer<AbstractIoUringChannel> consumer) {
+        pruneClosedChannels();
+        channels.forEachValue(consumer::accept);
+        return this;
+    }
+
+    private void pruneClosedChannels() {
+        IntArrayList closedFds = new IntArrayList();
+        channels.forEachKeyValue((fd, channel) -> {
+            if (channel.isClosed()) {
+                closedFds.add(fd);
+            }
+        });
+        closedFds.forEach(channels::remove);
+    }
+
+    /**
+     * Gets the ring run by this loop.
+     *
+     * @return the ring, or null if the loop has not started yet
+     */
+    public IoUring ring() {
+        return ring;
+    }
+
+    /**
+     * Gets the index of this loop in its group, which is also the index of its listener in the port's
+     * {@code SO_REUSEPORT} group.
+     *
+     * @return the index
+     */
+    public int index() {
+        return index;
+    }
+
+    /**
+     * Gets the CPU the loop thread is pinned to.
+     *
+     * @return the CPU, or {@code -1} if the thread is not pinned
+     */
+    public int cpu() {
+        return cpu;
+    }
+
+    /**
+     * Gets the listener owned by this loop.
+     *
+     * @return the server socket, or null if the group is not listening
+     */
+    public IoUringServerSocket serverSocket() {
+        return serverSocket;
+    }
+}
@@ -0,0 +1,275 @@
+package sh.blake.niouring;
+
+import sh.blake.niouring.util.NativeLibraryLoader;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Runs several {@link IoUring}s, each on its own thread and optionally pinned to a CPU.
+ * <p>
+ * When listening, every loop gets its own {@link IoUringServerSocket} bound to the same port through
+ * {@code SO_REUSEPORT}, so the kernel spreads connections across loops instead of all loops contending for one
+ * listener. With {@link #cpuSteering(boolean)}, a connection is handed to the loop pinned to the CPU that received it.
+ * <pre>{@code
+ * IoUringEventLoopGroup group = new IoUringEventLoopGroup(4)
+ *     .cpus(0, 1, 2, 3)
+ *     .cpuSteering(true)
+ *     .onAccept((ring, socket) -> ...)
+ *     .listen(8080)
+ *     .start();
+ * }</pre>
+ */
+public class IoUringEventLoopGroup {
+    private final int size;
+    private final IoUringOptions options;
+    private int[] cpus;
+    private boolean cpuSteering = false;
+    private boolean multishotAccept = false;
+    private String address;
+    private int port = -1;
+    private BiConsumer<IoUring, IoUringSocket> acceptHandler;
+    private Consumer<Exception> exceptionHandler;
+    private IoUringEventLoop[] loops;
+    private CountDownLatch terminated;
+    private volatile boolean stopping = false;
+    private volatile boolean forced = false;
+
+    /**
+     * Instantiates a new {@code IoUringEventLoopGroup} with rings using the default {@link IoUringOptions}.
+     *
+     * @param size the number of rings
+     */
+    public IoUringEventLoopGroup(int size) {
+        this(size, new IoUringOptions());
+    }
+
+    /**
+     * Instantiates a new {@code IoUringEventLoopGroup}.
+     *
+     * @param size the number of rings
+     * @param options the setup options of every ring
+     */
+    public IoUringEventLoopGroup(int size, IoUringOptions options) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Event loop group size must be positive");
+        }
+        this.size = size;
+        this.options = options;
+    }
+
+    /**
+     * Pins the loop threads to CPUs, the thread of loop {@code i} to {@code cpus[i]}.
+     *
+     * @param cpus one CPU per loop
+     * @return this instance
+     */
+    public IoUringEventLoopGroup cpus(int... cpus) {
+        if (cpus.length != size) {
+            throw new IllegalArgumentException("Expected " + size + " CPUs, got " + cpus.length);
+        }
+        this.cpus = cpus.clone();
+        return this;
+    }
+
+    /**
+     * Sets whether connections are steered to the loop pinned to the CPU that received them, with a classic BPF
+     * program attached to the listeners ({@code SO_ATTACH_REUSEPORT_CBPF}). This keeps a connection's packets and its
+     * handling on one CPU, provided the NIC's receive queues are pinned to the same CPUs as the loops. Connections
+     * arriving on other CPUs fall back to {@code cpu % size}. Requires {@link #cpus(int...)}.
+     *
+     * @param cpuSteering whether to steer connections by CPU
+     * @return this instance
+     */
+    public IoUringEventLoopGroup cpuSteering(boolean cpuSteering) {
+        this.cpuSteering = cpuSteering;
+        return this;
+    }
+
+    /**
+     * Sets whether the listeners accept in multishot mode. See {@link IoUringServerSocket#multishot(boolean)}.
+     *
+     * @param multishotAccept whether to use multishot accept
+     * @return this instance
+     */
+    public IoUringEventLoopGroup multishotAccept(boolean multishotAccept) {
+        this.multishotAccept = multishotAccept;
+        return this;
+    }
+
+    /**
+     * Makes every loop listen on the specified address and port once started.
+     *
+     * @param address the address to bind to
+     * @param port the port to bind to
+     * @return this instance
+     */
+    public IoUringEventLoopGroup listen(String address, int port) {
+        this.address = address;
+        this.port = port;
+        return this;
+    }
+
+    /**
+     * Makes every loop listen on "127.0.0.1" and the specified port once started.
+     *
+     * @param port the port to bind to
+     * @return this instance
+     */
+    public IoUringEventLoopGroup listen(int port) {
+        return listen("127.0.0.1", port);
+    }
+
+    /**
+     * Sets the handler called on the accepting loop's thread for every accepted connection. Accepts are queued again
+     * automatically, and accepted sockets are added to the loop's channel registry.
+     *
+     * @param acceptHandler the accept handler
+     * @return this instance
+     */
+    public IoUringEventLoopGroup onAccept(BiConsumer<IoUring, IoUringSocket> acceptHandler) {
+        this.acceptHandler = acceptHandler;
+        return this;
+    }
+
+    /**
+     * Sets the exception handler of every ring.
+     *
+     * @param exceptionHandler the exception handler
+     * @return this instance
+     */
+    public IoUringEventLoopGroup onException(Consumer<Exception> exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+        return this;
+    }
+
+    /**
+     * Binds the listeners, if any, and starts one thread per loop.
+     *
+     * @return this instance
+     */
+    public synchronized IoUringEventLoopGroup start() {
+        if (loops != null) {
+            throw new IllegalStateException("Event loop group already started");
+        }
+        if (cpuSteering && cpus == null) {
+            throw new IllegalStateException("CPU steering requires the loops to be pinned to CPUs");
+        }
+        loops = new IoUringEventLoop[size];
+        terminated = new CountDownLatch(size);
+        for (int i = 0; i < size; i++) {
+            // listeners join the reuseport group in bind order, which is the index the steering program returns
+            IoUringServerSocket serverSocket = null;
+            if (port >= 0) {
+                serverSocket = new IoUringServerSocket(address, port).multishot(multishotAccept);
+                serverSocket.onException(exceptionHandler);
+            }
+            loops[i] = new IoUringEventLoop(this, i, cpus == null ? -1 : cpus[i], serverSocket);
+        }
+        if (cpuSteering && port >= 0) {
+            IoUringEventLoopGroup.attachCpuSteering(loops[0].serverSocket().fd(), cpus);
+        }
+        for (IoUringEventLoop loop : loops) {
+            Thread thread = new Thread(() -> {
+                try {
+                    loop.run();
+                } finally {
+                    terminated.countDown();
+                }
+            }, "nio_uring-loop-" + loop.index());
+            thread.start();
+        }
+        return this;
+    }
+
+    /**
+     * Stops the group gracefully: the listeners are closed right away, and each loop keeps running until the channels
+     * in its registry are closed. Channels still open when the timeout elapses are closed forcibly.
+     *
+     * @param timeout the maximum time to wait for channels to close
+     * @param unit the time unit of the timeout
+     * @return whether every loop finished within the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
+        if (loops == null) {
+            throw new IllegalStateException("Event loop group not started");
+        }
+        stopping = true;
+        for (IoUringEventLoop loop : loops) {
+            loop.wakeup();
+        }
+        if (terminated.await(timeout, unit)) {
+            return true;
+        }
+        forced = true;
+        for (IoUringEventLoop loop : loops) {
+            loop.wakeup();
+        }
+        terminated.await();
+        return false;
+    }
+
+    /**
+     * Waits until every loop has finished.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitTermination() throws InterruptedException {
+        if (loops == null) {
+            throw new IllegalStateException("Event loop group not started");
+        }
+        terminated.await();
+    }
+
+    /**
+     * Gets a loop of the group.
+     *
+     * @param index the index of the loop
+     * @return the loop
+     */
+    public IoUringEventLoop loop(int index) {
+        if (loops == null) {
+            throw new IllegalStateException("Event loop group not started");
+        }
+        return loops[index];
+    }
+
+    /**
+     * Gets the number of loops in the group.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    IoUringOptions options() {
+        return options;
+    }
+
+    BiConsumer<IoUring, IoUringSocket> acceptHandler() {
+        return acceptHandler;
+    }
+
+    Consumer<Exception> exceptionHandler() {
+        return exceptionHandler;
+    }
+
+    boolean isStopping() {
+        return stopping;
+    }
+
+    boolean isForced() {
+        return forced;
+    }
+
+    static native void setAffinity(int cpu);
+    private static native void attachCpuSteering(int serverSocketFd, int[] cpus);
+
+    static {
+        NativeLibraryLoader.load();
+    }
+}
@@ -1,22 +1,170 @@
 package sh.blake.niouring;
 
+import sh.blake.niouring.util.ByteBufferUtil;
 import sh.blake.niouring.util.NativeLibraryLoader;
 
+import java.nio.ByteBuffer;
+
 /**
  * An {@link AbstractIoUringChannel} implementation for file operations.
  */
 public class IoUringFile extends AbstractIoUringChannel {
+    /** Waits for writeback already in progress on the range before starting more. */
+    public static final int SYNC_FILE_RANGE_WAIT_BEFORE = 1;
+    /** Starts writeback of the range's dirty pages. */
+    public static final int SYNC_FILE_RANGE_WRITE = 2;
+    /** Waits for writeback of the range to finish. */
+    public static final int SYNC_FILE_RANGE_WAIT_AFTER = 4;
+    /** Advises that the range will be accessed in no particular order, disabling readahead. */
+    public static final int POSIX_FADV_RANDOM = 1;
+    /** Advises that the range will be read sequentially, doubling the readahead window. */
+    public static final int POSIX_FADV_SEQUENTIAL = 2;
+    /** Advises that the range will be needed soon, starting to read it into the page cache. */
+    public static final int POSIX_FADV_WILLNEED = 3;
+    /** Advises that the range will not be needed again, dropping its clean pages from the page cache. */
+    public static final int POSIX_FADV_DONTNEED = 4;
+    /** Allocates space without changing the file size, so the file only grows as it is written. */
+    public static final int FALLOC_FL_KEEP_SIZE = 1;
+    /** Deallocates the range, which then reads back as zeroes; must be combined with {@link #FALLOC_FL_KEEP_SIZE}. */
+    public static final int FALLOC_FL_PUNCH_HOLE = 2;
+
+    private final boolean direct;
+    private final int directAlignment;
+    private int syncCount = 0;
+    private Runnable syncHandler;
+    private Runnable allocateHandler;
 
     /**
-     * Instantiates a new {@code IoUringFile}.
+     * Instantiates a new {@code IoUringFile}, opened for reading and writing if possible, or created if it does not
+     * exist.
      *
      * @param path The path to the file
      */
     public IoUringFile(String path) {
         super(IoUringFile.open(path));
+        this.direct = false;
+        this.directAlignment = 1;
+    }
+
+    /**
+     * Instantiates a new {@code IoUringFile} opened with the specified options.
+     *
+     * @param path The path to the file
+     * @param options The open options
+     */
+    public IoUringFile(String path, IoUringFileOptions options) {
+        super(IoUringFile.openWithOptions(path, options.flags(), options.mode()));
+        this.direct = options.isDirect();
+        this.directAlignment = direct ? IoUringFile.directAlignment(fd()) : 1;
+    }
+
+    /**
+     * Instantiates a new {@code IoUringFile} for a file opened by {@link IoUring#queueOpen}.
+     *
+     * @param fd The file descriptor
+     * @param options The options the file was opened with
+     */
+    IoUringFile(int fd, IoUringFileOptions options) {
+        super(fd);
+        this.direct = options.isDirect();
+        this.directAlignment = direct ? IoUringFile.directAlignment(fd) : 1;
+    }
+
+    /**
+     * Checks whether the file bypasses the page cache ({@code O_DIRECT}).
+     *
+     * @return whether the file was opened for direct I/O
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Gets the alignment required of buffer addresses, lengths and file offsets for direct I/O on this file, as
+     * reported by the file system, or 4096 if the kernel cannot tell.
+     *
+     * @return the alignment in bytes, or {@code 1} if the file is not opened for direct I/O
+     */
+    public int directAlignment() {
+        return directAlignment;
+    }
+
+    void handleSyncCompletion(int result) {
+        if (result < 0) {
+            throw new RuntimeException("Sync failed with result: " + result);
+        }
+        if (syncHandler != null) {
+            syncHandler.run();
+        }
+    }
+
+    void handleAllocateCompletion(int result) {
+        if (result < 0) {
+            throw new RuntimeException("Allocate failed with result: " + result);
+        }
+        if (allocateHandler != null) {
+            allocateHandler.run();
+        }
+    }
+
+    /**
+     * Sets the handler to be called when an {@code fsync}, {@code fdatasync} or {@code sync_file_range} of this file
+     * completes. A failed sync is reported to the exception handler instead, and means earlier writes may be lost.
+     *
+     * @param syncHandler the sync handler
+     * @return this instance
+     */
+    public IoUringFile onSync(Runnable syncHandler) {
+        this.syncHandler = syncHandler;
+        return this;
+    }
+
+    /**
+     * Sets the handler to be called when an {@code fallocate} of this file completes.
+     *
+     * @param allocateHandler the allocate handler
+     * @return this instance
+     */
+    public IoUringFile onAllocate(Runnable allocateHandler) {
+        this.allocateHandler = allocateHandler;
+        return this;
+    }
+
+    @Override
+    public boolean isWritePending() {
+        return super.isWritePending() || syncCount > 0;
+    }
+
+    void incrementSyncCount() {
+        syncCount++;
+    }
+
+    void decrementSyncCount() {
+        syncCount--;
+    }
+
+    /**
+     * Checks that a direct I/O on this file is aligned, since the kernel would fail it with {@code -EINVAL} anyway.
+     *
+     * @param buffer the buffer, from its position to its limit
+     * @param offset the offset in the file
+     */
+    void checkDirectAlignment(ByteBuffer buffer, long offset) {
+        if (!direct) {
+            return;
+        }
+        long mask = directAlignment - 1;
+        if (((ByteBufferUtil.address(buffer) + buffer.position()) & mask) != 0) {
+            throw new IllegalArgumentException("Direct I/O buffer must be aligned to " + directAlignment + " bytes");
+        }
+        if ((buffer.remaining() & mask) != 0 || (offset & mask) != 0) {
+            throw new IllegalArgumentException("Direct I/O length and offset must be multiples of " + directAlignment);
+        }
     }
 
     private static native int open(String path);
+    private static native int openWithOptions(String path, int options, int mode);
+    private static native int directAlignment(int fd);
 
     static {
         NativeLibraryLoader.load();
@@ -0,0 +1,187 @@
+package sh.blake.niouring;
+
+/**
+ * Options for opening an {@link IoUringFile}, mapping onto the {@code open} flags. The default opens an existing file
+ * for reading only.
+ * <pre>{@code
+ * IoUringFile log = new IoUringFile("data.log", new IoUringFileOptions()
+ *     .write(true)
+ *     .create(true)
+ *     .direct(true));
+ * }</pre>
+ */
+public class IoUringFileOptions {
+    static final int READ = 1;
+    static final int WRITE = 1 << 1;
+    static final int APPEND = 1 << 2;
+    static final int CREATE = 1 << 3;
+    static final int TRUNCATE = 1 << 4;
+    static final int DIRECT = 1 << 5;
+    static final int DSYNC = 1 << 6;
+    static final int SYNC = 1 << 7;
+    static final int NOATIME = 1 << 8;
+
+    private boolean read = true;
+    private boolean write = false;
+    private boolean append = false;
+    private boolean create = false;
+    private boolean truncate = false;
+    private boolean direct = false;
+    private boolean dsync = false;
+    private boolean sync = false;
+    private boolean noAtime = false;
+    private int mode = 0666;
+
+    /**
+     * Sets whether the file is opened for reading. Defaults to true.
+     *
+     * @param read whether to open for reading
+     * @return this instance
+     */
+    public IoUringFileOptions read(boolean read) {
+        this.read = read;
+        return this;
+    }
+
+    /**
+     * Sets whether the file is opened for writing.
+     *
+     * @param write whether to open for writing
+     * @return this instance
+     */
+    public IoUringFileOptions write(boolean write) {
+        this.write = write;
+        return this;
+    }
+
+    /**
+     * Sets whether every write goes to the end of the file ({@code O_APPEND}), whatever offset it was queued with.
+     * Implies {@link #write(boolean)}.
+     *
+     * @param append whether to append
+     * @return this instance
+     */
+    public IoUringFileOptions append(boolean append) {
+        this.append = append;
+        return this;
+    }
+
+    /**
+     * Sets whether the file is created if it does not exist ({@code O_CREAT}).
+     *
+     * @param create whether to create the file
+     * @return this instance
+     */
+    public IoUringFileOptions create(boolean create) {
+        this.create = create;
+        return this;
+    }
+
+    /**
+     * Sets whether an existing file is truncated to zero length ({@code O_TRUNC}). Requires {@link #write(boolean)}.
+     *
+     * @param truncate whether to truncate the file
+     * @return this instance
+     */
+    public IoUringFileOptions truncate(boolean truncate) {
+        this.truncate = truncate;
+        return this;
+    }
+
+    /**
+     * Sets whether reads and writes bypass the page cache ({@code O_DIRECT}). Buffers must then be allocated with
+     * {@link sh.blake.niouring.util.ByteBufferUtil#allocateAligned(int, int)}, and buffer addresses, lengths and file
+     * offsets must all be multiples of {@link IoUringFile#directAlignment()}, which the ring checks when queuing.
+     *
+     * @param direct whether to bypass the page cache
+     * @return this instance
+     */
+    public IoUringFileOptions direct(boolean direct) {
+        this.direct = direct;
+        return this;
+    }
+
+    /**
+     * Sets whether a write only completes once its data is on stable storage ({@code O_DSYNC}), without waiting for
+     * metadata that is not needed to read it back.
+     *
+     * @param dsync whether writes are data-synchronous
+     * @return this instance
+     */
+    public IoUringFileOptions dsync(boolean dsync) {
+        this.dsync = dsync;
+        return this;
+    }
+
+    /**
+     * Sets whether a write only completes once its data and all metadata are on stable storage ({@code O_SYNC}).
+     *
+     * @param sync whether writes are fully synchronous
+     * @return this instance
+     */
+    public IoUringFileOptions sync(boolean sync) {
+        this.sync = sync;
+        return this;
+    }
+
+    /**
+     * Sets whether reads skip updating the file's access time ({@code O_NOATIME}). Only allowed for the file's owner.
+     *
+     * @param noAtime whether to skip access time updates
+     * @return this instance
+     */
+    public IoUringFileOptions noAtime(boolean noAtime) {
+        this.noAtime = noAtime;
+        return this;
+    }
+
+    /**
+     * Sets the permissions of a newly created file, before the process umask is applied. Defaults to {@code 0666}.
+     *
+     * @param mode the file mode
+     * @return this instance
+     */
+    public IoUringFileOptions mode(int mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    /**
+     * Checks whether the file bypasses the page cache.
+     *
+     * @return whether O_DIRECT is enabled
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    int mode() {
+        return mode;
+    }
+
+    /**
+     * Computes the option bits passed to the native open, which maps them onto the platform's {@code O_*} flags.
+     *
+     * @return the option bits
+     */
+    int flags() {
+        boolean writable = write || append;
+        if (!read && !writable) {
+            throw new IllegalArgumentException("File must be opened for reading, writing or both");
+        }
+        if (truncate && !writable) {
+            throw new IllegalArgumentException("Truncating a file requires opening it for writing");
+        }
+        int flags = 0;
+        flags |= read ? READ : 0;
+        flags |= writable ? WRITE : 0;
+        flags |= append ? APPEND : 0;
+        flags |= create ? CREATE : 0;
+        flags |= truncate ? TRUNCATE : 0;
+        flags |= direct ? DIRECT : 0;
+        flags |= dsync ? DSYNC : 0;
+        flags |= sync ? SYNC : 0;
+        flags |= noAtime ? NOATIME : 0;
+        return flags;
+    }
+}
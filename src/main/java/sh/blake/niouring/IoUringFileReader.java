@@ -0,0 +1,295 @@
+package sh.blake.niouring;
+
+import sh.blake.niouring.util.ByteBufferUtil;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Streams a file through a fixed set of chunk buffers, keeping a read in flight for each of them at increasing
+ * offsets, so the device sees a queue depth greater than one. Chunks are handed to the chunk handler strictly in file
+ * order, whatever order the reads complete in:
+ * <pre>{@code
+ * new IoUringFileReader(ring, file, 1024 * 1024, 16)
+ *     .onChunk((chunk, offset) -> scan(chunk))
+ *     .onComplete(file::close)
+ *     .start();
+ * }</pre>
+ * Memory is bounded by the queue depth times the chunk size: a chunk's buffer is reused for the next read as soon as
+ * the handler returns, so copy out anything needed later. The reader advises the kernel that the range is read
+ * sequentially and asks for the data ahead of the reads in flight with {@code POSIX_FADV_WILLNEED}; for files opened
+ * with {@code O_DIRECT} the buffers are aligned instead, and the chunk size must be a multiple of the file's
+ * {@link IoUringFile#directAlignment()}.
+ * <p>
+ * The ring needs room for the queue depth plus two operations, for the hints. The reader takes over the file's read
+ * handler. Like the ring, it must only be used from the ring's thread.
+ */
+public class IoUringFileReader {
+    private static final int FREE = 0;
+    private static final int READING = 1;
+    private static final int DONE = 2;
+
+    private final IoUring ring;
+    private final IoUringFile file;
+    private final int chunkSize;
+    private final Slot[] slots;
+    private ObjLongConsumer<ByteBuffer> chunkHandler;
+    private Runnable completeHandler;
+    private Consumer<Exception> exceptionHandler;
+    private long nextOffset;
+    private long endOffset;
+    private long advisedOffset;
+    private long bytesRead = 0;
+    private int deliverIndex = 0;
+    private int pending = 0;
+    private boolean started = false;
+    private boolean finished = false;
+
+    /**
+     * Instantiates a new {@code IoUringFileReader}.
+     *
+     * @param ring the ring running the reads
+     * @param file the file to read
+     * @param chunkSize the size of each read
+     * @param queueDepth the number of reads kept in flight
+     */
+    public IoUringFileReader(IoUring ring, IoUringFile file, int chunkSize, int queueDepth) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        if (queueDepth <= 0) {
+            throw new IllegalArgumentException("Queue depth must be positive");
+        }
+        if (file.isDirect() && chunkSize % file.directAlignment() != 0) {
+            throw new IllegalArgumentException("Chunk size must be a multiple of " + file.directAlignment());
+        }
+        this.ring = ring;
+        this.file = file;
+        this.chunkSize = chunkSize;
+        this.slots = new Slot[queueDepth];
+        for (int i = 0; i < queueDepth; i++) {
+            ByteBuffer buffer = file.isDirect()
+                ? ByteBufferUtil.allocateAligned(chunkSize, file.directAlignment())
+                : ByteBuffer.allocateDirect(chunkSize);
+            slots[i] = new Slot(buffer);
+        }
+    }
+
+    /**
+     * Sets the handler receiving each chunk, flipped for reading, together with its offset in the file.
+     *
+     * @param chunkHandler the chunk handler
+     * @return this instance
+     */
+    public IoUringFileReader onChunk(ObjLongConsumer<ByteBuffer> chunkHandler) {
+        this.chunkHandler = chunkHandler;
+        return this;
+    }
+
+    /**
+     * Sets the handler called once every chunk up to the end of the range has been handed over.
+     *
+     * @param completeHandler the complete handler
+     * @return this instance
+     */
+    public IoUringFileReader onComplete(Runnable completeHandler) {
+        this.completeHandler = completeHandler;
+        return this;
+    }
+
+    /**
+     * Sets the handler for exceptions thrown by the chunk handler, and for the file closing before the read is done,
+     * e.g. because a read failed.
+     *
+     * @param exceptionHandler the exception handler
+     * @return this instance
+     */
+    public IoUringFileReader onException(Consumer<Exception> exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+        return this;
+    }
+
+    /**
+     * Starts reading the whole file.
+     *
+     * @return this instance
+     */
+    public IoUringFileReader start() {
+        return start(0L, -1L);
+    }
+
+    /**
+     * Starts reading part of the file.
+     *
+     * @param offset the offset to start at
+     * @param length the number of bytes to read, or {@code -1} to read up to the end of the file
+     * @return this instance
+     */
+    public IoUringFileReader start(long offset, long length) {
+        if (started) {
+            throw new IllegalStateException("Reader already started");
+        }
+        if (offset < 0 || length < -1) {
+            throw new IllegalArgumentException("Offset must not be negative and length must not be below -1");
+        }
+        started = true;
+        nextOffset = offset;
+        endOffset = length < 0 ? Long.MAX_VALUE : offset + length;
+        advisedOffset = Math.min(offset + (long) chunkSize * slots.length, endOffset);
+        file.onRead(this::handleRead);
+        Runnable closeHandler = file.closeHandler();
+        file.onClose(() -> {
+            handleClose();
+            if (closeHandler != null) {
+                closeHandler.run();
+            }
+        });
+        if (!file.isDirect()) {
+            ring.queueFadvise(file, offset, length < 0 || length > Integer.MAX_VALUE ? 0 : (int) length,
+                IoUringFile.POSIX_FADV_SEQUENTIAL);
+        }
+        for (Slot slot : slots) {
+            if (nextOffset < endOffset) {
+                queueChunk(slot);
+            }
+        }
+        completeIfDone();
+        return this;
+    }
+
+    /**
+     * Stops reading. Reads in flight still complete, but no more chunks are handed over.
+     */
+    public void stop() {
+        finished = true;
+    }
+
+    /**
+     * Gets the number of bytes handed to the chunk handler so far.
+     *
+     * @return the byte count
+     */
+    public long bytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Checks whether the reader has handed over the whole range, or was stopped.
+     *
+     * @return whether the reader is finished
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    private void queueChunk(Slot slot) {
+        slot.offset = nextOffset;
+        slot.buffer.clear();
+        slot.buffer.limit((int) Math.min(chunkSize, endOffset - nextOffset));
+        nextOffset += slot.buffer.limit();
+        slot.state = READING;
+        queueRead(slot);
+        long window = (long) chunkSize * slots.length;
+        if (!file.isDirect() && nextOffset + window >= advisedOffset && advisedOffset < endOffset) {
+            // keep the kernel reading a window ahead of the reads in flight, which span one window themselves
+            long length = Math.min(Math.min(window, endOffset - advisedOffset), Integer.MAX_VALUE);
+            ring.queueFadvise(file, advisedOffset, (int) length, IoUringFile.POSIX_FADV_WILLNEED);
+            advisedOffset += length;
+        }
+    }
+
+    private void queueRead(Slot slot) {
+        slot.queuedPosition = slot.buffer.position();
+        ring.queueRead(file, slot.buffer, slot.offset + slot.buffer.position());
+        pending++;
+    }
+
+    private void handleRead(ByteBuffer buffer) {
+        Slot slot = find(buffer);
+        if (slot == null) {
+            return;
+        }
+        pending--;
+        int bytes = buffer.position() - slot.queuedPosition;
+        if (bytes == 0 || (file.isDirect() && buffer.hasRemaining())) {
+            // end of file, so nothing past what this chunk holds exists; direct reads only come up short at the end,
+            // where the rest could not be read anyway, as it would start at an unaligned offset
+            endOffset = Math.min(endOffset, slot.offset + buffer.position());
+            slot.state = DONE;
+        } else if (buffer.hasRemaining() && !finished) {
+            // a short read mid-file only means the kernel stopped early, so read the rest of the chunk
+            queueRead(slot);
+        } else {
+            slot.state = DONE;
+        }
+        deliverChunks();
+    }
+
+    private Slot find(ByteBuffer buffer) {
+        // queue depths are small enough that a scan beats hashing the buffer
+        for (Slot slot : slots) {
+            if (slot.buffer == buffer) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    private void deliverChunks() {
+        while (!finished && slots[deliverIndex].state == DONE) {
+            Slot slot = slots[deliverIndex];
+            slot.state = FREE;
+            deliverIndex = (deliverIndex + 1) % slots.length;
+            if (slot.offset < endOffset && slot.buffer.position() > 0) {
+                slot.buffer.flip();
+                bytesRead += slot.buffer.remaining();
+                try {
+                    if (chunkHandler != null) {
+                        chunkHandler.accept(slot.buffer, slot.offset);
+                    }
+                } catch (Exception ex) {
+                    if (exceptionHandler != null) {
+                        exceptionHandler.accept(ex);
+                    }
+                }
+            }
+            // slots are refilled in the order they are delivered, so chunk offsets keep following the slot order
+            if (!finished && nextOffset < endOffset) {
+                queueChunk(slot);
+            }
+        }
+        completeIfDone();
+    }
+
+    private void completeIfDone() {
+        if (finished || pending > 0 || slots[deliverIndex].state != FREE) {
+            return;
+        }
+        finished = true;
+        if (completeHandler != null) {
+            completeHandler.run();
+        }
+    }
+
+    private void handleClose() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (exceptionHandler != null) {
+            exceptionHandler.accept(new IllegalStateException("File closed after reading " + bytesRead + " bytes"));
+        }
+    }
+
+    private static final class Slot {
+        private final ByteBuffer buffer;
+        private long offset;
+        private int queuedPosition;
+        private int state = FREE;
+
+        Slot(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package sh.blake.niouring;
+
+import sh.blake.niouring.util.NativeLibraryLoader;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Two sockets joined by {@link IoUring#forward(AbstractIoUringSocket, AbstractIoUringSocket)}, with data moving both
+ * ways through a pipe per direction ({@code IORING_OP_SPLICE}), never leaving the kernel.
+ * <p>
+ * When one side finishes sending, the other side's output is shut down, and the forward closes both sockets once both
+ * directions are finished or either fails. Close the forward rather than one of its sockets to end it early, as the
+ * kernel holds on to a socket while a splice is waiting on it.
+ */
+public class IoUringForward {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int SHUT_WR = 1;
+    private static final int SHUT_RDWR = 2;
+
+    private final IoUring ring;
+    private final int id;
+    private final Direction forward;
+    private final Direction backward;
+    private ObjIntConsumer<AbstractIoUringSocket> forwardHandler;
+    private Runnable closeHandler;
+    private int pendingSplices = 0;
+    private boolean closed = false;
+    private boolean released = false;
+
+    /**
+     * Instantiates a new {@code IoUringForward}.
+     *
+     * @param ring the ring running the splices
+     * @param id the id of the forward on its ring
+     * @param from the socket initiating the connection
+     * @param to the socket forwarded to
+     */
+    IoUringForward(IoUring ring, int id, AbstractIoUringSocket from, AbstractIoUringSocket to) {
+        this.ring = ring;
+        this.id = id;
+        long forwardPipe = IoUringForward.createPipe();
+        long backwardPipe;
+        try {
+            backwardPipe = IoUringForward.createPipe();
+        } catch (RuntimeException ex) {
+            IoUringForward.closePipe(forwardPipe);
+            throw ex;
+        }
+        this.forward = new Direction(0, from, to, forwardPipe);
+        this.backward = new Direction(1, to, from, backwardPipe);
+    }
+
+    void start() {
+        forward.spliceIn();
+        backward.spliceIn();
+    }
+
+    void handleSpliceCompletion(int direction, boolean out, int result) {
+        pendingSplices--;
+        if (closed) {
+            if (pendingSplices == 0) {
+                release();
+            }
+            return;
+        }
+        Direction d = direction == 0 ? forward : backward;
+        try {
+            if (out) {
+                d.handleSpliceOut(result);
+            } else {
+                d.handleSpliceIn(result);
+            }
+        } catch (RuntimeException ex) {
+            // a splice that could not be queued would leave its direction stuck for good
+            close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Sets the handler called every time data reaches one of the sockets, with that socket and the number of bytes.
+     *
+     * @param forwardHandler the forward handler
+     * @return this instance
+     */
+    public IoUringForward onForward(ObjIntConsumer<AbstractIoUringSocket> forwardHandler) {
+        this.forwardHandler = forwardHandler;
+        return this;
+    }
+
+    /**
+     * Sets the handler called once the forward has closed both sockets.
+     *
+     * @param closeHandler the close handler
+     * @return this instance
+     */
+    public IoUringForward onClose(Runnable closeHandler) {
+        this.closeHandler = closeHandler;
+        return this;
+    }
+
+    /**
+     * Gets the number of bytes moved from the first socket to the second.
+     *
+     * @return the forwarded byte count
+     */
+    public long forwardedBytes() {
+        return forward.bytes;
+    }
+
+    /**
+     * Gets the number of bytes moved from the second socket back to the first.
+     *
+     * @return the returned byte count
+     */
+    public long returnedBytes() {
+        return backward.bytes;
+    }
+
+    /**
+     * Checks whether the forward has closed its sockets.
+     *
+     * @return whether the forward is closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops forwarding and closes both sockets.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // shutting down wakes splices still waiting on the sockets, which closing the descriptors would not
+        shutdownQuietly(forward.source, SHUT_RDWR);
+        shutdownQuietly(backward.source, SHUT_RDWR);
+        forward.source.close();
+        backward.source.close();
+        // splices still in flight, or not even submitted yet, would hit pipes closed under them or reused descriptors,
+        // so the pipes go once the last splice has completed
+        if (pendingSplices == 0) {
+            release();
+        }
+        if (closeHandler != null) {
+            closeHandler.run();
+        }
+    }
+
+    /**
+     * Closes the pipes and forgets the forward on its ring, once no splice is left that could use them, or once the
+     * ring is closed, which drops any that are.
+     */
+    void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        ring.removeForward(id);
+        IoUringForward.closePipe(forward.pipe);
+        IoUringForward.closePipe(backward.pipe);
+    }
+
+    private void shutdownQuietly(AbstractIoUringSocket socket, int how) {
+        try {
+            IoUringForward.shutdown(socket.fd(), how);
+        } catch (RuntimeException ex) {
+            if (socket.exceptionHandler() != null) {
+                socket.exceptionHandler().accept(ex);
+            }
+        }
+    }
+
+    private final class Direction {
+        private final int index;
+        private final AbstractIoUringSocket source;
+        private final AbstractIoUringSocket destination;
+        private final long pipe;
+        private int buffered;
+        private long bytes;
+        private boolean finished;
+
+        Direction(int index, AbstractIoUringSocket source, AbstractIoUringSocket destination, long pipe) {
+            this.index = index;
+            this.source = source;
+            this.destination = destination;
+            this.pipe = pipe;
+        }
+
+        private long tag(boolean out) {
+            // the lowest bit is left for the native side to mark poll completions
+            return ((long) id << 4) | (index << 2) | (out ? 2 : 0);
+        }
+
+        void spliceIn() {
+            ring.queueSplice(source.fd(), (int) pipe, CHUNK_SIZE, tag(false), true);
+            pendingSplices++;
+        }
+
+        void spliceOut() {
+            ring.queueSplice((int) (pipe >> 32), destination.fd(), buffered, tag(true), false);
+            pendingSplices++;
+        }
+
+        void handleSpliceIn(int result) {
+            if (result == -IoUring.EAGAIN) {
+                // woken without data after all, so wait again
+                spliceIn();
+            } else if (result < 0) {
+                close();
+            } else if (result == 0) {
+                finished = true;
+                if (forward.finished && backward.finished) {
+                    close();
+                } else {
+                    shutdownQuietly(destination, SHUT_WR);
+                }
+            } else {
+                buffered = result;
+                spliceOut();
+            }
+        }
+
+        void handleSpliceOut(int result) {
+            if (result <= 0) {
+                close();
+                return;
+            }
+            buffered -= result;
+            bytes += result;
+            if (buffered > 0) {
+                spliceOut();
+            } else {
+                spliceIn();
+            }
+            if (forwardHandler != null) {
+                forwardHandler.accept(destination, result);
+            }
+        }
+    }
+
+    static native long createPipe();
+    static native void closePipe(long pipe);
+    private static native void shutdown(int fd, int how);
+
+    static {
+        NativeLibraryLoader.load();
+    }
+}
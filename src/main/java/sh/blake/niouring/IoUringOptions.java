@@ -0,0 +1,242 @@
+package sh.blake.niouring;
+
+/**
+ * Setup options for an {@link IoUring}, mapping onto the kernel's {@code io_uring_setup} flags.
+ * <p>
+ * Modes that the running kernel does not support make the {@code IoUring} constructor throw.
+ */
+public class IoUringOptions {
+    static final int IORING_SETUP_SQPOLL = 1 << 1;
+    static final int IORING_SETUP_SQ_AFF = 1 << 2;
+    static final int IORING_SETUP_CQSIZE = 1 << 3;
+    static final int IORING_SETUP_R_DISABLED = 1 << 6;
+    static final int IORING_SETUP_COOP_TASKRUN = 1 << 8;
+    static final int IORING_SETUP_TASKRUN_FLAG = 1 << 9;
+    static final int IORING_SETUP_SINGLE_ISSUER = 1 << 12;
+    static final int IORING_SETUP_DEFER_TASKRUN = 1 << 13;
+
+    private static final int DEFAULT_RING_SIZE = 1024;
+
+    private int ringSize = DEFAULT_RING_SIZE;
+    private int completionQueueSize = 0;
+    private boolean sqPoll = false;
+    private int sqPollIdleMillis = 0;
+    private int sqPollCpu = -1;
+    private boolean singleIssuer = false;
+    private boolean deferTaskRun = false;
+    private boolean coopTaskRun = false;
+
+    /**
+     * Gets the submission queue size.
+     *
+     * @return the ring size
+     */
+    public int ringSize() {
+        return ringSize;
+    }
+
+    /**
+     * Sets the submission queue size, which bounds the number of operations that can be queued between executions.
+     * Defaults to 1024.
+     *
+     * @param ringSize the ring size
+     * @return this instance
+     */
+    public IoUringOptions ringSize(int ringSize) {
+        if (ringSize <= 0) {
+            throw new IllegalArgumentException("Ring size must be positive");
+        }
+        this.ringSize = ringSize;
+        return this;
+    }
+
+    /**
+     * Gets the explicit completion queue size, or {@code 0} if the kernel default (twice the ring size) is used.
+     *
+     * @return the completion queue size
+     */
+    public int completionQueueSize() {
+        return completionQueueSize;
+    }
+
+    /**
+     * Sets an explicit completion queue size ({@code IORING_SETUP_CQSIZE}), which must be at least the ring size.
+     * The completion queue bounds the number of operations in flight at once, so servers with many long-lived
+     * multishot or idle reads can raise it without growing the submission queue.
+     *
+     * @param completionQueueSize the completion queue size, or {@code 0} for the kernel default
+     * @return this instance
+     */
+    public IoUringOptions completionQueueSize(int completionQueueSize) {
+        if (completionQueueSize < 0) {
+            throw new IllegalArgumentException("Completion queue size must not be negative");
+        }
+        this.completionQueueSize = completionQueueSize;
+        return this;
+    }
+
+    /**
+     * Checks whether a kernel thread polls the submission queue.
+     *
+     * @return whether SQPOLL is enabled
+     */
+    public boolean isSqPoll() {
+        return sqPoll;
+    }
+
+    /**
+     * Sets whether a kernel thread polls the submission queue ({@code IORING_SETUP_SQPOLL}), so submitting no longer
+     * needs a system call while the thread is awake. The thread burns a CPU while polling and sleeps after
+     * {@link #sqPollIdleMillis(int)} without work.
+     *
+     * @param sqPoll whether to enable SQPOLL
+     * @return this instance
+     */
+    public IoUringOptions sqPoll(boolean sqPoll) {
+        this.sqPoll = sqPoll;
+        return this;
+    }
+
+    /**
+     * Gets the time the polling thread stays awake without work.
+     *
+     * @return the idle time in milliseconds, or {@code 0} for the kernel default
+     */
+    public int sqPollIdleMillis() {
+        return sqPollIdleMillis;
+    }
+
+    /**
+     * Sets how long the polling thread spins without work before going to sleep. Only used with SQPOLL.
+     *
+     * @param sqPollIdleMillis the idle time in milliseconds, or {@code 0} for the kernel default (one second)
+     * @return this instance
+     */
+    public IoUringOptions sqPollIdleMillis(int sqPollIdleMillis) {
+        if (sqPollIdleMillis < 0) {
+            throw new IllegalArgumentException("SQPOLL idle time must not be negative");
+        }
+        this.sqPollIdleMillis = sqPollIdleMillis;
+        return this;
+    }
+
+    /**
+     * Gets the CPU the polling thread is pinned to.
+     *
+     * @return the CPU, or {@code -1} if the thread is not pinned
+     */
+    public int sqPollCpu() {
+        return sqPollCpu;
+    }
+
+    /**
+     * Pins the polling thread to a CPU ({@code IORING_SETUP_SQ_AFF}). Only used with SQPOLL.
+     *
+     * @param sqPollCpu the CPU, or {@code -1} to leave the thread unpinned
+     * @return this instance
+     */
+    public IoUringOptions sqPollCpu(int sqPollCpu) {
+        if (sqPollCpu < -1) {
+            throw new IllegalArgumentException("SQPOLL CPU must be -1 or a CPU number");
+        }
+        this.sqPollCpu = sqPollCpu;
+        return this;
+    }
+
+    /**
+     * Checks whether the ring is restricted to a single submitting thread.
+     *
+     * @return whether SINGLE_ISSUER is enabled
+     */
+    public boolean isSingleIssuer() {
+        return singleIssuer;
+    }
+
+    /**
+     * Declares that only one thread ever uses the ring ({@code IORING_SETUP_SINGLE_ISSUER}, Linux >= 6.0), letting
+     * the kernel skip some synchronization. The ring binds to the thread that first executes it; registering buffers
+     * or files and executing from any other thread afterwards fails.
+     *
+     * @param singleIssuer whether to enable SINGLE_ISSUER
+     * @return this instance
+     */
+    public IoUringOptions singleIssuer(boolean singleIssuer) {
+        this.singleIssuer = singleIssuer;
+        return this;
+    }
+
+    /**
+     * Checks whether completion work is deferred until the ring is executed.
+     *
+     * @return whether DEFER_TASKRUN is enabled
+     */
+    public boolean isDeferTaskRun() {
+        return deferTaskRun;
+    }
+
+    /**
+     * Defers completion work until the ring is executed ({@code IORING_SETUP_DEFER_TASKRUN}, Linux >= 6.1), so the
+     * kernel batches it instead of interrupting the thread as each operation finishes. Implies
+     * {@link #singleIssuer(boolean)}.
+     *
+     * @param deferTaskRun whether to enable DEFER_TASKRUN
+     * @return this instance
+     */
+    public IoUringOptions deferTaskRun(boolean deferTaskRun) {
+        this.deferTaskRun = deferTaskRun;
+        return this;
+    }
+
+    /**
+     * Checks whether completion work is run cooperatively.
+     *
+     * @return whether COOP_TASKRUN is enabled
+     */
+    public boolean isCoopTaskRun() {
+        return coopTaskRun;
+    }
+
+    /**
+     * Stops the kernel from interrupting the thread to run completion work ({@code IORING_SETUP_COOP_TASKRUN},
+     * Linux >= 5.19); the work runs the next time the thread enters the kernel instead. Ignored with
+     * {@link #deferTaskRun(boolean)}, which already behaves this way.
+     *
+     * @param coopTaskRun whether to enable COOP_TASKRUN
+     * @return this instance
+     */
+    public IoUringOptions coopTaskRun(boolean coopTaskRun) {
+        this.coopTaskRun = coopTaskRun;
+        return this;
+    }
+
+    /**
+     * Computes the {@code io_uring_setup} flags for these options.
+     *
+     * @return the setup flags
+     */
+    int setupFlags() {
+        if (completionQueueSize != 0 && completionQueueSize < ringSize) {
+            throw new IllegalArgumentException("Completion queue size must be at least the ring size");
+        }
+        int flags = 0;
+        if (completionQueueSize != 0) {
+            flags |= IORING_SETUP_CQSIZE;
+        }
+        if (sqPoll) {
+            flags |= IORING_SETUP_SQPOLL;
+            if (sqPollCpu >= 0) {
+                flags |= IORING_SETUP_SQ_AFF;
+            }
+        }
+        if (singleIssuer || deferTaskRun) {
+            // created disabled so the ring binds to the thread that first executes it, not the constructing one
+            flags |= IORING_SETUP_SINGLE_ISSUER | IORING_SETUP_R_DISABLED;
+        }
+        if (deferTaskRun) {
+            flags |= IORING_SETUP_DEFER_TASKRUN;
+        } else if (coopTaskRun) {
+            flags |= IORING_SETUP_COOP_TASKRUN | IORING_SETUP_TASKRUN_FLAG;
+        }
+        return flags;
+    }
+}
@@ -1,8 +1,11 @@
 package sh.blake.niouring;
 
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
 import sh.blake.niouring.util.NativeLibraryLoader;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -13,6 +16,10 @@ public class IoUringServerSocket extends AbstractIoUringSocket {
     private static final int DEFAULT_BACKLOG = 65535;
 
     private BiConsumer<IoUring, IoUringSocket> acceptHandler;
+    private boolean directDescriptors = false;
+    private boolean multishot = false;
+    private final List<IoUringSocketOption<?>> acceptedOptions = new ArrayList<>();
+    private final IntArrayList acceptedOptionValues = new IntArrayList();
 
     /**
      * Instantiates a new {@code IoUringServerSocket}.
@@ -46,17 +53,55 @@ public class IoUringServerSocket extends AbstractIoUringSocket {
         this("127.0.0.1", port, DEFAULT_BACKLOG);
     }
 
-    IoUringSocket handleAcceptCompletion(IoUring ioUring, IoUringServerSocket serverSocket, int channelFd, String ipAddress) {
+    /**
+     * Instantiates a new {@code IoUringServerSocket} from a socket that is already bound and listening.
+     *
+     * @param fd the fd
+     * @param address the address it is bound to
+     * @param port the port it is bound to
+     */
+    IoUringServerSocket(int fd, String address, int port) {
+        super(fd, address, port);
+    }
+
+    IoUringSocket handleAcceptCompletion(IoUring ioUring, IoUringServerSocket serverSocket, int channelFd, int addressFamily,
+                                         long addressHigh, long addressLow, int remotePort, boolean direct) {
         if (channelFd < 0) {
             return null;
         }
-        IoUringSocket channel = new IoUringSocket(channelFd, ipAddress, serverSocket.port());
+        IoUringSocket channel = newAcceptedSocket(direct ? ~channelFd : channelFd, addressFamily, addressHigh, addressLow, remotePort);
+        if (direct) {
+            channel.setFixedFile(ioUring, channelFd);
+        }
+        applyAcceptedOptions(ioUring, channel);
         if (serverSocket.acceptHandler() != null) {
             serverSocket.acceptHandler().accept(ioUring, channel);
         }
         return channel;
     }
 
+    private void applyAcceptedOptions(IoUring ioUring, IoUringSocket channel) {
+        for (int i = 0; i < acceptedOptions.size(); i++) {
+            int option = acceptedOptions.get(i).id();
+            try {
+                if (channel.fd() >= 0) {
+                    AbstractIoUringSocket.setOption(channel.fd(), option, acceptedOptionValues.get(i));
+                } else {
+                    ioUring.queueOption(channel, option, acceptedOptionValues.get(i));
+                }
+            } catch (RuntimeException ex) {
+                // the connection is still usable, only not tuned
+                if (exceptionHandler() != null) {
+                    exceptionHandler().accept(ex);
+                }
+            }
+        }
+    }
+
+    IoUringSocket newAcceptedSocket(int fd, int addressFamily, long addressHigh, long addressLow, int remotePort) {
+        return new IoUringSocket(fd, port(), addressFamily, addressHigh, addressLow, remotePort);
+    }
+
     @Override
     public IoUringServerSocket onRead(Consumer<ByteBuffer> buffer) {
         throw new UnsupportedOperationException("Server socket cannot read");
@@ -76,6 +121,73 @@ public class IoUringServerSocket extends AbstractIoUringSocket {
         return acceptHandler;
     }
 
+    /**
+     * Checks whether accepted sockets are installed straight into the ring's fixed file table.
+     *
+     * @return whether direct descriptors are used
+     */
+    public boolean isDirectDescriptors() {
+        return directDescriptors;
+    }
+
+    /**
+     * Sets whether accepted sockets are installed straight into a slot of the accepting ring's fixed file table
+     * ({@code IORING_FILE_INDEX_ALLOC}) instead of getting a regular file descriptor. The ring must have a file table
+     * registered with {@link IoUring#registerFiles(int)}, and accepted sockets can only be used with that ring.
+     *
+     * @param directDescriptors whether to use direct descriptors
+     * @return this instance
+     */
+    public IoUringServerSocket directDescriptors(boolean directDescriptors) {
+        this.directDescriptors = directDescriptors;
+        return this;
+    }
+
+    /**
+     * Checks whether accepts are queued in multishot mode.
+     *
+     * @return whether multishot accept is enabled
+     */
+    public boolean isMultishot() {
+        return multishot;
+    }
+
+    /**
+     * Sets whether accepts are queued in multishot mode ({@code IORING_ACCEPT_MULTISHOT}), where a single
+     * {@link IoUring#queueAccept(IoUringServerSocket)} keeps producing accept callbacks until cancelled with
+     * {@link IoUring#queueCancel(AbstractIoUringChannel)}. Sockets accepted this way into direct descriptors have no
+     * known IP address.
+     *
+     * @param multishot whether to use multishot accept
+     * @return this instance
+     */
+    public IoUringServerSocket multishot(boolean multishot) {
+        this.multishot = multishot;
+        return this;
+    }
+
+    /**
+     * Sets a socket option on every socket accepted from now on, before the accept handler sees it. Sockets accepted
+     * into direct descriptors get the option through the ring instead, which needs Linux >= 6.7. Failures are
+     * reported to this server socket's exception handler.
+     *
+     * @param option the option
+     * @param value the value
+     * @param <T> the type of the option's value
+     * @return this instance
+     */
+    public <T> IoUringServerSocket acceptedOption(IoUringSocketOption<T> option, T value) {
+        int encoded = option.encode(value);
+        int index = acceptedOptions.indexOf(option);
+        if (index >= 0) {
+            acceptedOptionValues.set(index, encoded);
+        } else {
+            acceptedOptions.add(option);
+            acceptedOptionValues.add(encoded);
+        }
+        return this;
+    }
+
     /**
      * Sets the accept handler.
      *
@@ -1,5 +1,6 @@
 package sh.blake.niouring;
 
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
 
 /**
@@ -18,6 +19,17 @@ public class IoUringSocket extends AbstractIoUringSocket {
         super(AbstractIoUringSocket.create(), ipAddress, port);
     }
 
+    /**
+     * Instantiates a new {@code IoUringSocket} from an already connected socket, e.g. one passed over from another
+     * process with {@link IoUring#queueReceiveDescriptors(IoUringUnixSocket, ByteBuffer)}. The socket is closed along
+     * with the instance.
+     *
+     * @param fd the fd
+     */
+    public IoUringSocket(int fd) {
+        super(fd, null, 0);
+    }
+
     /**
      * Instantiates a new {@code IoUringSocket}.
      *
@@ -29,6 +41,20 @@ public class IoUringSocket extends AbstractIoUringSocket {
         super(fd, ipAddress, port);
     }
 
+    /**
+     * Instantiates a new accepted {@code IoUringSocket} from a raw peer address.
+     *
+     * @param fd            the fd
+     * @param port          the port
+     * @param addressFamily the peer address family (4 or 6, 0 if unknown)
+     * @param addressHigh   the upper 64 bits of an IPv6 peer address
+     * @param addressLow    the IPv4 peer address, or the lower 64 bits of an IPv6 peer address
+     * @param remotePort    the peer port
+     */
+    IoUringSocket(int fd, int port, int addressFamily, long addressHigh, long addressLow, int remotePort) {
+        super(fd, port, addressFamily, addressHigh, addressLow, remotePort);
+    }
+
     void handleConnectCompletion(IoUring ioUring, int result) {
         if (result != 0) {
             // TODO: better error messages, users don't have access to errno
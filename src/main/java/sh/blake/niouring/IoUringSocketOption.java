@@ -0,0 +1,168 @@
+package sh.blake.niouring;
+
+/**
+ * A typed socket option, set with {@link AbstractIoUringSocket#option(IoUringSocketOption, Object)}, through the ring
+ * with {@link IoUring#queueOption(AbstractIoUringSocket, IoUringSocketOption, Object)}, or on every accepted socket
+ * with {@link IoUringServerSocket#acceptedOption(IoUringSocketOption, Object)}:
+ * <pre>{@code
+ * serverSocket
+ *     .acceptedOption(IoUringSocketOption.TCP_NODELAY, true)
+ *     .option(IoUringSocketOption.TCP_DEFER_ACCEPT, 1);
+ * }</pre>
+ *
+ * @param <T> the type of the option's value
+ */
+public final class IoUringSocketOption<T> {
+    /**
+     * Sends small writes right away instead of waiting to coalesce them (Nagle's algorithm), which otherwise delays
+     * small replies by up to 40 ms when the peer delays its acks.
+     */
+    public static final IoUringSocketOption<Boolean> TCP_NODELAY = new IoUringSocketOption<>(0, "TCP_NODELAY", Boolean.class, false);
+
+    /**
+     * Holds back partial frames until the option is cleared or 200 ms have passed, so a response written in several
+     * pieces, like a header and a body, goes out in full packets.
+     */
+    public static final IoUringSocketOption<Boolean> TCP_CORK = new IoUringSocketOption<>(1, "TCP_CORK", Boolean.class, false);
+
+    /**
+     * Acks received data right away instead of delaying the ack. The kernel may turn this off again by itself, so it
+     * is typically set again after every read.
+     */
+    public static final IoUringSocketOption<Boolean> TCP_QUICKACK = new IoUringSocketOption<>(2, "TCP_QUICKACK", Boolean.class, false);
+
+    /**
+     * On a server socket, the number of seconds to wait for a connection's first data before completing the accept,
+     * so accepted connections can be read from right away.
+     */
+    public static final IoUringSocketOption<Integer> TCP_DEFER_ACCEPT = new IoUringSocketOption<>(3, "TCP_DEFER_ACCEPT", Integer.class, false);
+
+    /**
+     * On a server socket, the length of the queue of TCP Fast Open connections not yet accepted, which lets clients
+     * that connected before send their request in the SYN. {@code 0} disables it.
+     */
+    public static final IoUringSocketOption<Integer> TCP_FASTOPEN = new IoUringSocketOption<>(4, "TCP_FASTOPEN", Integer.class, false);
+
+    /**
+     * The size of the send buffer in bytes. The kernel doubles the value set, and reports the doubled value back.
+     */
+    public static final IoUringSocketOption<Integer> SO_SNDBUF = new IoUringSocketOption<>(5, "SO_SNDBUF", Integer.class, false);
+
+    /**
+     * The size of the receive buffer in bytes. The kernel doubles the value set, and reports the doubled value back.
+     */
+    public static final IoUringSocketOption<Integer> SO_RCVBUF = new IoUringSocketOption<>(6, "SO_RCVBUF", Integer.class, false);
+
+    /**
+     * The number of microseconds a receive busy-polls the device queue before sleeping, which trades CPU for latency.
+     * Raising it above the system default requires {@code CAP_NET_ADMIN}.
+     */
+    public static final IoUringSocketOption<Integer> SO_BUSY_POLL = new IoUringSocketOption<>(7, "SO_BUSY_POLL", Integer.class, false);
+
+    /**
+     * The CPU that handled the socket's incoming packets, for handing a connection to the ring running on that CPU.
+     * Only read here, as setting it only influences which {@code SO_REUSEPORT} socket gets new connections.
+     */
+    public static final IoUringSocketOption<Integer> SO_INCOMING_CPU = new IoUringSocketOption<>(8, "SO_INCOMING_CPU", Integer.class, true);
+
+    /**
+     * The number of seconds a close waits for unsent data to go out, or {@code -1} to close in the background, which
+     * is the default. {@code 0} resets the connection on close, skipping {@code TIME_WAIT}.
+     */
+    public static final IoUringSocketOption<Integer> SO_LINGER = new IoUringSocketOption<>(9, "SO_LINGER", Integer.class, false);
+
+    /**
+     * Allows binding to an address still in {@code TIME_WAIT}. Enabled on sockets created by this library.
+     */
+    public static final IoUringSocketOption<Boolean> SO_REUSEADDR = new IoUringSocketOption<>(10, "SO_REUSEADDR", Boolean.class, false);
+
+    /**
+     * Allows several sockets to bind the same port, with the kernel spreading connections across them. Enabled on
+     * sockets created by this library, and only effective before binding.
+     */
+    public static final IoUringSocketOption<Boolean> SO_REUSEPORT = new IoUringSocketOption<>(11, "SO_REUSEPORT", Boolean.class, false);
+
+    /**
+     * Sends keepalive probes on idle connections, so dead peers are eventually detected.
+     */
+    public static final IoUringSocketOption<Boolean> SO_KEEPALIVE = new IoUringSocketOption<>(12, "SO_KEEPALIVE", Boolean.class, false);
+
+    private static final IoUringSocketOption<?>[] OPTIONS = {
+        TCP_NODELAY, TCP_CORK, TCP_QUICKACK, TCP_DEFER_ACCEPT, TCP_FASTOPEN, SO_SNDBUF, SO_RCVBUF, SO_BUSY_POLL,
+        SO_INCOMING_CPU, SO_LINGER, SO_REUSEADDR, SO_REUSEPORT, SO_KEEPALIVE
+    };
+
+    private final int id;
+    private final String name;
+    private final Class<T> type;
+    private final boolean readOnly;
+
+    private IoUringSocketOption(int id, String name, Class<T> type, boolean readOnly) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Gets the name of the option.
+     *
+     * @return the name
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Checks whether the option can only be read.
+     *
+     * @return whether the option is read-only
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Gets the id the native side maps onto the option's level and name.
+     *
+     * @return the id
+     */
+    int id() {
+        return id;
+    }
+
+    /**
+     * Converts a value into the int passed to {@code setsockopt}, checking the option can be set.
+     *
+     * @param value the value
+     * @return the native value
+     */
+    int encode(T value) {
+        if (readOnly) {
+            throw new UnsupportedOperationException(name + " is read-only");
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Value of " + name + " must not be null");
+        }
+        return type == Boolean.class ? ((Boolean) value ? 1 : 0) : (Integer) value;
+    }
+
+    /**
+     * Converts the int read with {@code getsockopt} into the option's value.
+     *
+     * @param value the native value
+     * @return the value
+     */
+    T decode(int value) {
+        return type.cast(type == Boolean.class ? (Object) (value != 0) : (Object) value);
+    }
+
+    static IoUringSocketOption<?> forId(int id) {
+        return OPTIONS[id];
+    }
+}
@@ -0,0 +1,131 @@
+package sh.blake.niouring;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The metadata of a file, as reported by an asynchronous {@code statx} queued with
+ * {@link IoUring#queueStatx(String, java.util.function.Consumer)}.
+ */
+public class IoUringStat {
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFDIR = 0040000;
+    private static final int S_IFREG = 0100000;
+
+    // offsets into struct statx
+    private static final int MODE_OFFSET = 28;
+    private static final int INODE_OFFSET = 32;
+    private static final int SIZE_OFFSET = 40;
+    private static final int MTIME_OFFSET = 112;
+
+    private final String path;
+    private final int result;
+    private final int mode;
+    private final long inode;
+    private final long size;
+    private final long lastModified;
+
+    /**
+     * Instantiates a new {@code IoUringStat} from a filled {@code struct statx}.
+     *
+     * @param path the path
+     * @param result the result of the {@code statx}
+     * @param buffer the buffer holding the {@code struct statx}, in native byte order
+     */
+    IoUringStat(String path, int result, ByteBuffer buffer) {
+        this.path = path;
+        this.result = result;
+        if (result < 0) {
+            this.mode = 0;
+            this.inode = 0;
+            this.size = -1;
+            this.lastModified = 0;
+            return;
+        }
+        this.mode = buffer.getShort(MODE_OFFSET) & 0xFFFF;
+        this.inode = buffer.getLong(INODE_OFFSET);
+        this.size = buffer.getLong(SIZE_OFFSET);
+        this.lastModified = buffer.getLong(MTIME_OFFSET) * 1000 + buffer.getInt(MTIME_OFFSET + 8) / 1_000_000;
+    }
+
+    /**
+     * Gets the path the {@code statx} was queued with.
+     *
+     * @return the path
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * Gets the result of the {@code statx}, e.g. {@code -2} ({@code ENOENT}) for a missing file. The other accessors
+     * only describe the file if this is {@code 0}.
+     *
+     * @return {@code 0} on success, or a negative error number
+     */
+    public int result() {
+        return result;
+    }
+
+    /**
+     * Checks whether the file exists, i.e. the {@code statx} succeeded.
+     *
+     * @return whether the file exists
+     */
+    public boolean exists() {
+        return result == 0;
+    }
+
+    /**
+     * Gets the file type and permission bits ({@code st_mode}).
+     *
+     * @return the mode
+     */
+    public int mode() {
+        return mode;
+    }
+
+    /**
+     * Checks whether the file is a directory.
+     *
+     * @return whether the file is a directory
+     */
+    public boolean isDirectory() {
+        return (mode & S_IFMT) == S_IFDIR;
+    }
+
+    /**
+     * Checks whether the file is a regular file.
+     *
+     * @return whether the file is a regular file
+     */
+    public boolean isRegularFile() {
+        return (mode & S_IFMT) == S_IFREG;
+    }
+
+    /**
+     * Gets the inode number of the file.
+     *
+     * @return the inode number
+     */
+    public long inode() {
+        return inode;
+    }
+
+    /**
+     * Gets the size of the file in bytes.
+     *
+     * @return the size, or {@code -1} if the file does not exist
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Gets the time the file was last modified.
+     *
+     * @return the modification time in milliseconds since the epoch
+     */
+    public long lastModified() {
+        return lastModified;
+    }
+}
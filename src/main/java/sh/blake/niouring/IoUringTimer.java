@@ -0,0 +1,79 @@
+package sh.blake.niouring;
+
+/**
+ * A timer running on an {@link IoUring}'s thread, backed by an {@code IORING_OP_TIMEOUT} request. Created with
+ * {@link IoUring#schedule(long, java.util.concurrent.TimeUnit, Runnable)} or
+ * {@link IoUring#scheduleAtFixedRate(long, java.util.concurrent.TimeUnit, Runnable)}.
+ */
+public class IoUringTimer {
+    private final IoUring ring;
+    private final int id;
+    private final Runnable task;
+    private final long periodNanos;
+    private long userData;
+    private boolean done = false;
+
+    /**
+     * Instantiates a new {@code IoUringTimer}.
+     *
+     * @param ring the ring running the timer
+     * @param id the timer id
+     * @param task the task to run on expiry
+     * @param periodNanos the period for periodic timers, or {@code 0} for one-shot timers
+     */
+    IoUringTimer(IoUring ring, int id, Runnable task, long periodNanos) {
+        this.ring = ring;
+        this.id = id;
+        this.task = task;
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Cancels the timer. Must be called from the ring's thread.
+     */
+    public void cancel() {
+        ring.cancelTimer(this);
+    }
+
+    /**
+     * Checks whether the timer is done, either because it was cancelled or because a one-shot timer has run.
+     *
+     * @return whether the timer is done
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Checks whether the timer repeats.
+     *
+     * @return whether the timer is periodic
+     */
+    public boolean isPeriodic() {
+        return periodNanos > 0;
+    }
+
+    int id() {
+        return id;
+    }
+
+    Runnable task() {
+        return task;
+    }
+
+    long periodNanos() {
+        return periodNanos;
+    }
+
+    long userData() {
+        return userData;
+    }
+
+    void setUserData(long userData) {
+        this.userData = userData;
+    }
+
+    void setDone(boolean done) {
+        this.done = done;
+    }
+}
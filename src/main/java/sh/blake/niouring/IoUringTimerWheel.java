@@ -0,0 +1,259 @@
+package sh.blake.niouring;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A hashed timer wheel driven by a single periodic {@link IoUringTimer}, for large numbers of coarse timeouts such as
+ * per-connection idle timeouts. Adding, cancelling and touching a timeout are O(1) and cost no system calls; the
+ * kernel only sees one timeout per tick, and only while the wheel holds timeouts.
+ * <pre>{@code
+ * IoUringTimerWheel wheel = new IoUringTimerWheel(ring, 100, TimeUnit.MILLISECONDS, 512);
+ * serverSocket.onAccept((ring, socket) -> {
+ *     wheel.idleTimeout(socket, 30, TimeUnit.SECONDS); // closes the socket after 30 seconds without reads or writes
+ *     ...
+ * });
+ * }</pre>
+ * Timeouts fire on the ring's thread, up to one tick late. Like the ring, the wheel must only be used from that thread.
+ */
+public class IoUringTimerWheel {
+    private final IoUring ring;
+    private final long tickNanos;
+    private final Timeout[] buckets;
+    private final int mask;
+    private long tick = 0;
+    private int size = 0;
+    private IoUringTimer ticker;
+
+    /**
+     * Instantiates a new {@code IoUringTimerWheel}.
+     *
+     * @param ring the ring whose thread runs the timeouts
+     * @param tickDuration the duration of a tick, which is the resolution of the wheel
+     * @param unit the time unit of the tick duration
+     * @param bucketCount the number of buckets, a power of two; timeouts longer than a full turn of the wheel are
+     *                    visited once per turn
+     */
+    public IoUringTimerWheel(IoUring ring, long tickDuration, TimeUnit unit, int bucketCount) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive");
+        }
+        if (bucketCount <= 0 || Integer.bitCount(bucketCount) != 1) {
+            throw new IllegalArgumentException("Bucket count must be a power of two");
+        }
+        this.ring = ring;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.buckets = new Timeout[bucketCount];
+        this.mask = bucketCount - 1;
+    }
+
+    /**
+     * Schedules a task to run once after a delay.
+     *
+     * @param delay the delay
+     * @param unit the time unit of the delay
+     * @param task the task
+     * @return the timeout, which can be cancelled
+     */
+    public Timeout schedule(long delay, TimeUnit unit, Runnable task) {
+        Timeout timeout = new Timeout(this, null, task, 0L);
+        add(timeout, tick + ticks(unit.toNanos(delay)));
+        return timeout;
+    }
+
+    /**
+     * Closes a channel once it has gone the specified time without a completed read or write. Replaces any idle timeout
+     * the channel already has.
+     *
+     * @param channel the channel
+     * @param idleTime the maximum idle time
+     * @param unit the time unit of the idle time
+     * @return the timeout, which can be cancelled
+     */
+    public Timeout idleTimeout(AbstractIoUringChannel channel, long idleTime, TimeUnit unit) {
+        return idleTimeout(channel, idleTime, unit, channel::close);
+    }
+
+    /**
+     * Runs a handler once a channel has gone the specified time without a completed read or write. Replaces any idle
+     * timeout the channel already has. The timeout ends when it fires, is cancelled, or the channel is closed.
+     *
+     * @param channel the channel
+     * @param idleTime the maximum idle time
+     * @param unit the time unit of the idle time
+     * @param idleHandler the handler
+     * @return the timeout, which can be cancelled
+     */
+    public Timeout idleTimeout(AbstractIoUringChannel channel, long idleTime, TimeUnit unit, Runnable idleHandler) {
+        if (channel.idleTimeout() != null) {
+            channel.idleTimeout().cancel();
+        }
+        long idleTicks = ticks(unit.toNanos(idleTime));
+        Timeout timeout = new Timeout(this, channel, idleHandler, idleTicks);
+        timeout.lastActivityTick = tick;
+        channel.setIdleTimeout(timeout);
+        add(timeout, tick + idleTicks);
+        return timeout;
+    }
+
+    /**
+     * Gets the number of pending timeouts.
+     *
+     * @return the number of timeouts
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Drops every pending timeout without running it and stops the wheel's timer.
+     */
+    public void close() {
+        for (int i = 0; i < buckets.length; i++) {
+            for (Timeout timeout = buckets[i]; timeout != null; timeout = timeout.next) {
+                timeout.bucket = -1;
+                if (timeout.channel != null && timeout.channel.idleTimeout() == timeout) {
+                    timeout.channel.setIdleTimeout(null);
+                }
+            }
+            buckets[i] = null;
+        }
+        size = 0;
+        stopTicker();
+    }
+
+    private long ticks(long nanos) {
+        // round up, so a timeout never fires early
+        return Math.max(1L, (nanos + tickNanos - 1) / tickNanos);
+    }
+
+    private void add(Timeout timeout, long deadlineTick) {
+        int bucket = (int) (deadlineTick & mask);
+        timeout.deadlineTick = deadlineTick;
+        timeout.bucket = bucket;
+        timeout.prev = null;
+        timeout.next = buckets[bucket];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        buckets[bucket] = timeout;
+        if (size++ == 0 && ticker == null) {
+            ticker = ring.scheduleAtFixedRate(tickNanos, TimeUnit.NANOSECONDS, this::onTick);
+        }
+    }
+
+    private void remove(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+        size--;
+    }
+
+    private void onTick() {
+        tick++;
+        int bucket = (int) (tick & mask);
+        Timeout timeout = buckets[bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.deadlineTick <= tick) {
+                remove(timeout);
+                expire(timeout);
+                if (next != null && next.bucket != bucket) {
+                    // the task cancelled the next timeout, so start over; whatever is left is due on a later turn
+                    next = buckets[bucket];
+                }
+            }
+            timeout = next;
+        }
+        if (size == 0) {
+            stopTicker();
+        }
+    }
+
+    private void expire(Timeout timeout) {
+        if (timeout.channel != null) {
+            if (timeout.channel.idleTimeout() != timeout) {
+                return;
+            }
+            // touching only records the tick, so an active channel is pushed back here instead of on every completion
+            long idleDeadline = timeout.lastActivityTick + timeout.idleTicks;
+            if (idleDeadline > tick) {
+                add(timeout, idleDeadline);
+                return;
+            }
+            timeout.channel.setIdleTimeout(null);
+        }
+        try {
+            timeout.task.run();
+        } catch (Exception ex) {
+            if (ring.exceptionHandler() != null) {
+                ring.exceptionHandler().accept(ex);
+            }
+        }
+    }
+
+    private void stopTicker() {
+        if (ticker != null) {
+            ticker.cancel();
+            ticker = null;
+        }
+    }
+
+    /**
+     * A timeout pending in an {@link IoUringTimerWheel}.
+     */
+    public static class Timeout {
+        private final IoUringTimerWheel wheel;
+        private final AbstractIoUringChannel channel;
+        private final Runnable task;
+        private final long idleTicks;
+        private long lastActivityTick;
+        private long deadlineTick;
+        private int bucket = -1;
+        private Timeout prev;
+        private Timeout next;
+
+        Timeout(IoUringTimerWheel wheel, AbstractIoUringChannel channel, Runnable task, long idleTicks) {
+            this.wheel = wheel;
+            this.channel = channel;
+            this.task = task;
+            this.idleTicks = idleTicks;
+        }
+
+        /**
+         * Cancels the timeout.
+         */
+        public void cancel() {
+            if (bucket >= 0) {
+                wheel.remove(this);
+            }
+            if (channel != null && channel.idleTimeout() == this) {
+                channel.setIdleTimeout(null);
+            }
+        }
+
+        /**
+         * Records activity on an idle timeout's channel, restarting its idle time. Completed reads and writes touch the
+         * timeout automatically.
+         */
+        public void touch() {
+            lastActivityTick = wheel.tick;
+        }
+
+        /**
+         * Checks whether the timeout is still pending.
+         *
+         * @return whether the timeout is pending
+         */
+        public boolean isPending() {
+            return bucket >= 0;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package sh.blake.niouring;
+
+import sh.blake.niouring.util.NativeLibraryLoader;
+
+import java.io.File;
+
+/**
+ * An {@link IoUringServerSocket} listening on a unix domain socket ({@code AF_UNIX}). It is accepted from with
+ * {@link IoUring#queueAccept(IoUringServerSocket)} like a TCP server socket, and every accepted socket is an
+ * {@link IoUringUnixSocket}:
+ * <pre>{@code
+ * IoUringUnixServerSocket serverSocket = new IoUringUnixServerSocket("@sidecar");
+ * serverSocket.onAccept((ring, socket) -> ring.queueRead(socket, buffer));
+ * }</pre>
+ * A path in the file system must not exist yet, and is deleted when the server socket is closed. Abstract names,
+ * prefixed with {@code @}, need no cleanup.
+ */
+public class IoUringUnixServerSocket extends IoUringServerSocket {
+    private static final int DEFAULT_BACKLOG = 65535;
+
+    private final String path;
+
+    /**
+     * Instantiates a new stream {@code IoUringUnixServerSocket} with a default backlog size of {@code DEFAULT_BACKLOG}.
+     *
+     * @param path the path to bind to, or an abstract name prefixed with {@code @}
+     */
+    public IoUringUnixServerSocket(String path) {
+        this(path, DEFAULT_BACKLOG, false);
+    }
+
+    /**
+     * Instantiates a new {@code IoUringUnixServerSocket}.
+     *
+     * @param path the path to bind to, or an abstract name prefixed with {@code @}
+     * @param backlog the backlog size
+     * @param seqpacket whether to use {@code SOCK_SEQPACKET} instead of {@code SOCK_STREAM}
+     */
+    public IoUringUnixServerSocket(String path, int backlog, boolean seqpacket) {
+        super(bindOrClose(IoUringUnixSocket.open(path, seqpacket), path, backlog), null, 0);
+        this.path = path;
+    }
+
+    /**
+     * Gets the path the server socket is bound to, or its abstract name prefixed with {@code @}.
+     *
+     * @return the path
+     */
+    public String path() {
+        return path;
+    }
+
+    @Override
+    IoUringSocket newAcceptedSocket(int fd, int addressFamily, long addressHigh, long addressLow, int remotePort) {
+        return new IoUringUnixSocket(fd, path);
+    }
+
+    @Override
+    public void close() {
+        boolean wasOpen = !isClosed();
+        super.close();
+        if (wasOpen && !path.startsWith("@")) {
+            new File(path).delete();
+        }
+    }
+
+    private static int bindOrClose(int fd, String path, int backlog) {
+        try {
+            IoUringUnixServerSocket.bind(fd, IoUringUnixSocket.encodeAddress(path), backlog);
+            return fd;
+        } catch (RuntimeException ex) {
+            AbstractIoUringChannel.close(fd);
+            throw ex;
+        }
+    }
+
+    private static native void bind(int fd, byte[] address, int backlog);
+
+    static {
+        NativeLibraryLoader.load();
+    }
+}
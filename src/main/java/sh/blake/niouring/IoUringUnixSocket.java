@@ -0,0 +1,134 @@
+package sh.blake.niouring;
+
+import sh.blake.niouring.util.NativeLibraryLoader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+/**
+ * An {@link IoUringSocket} over a unix domain socket ({@code AF_UNIX}), for talking to processes on the same host
+ * without going through the TCP stack. It is connected with {@link IoUring#queueConnect(IoUringSocket)} and read and
+ * written like any other socket.
+ * <p>
+ * Addresses are file system paths, or names in the abstract namespace when they start with {@code @}, which need no
+ * file and disappear with the last socket using them. A stream socket behaves like a TCP connection, while a
+ * {@code SOCK_SEQPACKET} socket keeps the boundaries of every write, so each read returns exactly one message.
+ * <p>
+ * Open descriptors can be passed to the peer with
+ * {@link IoUring#queueSendDescriptors(IoUringUnixSocket, ByteBuffer, int...)}, and are received with
+ * {@link IoUring#queueReceiveDescriptors(IoUringUnixSocket, ByteBuffer)}.
+ */
+public class IoUringUnixSocket extends IoUringSocket {
+    private static final int MAX_ADDRESS_LENGTH = 107;
+
+    private final String path;
+    private BiConsumer<ByteBuffer, int[]> descriptorHandler;
+
+    /**
+     * Instantiates a new stream {@code IoUringUnixSocket}.
+     *
+     * @param path the path of the server socket, or its abstract name prefixed with {@code @}
+     */
+    public IoUringUnixSocket(String path) {
+        this(path, false);
+    }
+
+    /**
+     * Instantiates a new {@code IoUringUnixSocket}.
+     *
+     * @param path the path of the server socket, or its abstract name prefixed with {@code @}
+     * @param seqpacket whether to use {@code SOCK_SEQPACKET} instead of {@code SOCK_STREAM}
+     */
+    public IoUringUnixSocket(String path, boolean seqpacket) {
+        this(IoUringUnixSocket.open(path, seqpacket), path);
+    }
+
+    /**
+     * Instantiates a new {@code IoUringUnixSocket} for an accepted connection.
+     *
+     * @param fd the fd
+     * @param path the path of the server socket that accepted it
+     */
+    IoUringUnixSocket(int fd, String path) {
+        super(fd, null, 0);
+        this.path = path;
+    }
+
+    /**
+     * Gets the path of the server socket, or its abstract name prefixed with {@code @}.
+     *
+     * @return the path
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * Sets the handler called when a receive queued with
+     * {@link IoUring#queueReceiveDescriptors(IoUringUnixSocket, ByteBuffer)} completes, with the buffer, its position
+     * advanced past the bytes read, and the descriptors that came with them. The descriptors belong to the handler,
+     * which must close them or wrap them, e.g. with {@link IoUringSocket#IoUringSocket(int)}.
+     *
+     * @param descriptorHandler the descriptor handler
+     * @return this instance
+     */
+    public IoUringUnixSocket onDescriptors(BiConsumer<ByteBuffer, int[]> descriptorHandler) {
+        this.descriptorHandler = descriptorHandler;
+        return this;
+    }
+
+    void handleDescriptorsCompletion(ByteBuffer buffer, int bytesRead, int[] fds) {
+        if (idleTimeout() != null) {
+            idleTimeout().touch();
+        }
+        if (bytesRead < 0) {
+            close();
+            return;
+        }
+        buffer.position(buffer.position() + bytesRead);
+        if (descriptorHandler != null) {
+            descriptorHandler.accept(buffer, fds);
+        } else {
+            for (int fd : fds) {
+                AbstractIoUringChannel.close(fd);
+            }
+        }
+    }
+
+    /**
+     * Creates a socket after checking the address, so an invalid one does not leak a descriptor.
+     *
+     * @param path the address
+     * @param seqpacket whether to use {@code SOCK_SEQPACKET}
+     * @return the fd
+     */
+    static int open(String path, boolean seqpacket) {
+        IoUringUnixSocket.encodeAddress(path);
+        return IoUringUnixSocket.create(seqpacket);
+    }
+
+    /**
+     * Encodes a unix socket address the way the kernel expects it in {@code sun_path}, with a leading NUL for the
+     * abstract namespace.
+     *
+     * @param path the path, or an abstract name prefixed with {@code @}
+     * @return the encoded address
+     */
+    static byte[] encodeAddress(String path) {
+        byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0 || bytes.length > MAX_ADDRESS_LENGTH) {
+            throw new IllegalArgumentException("Unix socket address must be 1 to " + MAX_ADDRESS_LENGTH + " bytes long");
+        }
+        if (bytes[0] == '@') {
+            bytes[0] = 0;
+        }
+        return bytes;
+    }
+
+    static native int create(boolean seqpacket);
+
+    static {
+        NativeLibraryLoader.load();
+    }
+}
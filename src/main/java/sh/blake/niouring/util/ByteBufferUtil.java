@@ -7,6 +7,10 @@ import java.nio.charset.StandardCharsets;
  * Utility methods for byte buffers.
  */
 public class ByteBufferUtil {
+    /**
+     * The alignment that satisfies {@code O_DIRECT} on common file systems and devices: the usual page size.
+     */
+    public static final int PAGE_SIZE = 4096;
 
     /**
      * Wrap a direct byte buffer.
@@ -43,4 +47,53 @@ public class ByteBufferUtil {
         buffer.flip();
         return (ByteBuffer) ByteBuffer.allocateDirect(buffer.remaining()).put(buffer).flip();
     }
+
+    /**
+     * Allocates a direct byte buffer whose first byte is page-aligned, as required for {@code O_DIRECT} I/O.
+     *
+     * @param capacity the capacity
+     * @return the aligned byte buffer
+     */
+    public static ByteBuffer allocateAligned(int capacity) {
+        return allocateAligned(capacity, PAGE_SIZE);
+    }
+
+    /**
+     * Allocates a direct byte buffer whose first byte is aligned to the specified power of two, e.g. the
+     * {@code directAlignment()} of an {@code IoUringFile}. The buffer is a slice of a slightly larger allocation,
+     * which it keeps reachable.
+     *
+     * @param capacity the capacity
+     * @param alignment the alignment in bytes, a power of two
+     * @return the aligned byte buffer
+     */
+    public static ByteBuffer allocateAligned(int capacity, int alignment) {
+        if (alignment <= 0 || Integer.bitCount(alignment) != 1) {
+            throw new IllegalArgumentException("Alignment must be a power of two");
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(capacity + alignment - 1);
+        int offset = (int) (-address(buffer) & (alignment - 1));
+        buffer.position(offset);
+        buffer.limit(offset + capacity);
+        return buffer.slice();
+    }
+
+    /**
+     * Gets the native address of a direct byte buffer's first byte.
+     *
+     * @param buffer the direct byte buffer
+     * @return the address
+     */
+    public static long address(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer must be direct");
+        }
+        return ByteBufferUtil.addressOf(buffer);
+    }
+
+    private static native long addressOf(ByteBuffer buffer);
+
+    static {
+        NativeLibraryLoader.load();
+    }
 }
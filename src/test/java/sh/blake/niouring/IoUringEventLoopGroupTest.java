@@ -0,0 +1,49 @@
+package sh.blake.niouring;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IoUringEventLoopGroupTest extends TestBase {
+
+    @Test
+    public void test_group_accept_and_stop_should_succeed() throws InterruptedException {
+        int port = randomPort();
+
+        AtomicInteger accepted = new AtomicInteger();
+        IoUringEventLoopGroup group = new IoUringEventLoopGroup(2, new IoUringOptions().ringSize(TEST_RING_SIZE))
+            .onException(Exception::printStackTrace)
+            .onAccept((ring, socket) -> {
+                accepted.incrementAndGet();
+                socket.close();
+            })
+            .listen(port)
+            .start();
+
+        AtomicBoolean connected = new AtomicBoolean(false);
+        IoUringSocket socket = new IoUringSocket("127.0.0.1", port);
+        socket.onException(Exception::printStackTrace);
+        socket.onConnect(ring -> {
+            connected.set(true);
+            socket.close();
+        });
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .queueConnect(socket);
+
+        attemptUntil(ioUring::execute, connected::get);
+        for (int i = 0; i < MAX_ATTEMPTS && accepted.get() == 0; i++) {
+            Thread.sleep(50);
+        }
+
+        ioUring.close();
+
+        Assert.assertTrue("Client connected", connected.get());
+        Assert.assertEquals("Group accepted connection", 1, accepted.get());
+        Assert.assertTrue("Group stopped gracefully", group.stop(5, TimeUnit.SECONDS));
+    }
+}
@@ -1,12 +1,20 @@
 package sh.blake.niouring;
 
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
+import sh.blake.niouring.util.ByteBufferUtil;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class IoUringFileTest extends TestBase {
 
@@ -64,4 +72,302 @@ public class IoUringFileTest extends TestBase {
 
         Assert.assertTrue("File seek successfully", seekSuccessfully.get());
     }
+
+    @Test
+    public void read_into_registered_buffer_should_succeed() {
+        String fileName = "src/test/resources/test-file.txt";
+        AtomicBoolean readSuccessfully = new AtomicBoolean(false);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+
+        IoUringFile file = new IoUringFile(fileName);
+        file.onRead(in -> {
+            in.flip();
+            if (in == buffer && StandardCharsets.UTF_8.decode(in).toString().startsWith("Hello, world!")) {
+                readSuccessfully.set(true);
+            }
+        });
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .registerBuffers(buffer)
+            .queueReadFixed(file, 0);
+
+        attemptUntil(ioUring::execute, readSuccessfully::get);
+        ioUring.close();
+
+        Assert.assertTrue("File read into registered buffer", readSuccessfully.get());
+    }
+
+    @Test
+    public void vectored_read_should_fill_buffers_in_order() {
+        String fileName = "src/test/resources/test-file.txt";
+        AtomicBoolean readSuccessfully = new AtomicBoolean(false);
+        ByteBuffer first = ByteBuffer.allocateDirect(7);
+        ByteBuffer second = ByteBuffer.allocateDirect(6);
+
+        IoUringFile file = new IoUringFile(fileName);
+        file.onReadv((buffers, bytesRead) -> {
+            buffers[0].flip();
+            buffers[1].flip();
+            String fileStr = StandardCharsets.UTF_8.decode(buffers[0]) + "|" + StandardCharsets.UTF_8.decode(buffers[1]);
+            if (bytesRead == 13 && fileStr.equals("Hello, |world!")) {
+                readSuccessfully.set(true);
+            }
+        });
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .queueReadv(file, first, second);
+
+        attemptUntil(ioUring::execute, readSuccessfully::get);
+        ioUring.close();
+
+        Assert.assertTrue("File read into both buffers", readSuccessfully.get());
+    }
+
+    @Test
+    public void write_with_open_options_should_read_back() throws IOException {
+        File tempFile = File.createTempFile("nio_uring", ".txt");
+        tempFile.deleteOnExit();
+        AtomicBoolean readBack = new AtomicBoolean(false);
+
+        IoUringFile file = new IoUringFile(tempFile.getPath(), new IoUringFileOptions().write(true).truncate(true));
+        IoUring ioUring = new IoUring(TEST_RING_SIZE).onException(Exception::printStackTrace);
+        file.onWrite(out -> ioUring.queueRead(file, ByteBuffer.allocateDirect(64)));
+        file.onRead(in -> {
+            in.flip();
+            readBack.set(StandardCharsets.UTF_8.decode(in).toString().equals("Written with options"));
+        });
+        ioUring.queueWrite(file, ByteBufferUtil.wrapDirect("Written with options"));
+
+        attemptUntil(ioUring::execute, readBack::get);
+        ioUring.close();
+        file.close();
+
+        Assert.assertTrue("File read back", readBack.get());
+    }
+
+    @Test
+    public void aligned_buffer_should_start_on_a_page() {
+        ByteBuffer buffer = ByteBufferUtil.allocateAligned(8192);
+
+        Assert.assertEquals("Aligned address", 0, ByteBufferUtil.address(buffer) % ByteBufferUtil.PAGE_SIZE);
+        Assert.assertEquals("Aligned capacity", 8192, buffer.capacity());
+    }
+
+    @Test
+    public void direct_io_should_write_aligned_and_reject_unaligned() throws IOException {
+        File tempFile = File.createTempFile("nio_uring", ".bin", new File("."));
+        tempFile.deleteOnExit();
+        IoUringFile file;
+        try {
+            file = new IoUringFile(tempFile.getPath(), new IoUringFileOptions().write(true).direct(true));
+        } catch (RuntimeException ex) {
+            Assume.assumeNoException("File system does not support O_DIRECT", ex);
+            return;
+        }
+        int alignment = file.directAlignment();
+        AtomicInteger written = new AtomicInteger(-1);
+        file.onWrite(out -> written.set(out.position()));
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE).onException(Exception::printStackTrace);
+        try {
+            ioUring.queueWrite(file, ByteBuffer.allocateDirect(alignment + 1), 0);
+            Assert.fail("Unaligned length accepted");
+        } catch (IllegalArgumentException expected) {
+            // the kernel would have failed it with EINVAL
+        }
+        ioUring.queueWrite(file, ByteBufferUtil.allocateAligned(alignment, alignment), alignment);
+
+        attemptUntil(ioUring::execute, () -> written.get() >= 0);
+        ioUring.close();
+        file.close();
+
+        Assert.assertEquals("Aligned block written", alignment, written.get());
+    }
+
+    @Test
+    public void append_log_should_group_commit_and_track_offsets() throws IOException {
+        File tempFile = File.createTempFile("nio_uring", ".log");
+        tempFile.deleteOnExit();
+        AtomicInteger durable = new AtomicInteger(0);
+        AtomicInteger lastOffset = new AtomicInteger(-1);
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE).onException(Exception::printStackTrace);
+        IoUringAppendLog log = new IoUringAppendLog(ioUring, tempFile.getPath(), 1024 * 1024)
+            .onException(Exception::printStackTrace);
+        for (int i = 0; i < 3; i++) {
+            log.append(ByteBufferUtil.wrapDirect("record" + i + "\n"), offset -> {
+                durable.incrementAndGet();
+                lastOffset.set((int) offset);
+            });
+        }
+
+        attemptUntil(ioUring::execute, () -> durable.get() == 3);
+        log.close();
+        ioUring.close();
+
+        Assert.assertEquals("Records durable", 3, durable.get());
+        Assert.assertEquals("Offset of last record", 16, lastOffset.get());
+        Assert.assertEquals("Durable offset", 24, log.durableOffset());
+        Assert.assertEquals("Log length", 24, tempFile.length());
+    }
+
+    @Test
+    public void append_log_should_resume_short_write() throws IOException {
+        File tempFile = File.createTempFile("nio_uring", ".log");
+        tempFile.deleteOnExit();
+        // a write crossing the file system's maximum file size is cut short at it, and the rest then fails with EFBIG
+        long maxFileSize;
+        try (RandomAccessFile raf = new RandomAccessFile(tempFile, "rw")) {
+            maxFileSize = maxFileSize(raf);
+            raf.setLength(maxFileSize - 4);
+        }
+        List<Exception> exceptions = new ArrayList<>();
+        AtomicBoolean durable = new AtomicBoolean(false);
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE).onException(Exception::printStackTrace);
+        IoUringAppendLog log = new IoUringAppendLog(ioUring, tempFile.getPath(), 1024 * 1024)
+            .onException(exceptions::add);
+        log.append(ByteBufferUtil.wrapDirect("record\n"), offset -> durable.set(true));
+
+        attemptUntil(ioUring::execute, () -> exceptions.stream().anyMatch(IoUringChainException.class::isInstance));
+        log.close();
+        ioUring.close();
+
+        IoUringChainException failure = (IoUringChainException) exceptions.stream()
+            .filter(IoUringChainException.class::isInstance)
+            .findFirst()
+            .orElseThrow(AssertionError::new);
+        Assert.assertEquals("Rest of the record was written again", 0, failure.link());
+        Assert.assertEquals("Rest of the record did not fit", -27, failure.result());
+        Assert.assertFalse("Record not durable", durable.get());
+        Assert.assertEquals("Log length", maxFileSize, tempFile.length());
+    }
+
+    private static long maxFileSize(RandomAccessFile file) {
+        long low = 0;
+        long high = Long.MAX_VALUE;
+        while (low < high) {
+            long mid = low + (high - low + 1) / 2;
+            try {
+                file.setLength(mid);
+                low = mid;
+            } catch (IOException ex) {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    @Test
+    public void queued_open_should_deliver_readable_file() {
+        String fileName = "src/test/resources/test-file.txt";
+        AtomicBoolean readSuccessfully = new AtomicBoolean(false);
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE).onException(Exception::printStackTrace);
+        ioUring.queueOpen(fileName, new IoUringFileOptions(), file -> {
+            file.onRead(in -> {
+                in.flip();
+                readSuccessfully.set(StandardCharsets.UTF_8.decode(in).toString().startsWith("Hello, world!"));
+                file.close();
+            });
+            ioUring.queueRead(file, ByteBuffer.allocateDirect(64));
+        });
+
+        attemptUntil(ioUring::execute, readSuccessfully::get);
+        ioUring.close();
+
+        Assert.assertTrue("File opened and read", readSuccessfully.get());
+    }
+
+    @Test
+    public void batched_statx_should_report_every_path() {
+        String[] paths = new String[TEST_RING_SIZE];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = i % 2 == 0 ? "src/test/resources/test-file.txt" : "src/test/resources/missing-" + i;
+        }
+        AtomicInteger found = new AtomicInteger(0);
+        AtomicInteger missing = new AtomicInteger(0);
+        long expectedSize = new File(paths[0]).length();
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE).onException(Exception::printStackTrace);
+        ioUring.queueStatx(paths, stat -> {
+            if (stat.exists() && stat.isRegularFile() && stat.size() == expectedSize) {
+                found.incrementAndGet();
+            } else if (stat.result() == -2) {
+                missing.incrementAndGet();
+            }
+        });
+
+        attemptUntil(ioUring::execute, () -> found.get() + missing.get() == paths.length);
+        ioUring.close();
+
+        Assert.assertEquals("Existing files", TEST_RING_SIZE / 2, found.get());
+        Assert.assertEquals("Missing files", TEST_RING_SIZE / 2, missing.get());
+    }
+
+    @Test
+    public void file_reader_should_deliver_chunks_in_order() {
+        String fileName = "src/test/resources/test-file.txt";
+        int chunkSize = 16;
+        StringBuilder contents = new StringBuilder();
+        AtomicLong expectedOffset = new AtomicLong(0);
+        AtomicBoolean inOrder = new AtomicBoolean(true);
+        AtomicBoolean complete = new AtomicBoolean(false);
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE).onException(Exception::printStackTrace);
+        IoUringFile file = new IoUringFile(fileName, new IoUringFileOptions());
+        new IoUringFileReader(ioUring, file, chunkSize, 3)
+            .onChunk((chunk, offset) -> {
+                inOrder.compareAndSet(true, offset == expectedOffset.getAndAdd(chunk.remaining()));
+                contents.append(StandardCharsets.UTF_8.decode(chunk));
+            })
+            .onComplete(() -> complete.set(true))
+            .onException(Exception::printStackTrace)
+            .start();
+
+        attemptUntil(ioUring::execute, complete::get);
+        ioUring.close();
+        file.close();
+
+        Assert.assertTrue("Reader completed", complete.get());
+        Assert.assertTrue("Chunks in order", inOrder.get());
+        Assert.assertTrue("Whole file read", contents.toString().startsWith("Hello, world!"));
+        Assert.assertEquals("Byte count", new File(fileName).length(), expectedOffset.get());
+    }
+
+    @Test
+    public void direct_file_reader_should_deliver_unaligned_tail() throws IOException {
+        File tempFile = File.createTempFile("nio_uring", ".bin", new File("."));
+        tempFile.deleteOnExit();
+        IoUringFile file;
+        try {
+            file = new IoUringFile(tempFile.getPath(), new IoUringFileOptions().direct(true));
+        } catch (RuntimeException ex) {
+            Assume.assumeNoException("File system does not support O_DIRECT", ex);
+            return;
+        }
+        int alignment = file.directAlignment();
+        long length = alignment * 2L + 100;
+        try (RandomAccessFile raf = new RandomAccessFile(tempFile, "rw")) {
+            raf.setLength(length);
+        }
+        AtomicLong received = new AtomicLong(0);
+        AtomicBoolean complete = new AtomicBoolean(false);
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE).onException(Exception::printStackTrace);
+        new IoUringFileReader(ioUring, file, alignment, 2)
+            .onChunk((chunk, offset) -> received.addAndGet(chunk.remaining()))
+            .onComplete(() -> complete.set(true))
+            .onException(Exception::printStackTrace)
+            .start();
+
+        attemptUntil(ioUring::execute, complete::get);
+        ioUring.close();
+        file.close();
+
+        Assert.assertTrue("Reader completed", complete.get());
+        Assert.assertEquals("Byte count", length, received.get());
+    }
 }
@@ -4,9 +4,14 @@ import org.junit.Assert;
 import org.junit.Test;
 import sh.blake.niouring.util.ByteBufferUtil;
 
+import java.io.File;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class IoUringSocketTest extends TestBase {
 
@@ -15,9 +20,11 @@ public class IoUringSocketTest extends TestBase {
         int port = randomPort();
 
         AtomicBoolean accepted = new AtomicBoolean(false);
+        AtomicReference<String> peerAddress = new AtomicReference<>();
         IoUringServerSocket serverSocket = new IoUringServerSocket(port);
         serverSocket.onAccept((ring, socket) -> {
             accepted.set(true);
+            peerAddress.set(socket.ipAddress());
             serverSocket.close();
         });
         serverSocket.onException(Exception::printStackTrace);
@@ -41,6 +48,178 @@ public class IoUringSocketTest extends TestBase {
 
         Assert.assertTrue("Server accepted connection", accepted.get());
         Assert.assertTrue("Client connected", connected.get());
+        Assert.assertEquals("Peer address decoded", "127.0.0.1", peerAddress.get());
+    }
+
+    @Test
+    public void test_connect_with_ring_options_should_succeed() {
+        int port = randomPort();
+
+        AtomicBoolean accepted = new AtomicBoolean(false);
+        IoUringServerSocket serverSocket = new IoUringServerSocket(port);
+        serverSocket.onAccept((ring, socket) -> {
+            accepted.set(true);
+            socket.close();
+            serverSocket.close();
+        });
+        serverSocket.onException(Exception::printStackTrace);
+
+        AtomicBoolean connected = new AtomicBoolean(false);
+        IoUringSocket socket = new IoUringSocket("127.0.0.1", port);
+        socket.onException(Exception::printStackTrace);
+        socket.onConnect(ring -> {
+            connected.set(true);
+            socket.close();
+        });
+
+        IoUringOptions options = new IoUringOptions()
+            .ringSize(TEST_RING_SIZE)
+            .completionQueueSize(TEST_RING_SIZE * 4)
+            .coopTaskRun(true);
+        IoUring ioUring = new IoUring(options)
+            .onException(Exception::printStackTrace)
+            .queueAccept(serverSocket)
+            .queueConnect(socket);
+
+        attemptUntil(ioUring::execute, () -> accepted.get() && connected.get());
+
+        ioUring.close();
+
+        Assert.assertTrue("Server accepted connection", accepted.get());
+        Assert.assertTrue("Client connected", connected.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_ring_options_with_small_completion_queue_should_be_rejected() {
+        new IoUring(new IoUringOptions().ringSize(TEST_RING_SIZE).completionQueueSize(TEST_RING_SIZE / 2));
+    }
+
+    @Test
+    public void test_transfer_accepted_socket_to_other_ring_should_succeed() {
+        int port = randomPort();
+        String message = "Transferred over port " + port;
+
+        IoUring acceptor = new IoUring(TEST_RING_SIZE).onException(Exception::printStackTrace);
+        IoUring worker = new IoUring(TEST_RING_SIZE).onException(Exception::printStackTrace);
+
+        AtomicReference<IoUring> transferredTo = new AtomicReference<>();
+        worker.onTransfer((ring, socket) -> {
+            transferredTo.set(ring);
+            socket.onWrite(out -> socket.close());
+            ring.queueWrite(socket, ByteBufferUtil.wrapDirect(message));
+        });
+
+        IoUringServerSocket serverSocket = new IoUringServerSocket(port);
+        serverSocket.onException(Exception::printStackTrace);
+        serverSocket.onAccept((ring, socket) -> {
+            ring.transfer(socket, worker);
+            serverSocket.close();
+        });
+
+        AtomicBoolean clientReceived = new AtomicBoolean(false);
+        IoUringSocket socket = new IoUringSocket("127.0.0.1", port);
+        socket.onException(Exception::printStackTrace);
+        socket.onConnect(ring -> ring.queueRead(socket, ByteBuffer.allocateDirect(64)));
+        socket.onRead(in -> {
+            in.flip();
+            clientReceived.set(StandardCharsets.UTF_8.decode(in).toString().equals(message));
+            socket.close();
+        });
+
+        acceptor.queueAccept(serverSocket).queueConnect(socket);
+
+        // the worker runs twice per round: once to receive the socket, once to submit the write its handler queued
+        attemptUntil(() -> {
+            acceptor.execute();
+            worker.executeNow();
+            worker.executeNow();
+        }, clientReceived::get);
+
+        acceptor.close();
+        worker.close();
+
+        Assert.assertSame("Worker received socket", worker, transferredTo.get());
+        Assert.assertTrue("Client received data from worker", clientReceived.get());
+    }
+
+    @Test
+    public void test_chain_write_then_close_should_succeed() {
+        int port = randomPort();
+        String message = "Chained over port " + port;
+
+        AtomicBoolean serverClosed = new AtomicBoolean(false);
+        IoUringServerSocket serverSocket = new IoUringServerSocket(port);
+        serverSocket.onException(Exception::printStackTrace);
+        serverSocket.onAccept((ring, socket) -> {
+            socket.onClose(() -> serverClosed.set(true));
+            ring.chain()
+                .write(socket, ByteBufferUtil.wrapDirect(message))
+                .close(socket)
+                .onException(Exception::printStackTrace)
+                .queue();
+            serverSocket.close();
+        });
+
+        AtomicBoolean clientReceived = new AtomicBoolean(false);
+        IoUringSocket socket = new IoUringSocket("127.0.0.1", port);
+        socket.onException(Exception::printStackTrace);
+        socket.onConnect(ring -> ring.queueRead(socket, ByteBuffer.allocateDirect(64)));
+        socket.onRead(in -> {
+            in.flip();
+            clientReceived.set(StandardCharsets.UTF_8.decode(in).toString().equals(message));
+            socket.close();
+        });
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .queueAccept(serverSocket)
+            .queueConnect(socket);
+
+        attemptUntil(ioUring::execute, () -> clientReceived.get() && serverClosed.get());
+
+        ioUring.close();
+
+        Assert.assertTrue("Client received data", clientReceived.get());
+        Assert.assertTrue("Server socket closed by chain", serverClosed.get());
+    }
+
+    @Test
+    public void test_chain_read_with_link_timeout_should_report_cancelled_link() {
+        int port = randomPort();
+
+        AtomicReference<IoUringChainException> chainException = new AtomicReference<>();
+        AtomicBoolean readHandled = new AtomicBoolean(false);
+        IoUringServerSocket serverSocket = new IoUringServerSocket(port);
+        serverSocket.onException(Exception::printStackTrace);
+        serverSocket.onAccept((ring, socket) -> {
+            socket.onRead(in -> readHandled.set(true));
+            ring.chain()
+                .read(socket, ByteBuffer.allocateDirect(64)).timeout(50, TimeUnit.MILLISECONDS)
+                .onException(ex -> {
+                    chainException.set(ex);
+                    socket.close();
+                })
+                .queue();
+            serverSocket.close();
+        });
+
+        IoUringSocket socket = new IoUringSocket("127.0.0.1", port);
+        socket.onException(Exception::printStackTrace);
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .queueAccept(serverSocket)
+            .queueConnect(socket);
+
+        attemptUntil(ioUring::execute, () -> chainException.get() != null);
+
+        ioUring.close();
+        socket.close();
+
+        Assert.assertNotNull("Chain reported timed out read", chainException.get());
+        Assert.assertEquals("Failed link index", 0, chainException.get().link());
+        Assert.assertTrue("Link was cancelled", chainException.get().isCancelled());
+        Assert.assertFalse("Read handler not called", readHandled.get());
     }
 
     @Test
@@ -122,4 +301,526 @@ public class IoUringSocketTest extends TestBase {
         Assert.assertTrue("Client connected", clientConnected.get());
         Assert.assertTrue("Client received data", clientReceived.get());
     }
+
+    @Test
+    public void test_zero_copy_send_should_return_buffer_after_data_is_received() {
+        int port = randomPort();
+        String message = "Zero-copy over port " + randomPort();
+
+        AtomicBoolean bufferReturned = new AtomicBoolean(false);
+        AtomicBoolean clientReceived = new AtomicBoolean(false);
+
+        IoUringServerSocket serverSocket = new IoUringServerSocket(port);
+        serverSocket.onException(Exception::printStackTrace);
+        serverSocket.onAccept((ring, socket) -> {
+            socket.onWrite(out -> {
+                bufferReturned.set(!out.hasRemaining() && !socket.isWritePending());
+                socket.close();
+            });
+            ring.queueSendZeroCopy(socket, ByteBufferUtil.wrapDirect(message));
+            serverSocket.close();
+        });
+
+        IoUringSocket socket = new IoUringSocket("127.0.0.1", port);
+        socket.onException(Exception::printStackTrace);
+        socket.onConnect(ring -> ring.queueRead(socket, ByteBuffer.allocateDirect(64)));
+        socket.onRead(in -> {
+            in.flip();
+            clientReceived.set(StandardCharsets.UTF_8.decode(in).toString().equals(message));
+            socket.close();
+        });
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .zeroCopyThreshold(0)
+            .queueAccept(serverSocket)
+            .queueConnect(socket);
+
+        attemptUntil(ioUring::execute, () -> bufferReturned.get() && clientReceived.get());
+
+        ioUring.close();
+
+        Assert.assertTrue("Send buffer returned", bufferReturned.get());
+        Assert.assertTrue("Client received data", clientReceived.get());
+    }
+
+    @Test
+    public void test_forward_should_splice_data_between_sockets() {
+        int port = randomPort();
+        String message = "Forwarded over port " + port;
+
+        AtomicReference<IoUringSocket> firstAccepted = new AtomicReference<>();
+        AtomicReference<IoUringForward> forward = new AtomicReference<>();
+        IoUringServerSocket serverSocket = new IoUringServerSocket(port);
+        serverSocket.onException(Exception::printStackTrace);
+        serverSocket.onAccept((ring, socket) -> {
+            if (firstAccepted.get() == null) {
+                firstAccepted.set(socket);
+                ring.queueAccept(serverSocket);
+            } else {
+                forward.set(ring.forward(firstAccepted.get(), socket));
+                serverSocket.close();
+            }
+        });
+
+        IoUringSocket sender = new IoUringSocket("127.0.0.1", port);
+        sender.onException(Exception::printStackTrace);
+        sender.onConnect(ring -> ring.queueWrite(sender, ByteBufferUtil.wrapDirect(message)));
+
+        AtomicBoolean received = new AtomicBoolean(false);
+        IoUringSocket receiver = new IoUringSocket("127.0.0.1", port);
+        receiver.onException(Exception::printStackTrace);
+        receiver.onRead(in -> {
+            in.flip();
+            received.set(StandardCharsets.UTF_8.decode(in).toString().equals(message));
+        });
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .queueAccept(serverSocket)
+            .queueConnect(sender);
+        // connect the receiver only once the sender is accepted, so the forward knows which is which
+        attemptUntil(ioUring::execute, () -> firstAccepted.get() != null);
+        receiver.onConnect(ring -> ring.queueRead(receiver, ByteBuffer.allocateDirect(64)));
+        ioUring.queueConnect(receiver);
+
+        // every step of the forward is its own completion, so this needs more rounds than most tests
+        for (int i = 0; i < MAX_ATTEMPTS * 5 && !received.get(); i++) {
+            ioUring.execute();
+        }
+        forward.get().close();
+        sender.close();
+        receiver.close();
+        ioUring.close();
+
+        Assert.assertTrue("Receiver got the sender's data", received.get());
+        Assert.assertEquals("Forwarded bytes counted", message.length(), forward.get().forwardedBytes());
+    }
+
+    @Test
+    public void test_file_transfer_should_send_file_range_to_socket() {
+        int port = randomPort();
+
+        AtomicLong transferred = new AtomicLong(-1);
+        IoUringFile file = new IoUringFile("src/test/resources/test-file.txt");
+        IoUringServerSocket serverSocket = new IoUringServerSocket(port);
+        serverSocket.onException(Exception::printStackTrace);
+        serverSocket.onAccept((ring, socket) -> {
+            socket.onException(Exception::printStackTrace);
+            socket.onFileTransfer((f, bytes) -> {
+                transferred.set(bytes);
+                socket.close();
+            });
+            ring.queueTransfer(file, 7, 6, socket);
+            serverSocket.close();
+        });
+
+        AtomicReference<String> received = new AtomicReference<>();
+        IoUringSocket socket = new IoUringSocket("127.0.0.1", port);
+        socket.onException(Exception::printStackTrace);
+        socket.onConnect(ring -> ring.queueRead(socket, ByteBuffer.allocateDirect(64)));
+        socket.onRead(in -> {
+            in.flip();
+            received.set(StandardCharsets.UTF_8.decode(in).toString());
+            socket.close();
+        });
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .queueAccept(serverSocket)
+            .queueConnect(socket);
+
+        attemptUntil(ioUring::execute, () -> received.get() != null && transferred.get() >= 0);
+
+        ioUring.close();
+        file.close();
+
+        Assert.assertEquals("Client received the file range", "world!", received.get());
+        Assert.assertEquals("Transfer reported total bytes", 6, transferred.get());
+    }
+
+    @Test
+    public void test_read_with_provided_buffers_should_receive_and_release() {
+        int port = randomPort();
+        String message = "Provided buffer test over port " + port;
+
+        AtomicBoolean clientReceived = new AtomicBoolean(false);
+        AtomicBoolean doubleReleaseRejected = new AtomicBoolean(false);
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace);
+        IoUringBufferRing bufferRing = ioUring.registerBufferRing(4, 64);
+
+        IoUringServerSocket serverSocket = new IoUringServerSocket(port);
+        serverSocket.onException(Exception::printStackTrace);
+        serverSocket.onAccept((ring, socket) -> {
+            socket.onWrite(out -> socket.close());
+            ring.queueWrite(socket, ByteBufferUtil.wrapDirect(message));
+        });
+
+        IoUringSocket socket = new IoUringSocket("127.0.0.1", port);
+        socket.onException(Exception::printStackTrace);
+        socket.onConnect(ring -> ring.queueRead(socket, bufferRing));
+        socket.onRead(in -> {
+            in.flip();
+            if (StandardCharsets.UTF_8.decode(in).toString().equals(message)) {
+                clientReceived.set(true);
+            }
+            bufferRing.release(in);
+            try {
+                bufferRing.release(in);
+            } catch (IllegalStateException expected) {
+                doubleReleaseRejected.set(true);
+            }
+            socket.close();
+        });
+
+        ioUring.queueAccept(serverSocket).queueConnect(socket);
+        attemptUntil(ioUring::execute, clientReceived::get);
+
+        ioUring.close();
+        serverSocket.close();
+
+        Assert.assertTrue("Client received data into a provided buffer", clientReceived.get());
+        Assert.assertTrue("Second release of the same buffer rejected", doubleReleaseRejected.get());
+    }
+
+    @Test
+    public void test_accept_into_direct_descriptor_should_send_data() {
+        int port = randomPort();
+        String message = "Direct descriptor test over port " + port;
+
+        AtomicBoolean serverAcceptedDirect = new AtomicBoolean(false);
+        AtomicBoolean clientReceived = new AtomicBoolean(false);
+
+        IoUringServerSocket serverSocket = new IoUringServerSocket(port).directDescriptors(true);
+        serverSocket.onException(Exception::printStackTrace);
+        serverSocket.onAccept((ring, socket) -> {
+            serverAcceptedDirect.set(socket.isFixedFile());
+            socket.onWrite(out -> socket.close());
+            ring.queueWrite(socket, ByteBufferUtil.wrapDirect(message));
+        });
+
+        IoUringSocket socket = new IoUringSocket("127.0.0.1", port);
+        socket.onException(Exception::printStackTrace);
+        socket.onConnect(ring -> ring.queueRead(socket, ByteBuffer.allocateDirect(64)));
+        socket.onRead(in -> {
+            in.flip();
+            if (StandardCharsets.UTF_8.decode(in).toString().equals(message)) {
+                clientReceived.set(true);
+            }
+            socket.close();
+        });
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .registerFiles(TEST_RING_SIZE)
+            .registerFile(socket)
+            .queueAccept(serverSocket)
+            .queueConnect(socket);
+
+        attemptUntil(ioUring::execute, () -> serverAcceptedDirect.get() && clientReceived.get());
+
+        ioUring.close();
+        serverSocket.close();
+
+        Assert.assertTrue("Server accepted into a direct descriptor", serverAcceptedDirect.get());
+        Assert.assertTrue("Client received data over a registered file", clientReceived.get());
+    }
+
+    @Test
+    public void test_multishot_accept_should_accept_many_connections_from_one_queue() {
+        int port = randomPort();
+
+        AtomicInteger accepted = new AtomicInteger(0);
+        IoUringServerSocket serverSocket = new IoUringServerSocket(port).multishot(true);
+        serverSocket.onException(Exception::printStackTrace);
+        serverSocket.onAccept((ring, socket) -> {
+            accepted.incrementAndGet();
+            socket.close();
+        });
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .queueAccept(serverSocket);
+
+        for (int i = 0; i < 3; i++) {
+            IoUringSocket socket = new IoUringSocket("127.0.0.1", port);
+            socket.onException(Exception::printStackTrace);
+            socket.onConnect(ring -> socket.close());
+            ioUring.queueConnect(socket);
+        }
+
+        attemptUntil(ioUring::execute, () -> accepted.get() == 3);
+
+        ioUring.queueCancel(serverSocket).executeNow();
+        ioUring.close();
+        serverSocket.close();
+
+        Assert.assertEquals("Server accepted every connection", 3, accepted.get());
+    }
+
+    @Test
+    public void test_multishot_read_should_receive_every_write_from_one_queue() {
+        int port = randomPort();
+        String first = "first message";
+        String second = "second message";
+
+        StringBuilder received = new StringBuilder();
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace);
+        IoUringBufferRing bufferRing = ioUring.registerBufferRing(4, 64);
+
+        IoUringServerSocket serverSocket = new IoUringServerSocket(port);
+        serverSocket.onException(Exception::printStackTrace);
+        serverSocket.onAccept((ring, socket) -> {
+            socket.onWrite(out -> {
+                if (!socket.isWritePending()) {
+                    socket.close();
+                }
+            });
+            ring.queueWrite(socket, ByteBufferUtil.wrapDirect(first));
+            ring.queueWrite(socket, ByteBufferUtil.wrapDirect(second));
+        });
+
+        IoUringSocket socket = new IoUringSocket("127.0.0.1", port);
+        socket.onException(Exception::printStackTrace);
+        socket.onConnect(ring -> ring.queueMultishotRead(socket, bufferRing));
+        socket.onRead(in -> {
+            in.flip();
+            received.append(StandardCharsets.UTF_8.decode(in));
+            bufferRing.release(in);
+        });
+
+        ioUring.queueAccept(serverSocket).queueConnect(socket);
+        attemptUntil(ioUring::execute, () -> received.length() == first.length() + second.length());
+
+        socket.close();
+        ioUring.executeNow();
+        ioUring.close();
+        serverSocket.close();
+
+        Assert.assertEquals("Client received both writes", first + second, received.toString());
+    }
+
+    @Test
+    public void datagram_send_to_should_report_source_address() {
+        String message = "Datagram test";
+
+        AtomicReference<String> received = new AtomicReference<>();
+        AtomicReference<String> source = new AtomicReference<>();
+        IoUringDatagramSocket receiver = new IoUringDatagramSocket(0);
+        IoUringDatagramSocket sender = new IoUringDatagramSocket(0);
+        receiver.onException(Exception::printStackTrace);
+        sender.onException(Exception::printStackTrace);
+        receiver.onReceive(datagram -> {
+            received.set(StandardCharsets.UTF_8.decode(datagram.buffer()).toString());
+            source.set(datagram.ipAddress() + ":" + datagram.port());
+        });
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .queueReceive(receiver, ByteBuffer.allocateDirect(64))
+            .queueSendTo(sender, ByteBufferUtil.wrapDirect(message), "127.0.0.1", receiver.port());
+        attemptUntil(ioUring::execute, () -> received.get() != null);
+
+        sender.close();
+        receiver.close();
+        ioUring.close();
+
+        Assert.assertEquals("Receiver got the datagram", message, received.get());
+        Assert.assertEquals("Source address reported", "127.0.0.1:" + sender.port(), source.get());
+    }
+
+    @Test
+    public void datagram_segmented_send_should_reach_multishot_receive() {
+        AtomicInteger datagrams = new AtomicInteger();
+        StringBuilder received = new StringBuilder();
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace);
+        IoUringBufferRing bufferRing = ioUring.registerBufferRing(8, 256);
+
+        IoUringDatagramSocket receiver = new IoUringDatagramSocket(0);
+        receiver.onException(Exception::printStackTrace);
+        receiver.onReceive(datagram -> {
+            datagrams.incrementAndGet();
+            received.append(StandardCharsets.UTF_8.decode(datagram.buffer()));
+            bufferRing.release(datagram.buffer());
+        });
+        IoUringDatagramSocket sender = new IoUringDatagramSocket(0).connect("127.0.0.1", receiver.port());
+        sender.onException(Exception::printStackTrace);
+
+        // one send, which the kernel cuts into three datagrams
+        ioUring.queueMultishotReceive(receiver, bufferRing)
+            .queueSendTo(sender, ByteBufferUtil.wrapDirect("aaaabbbbcc"), null, 0, 4);
+        attemptUntil(ioUring::execute, () -> datagrams.get() == 3);
+
+        sender.close();
+        receiver.close();
+        ioUring.close();
+
+        Assert.assertEquals("Each segment arrived as its own datagram", 3, datagrams.get());
+        Assert.assertEquals("Segments arrived in order", "aaaabbbbcc", received.toString());
+    }
+
+    @Test
+    public void datagram_multishot_receive_should_survive_receive_error() {
+        AtomicReference<Exception> refused = new AtomicReference<>();
+        AtomicReference<String> received = new AtomicReference<>();
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace);
+        IoUringBufferRing bufferRing = ioUring.registerBufferRing(4, 256);
+
+        IoUringDatagramSocket unbound = new IoUringDatagramSocket(0);
+        int port = unbound.port();
+        unbound.close();
+        IoUringDatagramSocket socket = new IoUringDatagramSocket(0).connect("127.0.0.1", port);
+        socket.onException(refused::set);
+        socket.onReceive(datagram -> {
+            received.set(StandardCharsets.UTF_8.decode(datagram.buffer()).toString());
+            bufferRing.release(datagram.buffer());
+        });
+
+        // nobody is bound to the port, so the ICMP reply fails the armed receive with ECONNREFUSED
+        ioUring.queueMultishotReceive(socket, bufferRing)
+            .queueSendTo(socket, ByteBufferUtil.wrapDirect("ping"), null, 0);
+        attemptUntil(ioUring::execute, () -> refused.get() != null);
+
+        IoUringDatagramSocket peer = new IoUringDatagramSocket(port);
+        peer.onException(Exception::printStackTrace);
+        ioUring.queueSendTo(peer, ByteBufferUtil.wrapDirect("pong"), "127.0.0.1", socket.port());
+        attemptUntil(ioUring::execute, () -> received.get() != null);
+
+        peer.close();
+        socket.close();
+        ioUring.close();
+
+        Assert.assertNotNull("Refused send was reported", refused.get());
+        Assert.assertEquals("Receive kept going after the error", "pong", received.get());
+    }
+
+    @Test
+    public void unix_socket_should_exchange_data_over_abstract_address() {
+        String address = "@nio_uring_test_" + randomPort();
+        String message = "Unix socket test";
+
+        AtomicBoolean received = new AtomicBoolean(false);
+        IoUringUnixServerSocket serverSocket = new IoUringUnixServerSocket(address);
+        serverSocket.onException(Exception::printStackTrace);
+        serverSocket.onAccept((ring, socket) -> {
+            socket.onRead(in -> {
+                in.flip();
+                received.set(StandardCharsets.UTF_8.decode(in).toString().equals(message));
+                socket.close();
+            });
+            ring.queueRead(socket, ByteBuffer.allocateDirect(64));
+        });
+
+        IoUringUnixSocket socket = new IoUringUnixSocket(address);
+        socket.onException(Exception::printStackTrace);
+        socket.onConnect(ring -> ring.queueWrite(socket, ByteBufferUtil.wrapDirect(message)));
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .queueAccept(serverSocket)
+            .queueConnect(socket);
+        attemptUntil(ioUring::execute, received::get);
+
+        socket.close();
+        serverSocket.close();
+        ioUring.close();
+
+        Assert.assertTrue("Server received the message", received.get());
+    }
+
+    @Test
+    public void unix_socket_should_pass_descriptors() throws Exception {
+        String address = "@nio_uring_fds_" + randomPort();
+        File file = File.createTempFile("nio_uring_fds", ".txt");
+        file.deleteOnExit();
+        IoUringFile passed = new IoUringFile(file.getPath());
+        int passedFd = passed.fd();
+
+        AtomicReference<int[]> receivedFds = new AtomicReference<>();
+        IoUringUnixServerSocket serverSocket = new IoUringUnixServerSocket(address, 16, true);
+        serverSocket.onException(Exception::printStackTrace);
+        serverSocket.onAccept((ring, socket) -> {
+            ((IoUringUnixSocket) socket).onDescriptors((in, fds) -> receivedFds.set(fds));
+            ring.queueReceiveDescriptors((IoUringUnixSocket) socket, ByteBuffer.allocateDirect(16));
+        });
+
+        IoUringUnixSocket socket = new IoUringUnixSocket(address, true);
+        socket.onException(Exception::printStackTrace);
+        socket.onConnect(ring -> ring.queueSendDescriptors(socket, ByteBufferUtil.wrapDirect("fd"), passedFd));
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .queueAccept(serverSocket)
+            .queueConnect(socket);
+        attemptUntil(ioUring::execute, () -> receivedFds.get() != null);
+
+        socket.close();
+        serverSocket.close();
+        ioUring.close();
+        passed.close();
+
+        Assert.assertNotNull("Descriptors received", receivedFds.get());
+        Assert.assertEquals("One descriptor received", 1, receivedFds.get().length);
+        Assert.assertNotEquals("Received descriptor is a copy", passedFd, receivedFds.get()[0]);
+        AbstractIoUringChannel.close(receivedFds.get()[0]);
+    }
+
+    @Test
+    public void socket_options_should_apply_to_created_and_accepted_sockets() {
+        int port = randomPort();
+
+        AtomicReference<Boolean> acceptedNoDelay = new AtomicReference<>();
+        IoUringServerSocket serverSocket = new IoUringServerSocket(port)
+            .acceptedOption(IoUringSocketOption.TCP_NODELAY, true);
+        serverSocket.onException(Exception::printStackTrace);
+        serverSocket.onAccept((ring, socket) -> {
+            acceptedNoDelay.set(socket.option(IoUringSocketOption.TCP_NODELAY));
+            socket.close();
+        });
+
+        IoUringSocket socket = new IoUringSocket("127.0.0.1", port);
+        socket.onException(Exception::printStackTrace);
+        socket.option(IoUringSocketOption.SO_LINGER, 0)
+            .option(IoUringSocketOption.TCP_NODELAY, true);
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .queueAccept(serverSocket)
+            .queueConnect(socket);
+        attemptUntil(ioUring::execute, () -> acceptedNoDelay.get() != null);
+
+        Assert.assertTrue("Created socket has TCP_NODELAY", socket.option(IoUringSocketOption.TCP_NODELAY));
+        Assert.assertEquals("Created socket lingers for 0 seconds", 0, (int) socket.option(IoUringSocketOption.SO_LINGER));
+        socket.close();
+        serverSocket.close();
+        ioUring.close();
+
+        Assert.assertEquals("Accepted socket has TCP_NODELAY", Boolean.TRUE, acceptedNoDelay.get());
+    }
+
+    @Test
+    public void rejected_queued_option_should_be_reported_without_affecting_later_options() {
+        AtomicReference<Exception> rejected = new AtomicReference<>();
+        IoUringSocket socket = new IoUringSocket("127.0.0.1", randomPort());
+        socket.onException(rejected::set);
+
+        IoUring ioUring = new IoUring(TEST_RING_SIZE)
+            .onException(Exception::printStackTrace)
+            .queueOption(socket, IoUringSocketOption.TCP_FASTOPEN, -1);
+        attemptUntil(ioUring::executeNow, () -> rejected.get() != null);
+
+        ioUring.queueOption(socket, IoUringSocketOption.TCP_NODELAY, true);
+        attemptUntil(ioUring::executeNow, () -> socket.option(IoUringSocketOption.TCP_NODELAY));
+        boolean noDelay = socket.option(IoUringSocketOption.TCP_NODELAY);
+
+        socket.close();
+        ioUring.close();
+
+        Assert.assertNotNull("Rejected option was reported", rejected.get());
+        Assert.assertTrue("Later option was applied", noDelay);
+    }
 }
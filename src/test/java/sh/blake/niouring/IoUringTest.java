@@ -0,0 +1,95 @@
+package sh.blake.niouring;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IoUringTest extends TestBase {
+
+    @Test
+    public void test_post_from_other_thread_should_wake_ring() throws InterruptedException {
+        IoUring ioUring = new IoUring(TEST_RING_SIZE).onException(Exception::printStackTrace);
+
+        AtomicBoolean taskRan = new AtomicBoolean(false);
+        Thread ringThread = new Thread(() -> {
+            while (!taskRan.get()) {
+                ioUring.execute();
+            }
+        });
+        ringThread.start();
+
+        // give the ring thread time to block waiting for completions
+        Thread.sleep(100);
+        ioUring.post(() -> taskRan.set(true));
+        ringThread.join(5000);
+
+        Assert.assertFalse("Ring thread finished", ringThread.isAlive());
+        Assert.assertTrue("Posted task ran", taskRan.get());
+
+        ioUring.close();
+    }
+
+    @Test
+    public void test_schedule_should_run_task_after_delay() {
+        IoUring ioUring = new IoUring(TEST_RING_SIZE).onException(Exception::printStackTrace);
+
+        AtomicBoolean taskRan = new AtomicBoolean(false);
+        long start = System.nanoTime();
+        IoUringTimer timer = ioUring.schedule(50, TimeUnit.MILLISECONDS, () -> taskRan.set(true));
+        while (!taskRan.get()) {
+            ioUring.execute();
+        }
+
+        Assert.assertTrue("Delay elapsed", System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        Assert.assertTrue("Timer done", timer.isDone());
+
+        ioUring.close();
+    }
+
+    @Test
+    public void test_cancelled_periodic_timer_should_stop_running() {
+        IoUring ioUring = new IoUring(TEST_RING_SIZE).onException(Exception::printStackTrace);
+
+        AtomicInteger runs = new AtomicInteger();
+        IoUringTimer timer = ioUring.scheduleAtFixedRate(10, TimeUnit.MILLISECONDS, runs::incrementAndGet);
+        while (runs.get() < 3) {
+            ioUring.execute();
+        }
+        timer.cancel();
+        int runsAtCancel = runs.get();
+        // a period's worth of ticks would have run by the time this fires
+        AtomicBoolean waited = new AtomicBoolean(false);
+        ioUring.schedule(50, TimeUnit.MILLISECONDS, () -> waited.set(true));
+        while (!waited.get()) {
+            ioUring.execute();
+        }
+
+        Assert.assertTrue("Timer done", timer.isDone());
+        Assert.assertEquals("Runs after cancel", runsAtCancel, runs.get());
+
+        ioUring.close();
+    }
+
+    @Test
+    public void test_timer_wheel_should_run_timeouts_in_order() {
+        IoUring ioUring = new IoUring(TEST_RING_SIZE).onException(Exception::printStackTrace);
+        IoUringTimerWheel wheel = new IoUringTimerWheel(ioUring, 10, TimeUnit.MILLISECONDS, 8);
+
+        StringBuilder order = new StringBuilder();
+        wheel.schedule(120, TimeUnit.MILLISECONDS, () -> order.append('b'));
+        wheel.schedule(30, TimeUnit.MILLISECONDS, () -> order.append('a'));
+        IoUringTimerWheel.Timeout cancelled = wheel.schedule(60, TimeUnit.MILLISECONDS, () -> order.append('x'));
+        cancelled.cancel();
+        while (wheel.size() > 0) {
+            ioUring.execute();
+        }
+
+        Assert.assertEquals("Timeout order", "ab", order.toString());
+        Assert.assertFalse("Cancelled timeout pending", cancelled.isPending());
+
+        ioUring.close();
+    }
+}